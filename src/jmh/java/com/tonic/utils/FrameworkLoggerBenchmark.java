@@ -0,0 +1,68 @@
+package com.tonic.utils;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.tonic.enums.LogType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FrameworkLogger#log} dispatch into an in-memory Extent test. No driver is bound, so the screenshot
+ * consumers only pay for their null check. Runs in fixed batches so the Extent log does not grow without bound.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = 10_000)
+@Measurement(iterations = 20, batchSize = 10_000)
+@Fork(1)
+public class FrameworkLoggerBenchmark {
+
+    private final ExtentReports extent = new ExtentReports();
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void silenceConsole() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @Setup(Level.Iteration)
+    public void createTest() {
+        ExtentManager.setExtentTest(extent.createTest("benchmark"));
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreConsole() {
+        ExtentManager.unload();
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public void logInfo() {
+        FrameworkLogger.log(LogType.INFO, "step completed");
+    }
+
+    @Benchmark
+    public void logPass() {
+        FrameworkLogger.log(LogType.PASS, "step passed");
+    }
+
+    @Benchmark
+    public void logConsole() {
+        FrameworkLogger.log(LogType.CONSOLE, "step completed");
+    }
+}
@@ -0,0 +1,28 @@
+package com.tonic.utils;
+
+import com.tonic.enums.ConfigProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a config lookup, which runs on every {@link FrameworkLogger#log} call and every driver creation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyBuilderBenchmark {
+
+    @Benchmark
+    public String getPropValue() {
+        return PropertyBuilder.getPropValue(ConfigProperties.PASSEDSTEPSSCREENSHOTS);
+    }
+}
@@ -0,0 +1,102 @@
+package com.tonic.utils;
+
+import com.tonic.artifacts.Artifact;
+import com.tonic.artifacts.ArtifactStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a stored screenshot into a report file: as a Base64 string concatenated into HTML (the way screenshots
+ * used to be attached), streamed through a Base64 encoder, or copied as the linked file of
+ * {@code reportscreenshots=link}. Run with {@code -prof gc} to compare the bytes allocated per screenshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportAttachmentsBenchmark {
+
+    @Param({"1", "8"})
+    private int megabytes;
+
+    private Path directory;
+    private ArtifactStore store;
+    private Artifact screenshot;
+    private Path reportFile;
+
+    @Setup
+    public void storeScreenshot() throws IOException {
+        directory = Files.createTempDirectory("benchmark-attachments");
+        store = ArtifactStore.open(directory.resolve("store"));
+        // random bytes, incompressible like the pixel data of a PNG
+        byte[] content = new byte[megabytes * 1024 * 1024];
+        new Random(42).nextBytes(content);
+        screenshot = store.put(content, "image/png");
+        reportFile = directory.resolve("report.html");
+    }
+
+    @TearDown
+    public void deleteFiles() throws IOException {
+        store.clear();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory.resolve("store"))) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory.resolve("store"));
+        Files.deleteIfExists(reportFile);
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public void base64String() throws IOException {
+        String base64 = Base64.getEncoder().encodeToString(store.get(screenshot.getHash()));
+        String html = "<img src='data:image/png;base64," + base64 + "' style='width:25%;height:auto;'/>";
+        try (Writer out = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8)) {
+            out.write(html);
+        }
+    }
+
+    @Benchmark
+    public void streamedBase64() throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(reportFile))) {
+            out.write("<img src='data:image/png;base64,".getBytes(StandardCharsets.US_ASCII));
+            ReportAttachments.writeBase64(store, screenshot.getHash(), out);
+            out.write("' style='width:25%;height:auto;'/>".getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Benchmark
+    public void linkedFile() throws IOException {
+        try (FileChannel channel = FileChannel.open(reportFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            store.transferTo(screenshot.getHash(), channel);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.tonic.utils;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spark report rendering for a suite of the given size, as done by {@link ExtentReport#flushReports()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportFlushBenchmark {
+
+    @Param({"10", "200"})
+    private int tests;
+
+    private File reportFile;
+    private ExtentReports extent;
+
+    @Setup
+    public void createReport() throws IOException {
+        reportFile = Files.createTempFile("benchmark-report", ".html").toFile();
+        extent = new ExtentReports();
+        extent.attachReporter(new ExtentSparkReporter(reportFile));
+        for (int i = 0; i < tests; i++) {
+            ExtentTest test = extent.createTest("test" + i, "benchmark test");
+            for (int step = 0; step < 10; step++) {
+                test.info("step " + step);
+            }
+            test.pass("Test passed");
+        }
+    }
+
+    @TearDown
+    public void deleteReport() {
+        reportFile.delete();
+    }
+
+    @Benchmark
+    public void flush() {
+        extent.flush();
+    }
+}
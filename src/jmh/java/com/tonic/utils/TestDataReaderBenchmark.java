@@ -0,0 +1,35 @@
+package com.tonic.utils;
+
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test data loading as done by the mobile {@code BaseTest.dataSetup} before every test method.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TestDataReaderBenchmark {
+
+    @Benchmark
+    public HashMap<String, HashMap<String, String>> loadAndroidClassData() throws IOException, ParseException {
+        return TestDataReader.getClassData("android", "AndroidTest");
+    }
+
+    @Benchmark
+    public HashMap<String, HashMap<String, String>> loadIosClassData() throws IOException, ParseException {
+        return TestDataReader.getClassData("ios", "IOSRegressionTest");
+    }
+}
@@ -0,0 +1,135 @@
+package com.tonic.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tonic.concurrent.IoExecutors;
+import com.tonic.exceptions.FrameworkException;
+import com.tonic.metrics.Metrics;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * HTTP client for API tests and framework calls that don't need a browser. Unlike Playwright's
+ * {@code APIRequestContext}, it can be used from any thread, and its async calls run on {@link IoExecutors}.
+ * On virtual threads, thousands of requests can be in flight at once.
+ */
+public class ApiClient {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String baseUrl;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private final HttpClient client;
+
+    public ApiClient(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(TIMEOUT)
+                .executor(IoExecutors.io())
+                .build();
+    }
+
+    /**
+     * Adds a header sent with every request of this client, e.g. {@code Authorization}.
+     */
+    public ApiClient withHeader(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public HttpResponse<String> get(String path) {
+        return send(request(path).GET().build());
+    }
+
+    public HttpResponse<String> post(String path, Object body) {
+        return send(request(path).header("Content-Type", "application/json").POST(json(body)).build());
+    }
+
+    public HttpResponse<String> put(String path, Object body) {
+        return send(request(path).header("Content-Type", "application/json").PUT(json(body)).build());
+    }
+
+    public HttpResponse<String> delete(String path) {
+        return send(request(path).DELETE().build());
+    }
+
+    public CompletableFuture<HttpResponse<String>> getAsync(String path) {
+        return sendAsync(request(path).GET().build());
+    }
+
+    /**
+     * Sends the GET requests concurrently.
+     *
+     * @return the responses, in the order of the paths
+     */
+    public List<HttpResponse<String>> getAll(List<String> paths) {
+        List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            futures.add(getAsync(path));
+        }
+        List<HttpResponse<String>> responses = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<HttpResponse<String>> future : futures) {
+                responses.add(future.join());
+            }
+        } catch (CompletionException e) {
+            throw new FrameworkException("API call failed: " + e.getCause(), e.getCause());
+        }
+        return responses;
+    }
+
+    public CompletableFuture<HttpResponse<String>> sendAsync(HttpRequest request) {
+        long start = Metrics.start();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, failure) -> Metrics.stop("api." + request.method().toLowerCase(), start));
+    }
+
+    public HttpResponse<String> send(HttpRequest request) {
+        long start = Metrics.start();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new FrameworkException(request.method() + " " + request.uri() + " failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FrameworkException(request.method() + " " + request.uri() + " interrupted", e);
+        } finally {
+            Metrics.stop("api." + request.method().toLowerCase(), start);
+        }
+    }
+
+    public static <T> T readJson(HttpResponse<String> response, Class<T> type) {
+        try {
+            return MAPPER.readValue(response.body(), type);
+        } catch (JsonProcessingException e) {
+            throw new FrameworkException("Response of " + response.uri() + " is not a " + type.getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(path.startsWith("http") ? path : baseUrl + path))
+                .timeout(TIMEOUT);
+        headers.forEach(builder::header);
+        return builder;
+    }
+
+    private static HttpRequest.BodyPublisher json(Object body) {
+        try {
+            return HttpRequest.BodyPublishers.ofString(body instanceof String ? (String) body : MAPPER.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            throw new FrameworkException("Could not serialize request body: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.tonic.artifacts;
+
+/**
+ * A blob of the {@link ArtifactStore}, identified by the SHA-256 of its content.
+ */
+public final class Artifact {
+
+    private final String hash;
+    private final String contentType;
+    private final int segment;
+    private final long offset;
+    private final int length;
+
+    Artifact(String hash, String contentType, int segment, long offset, int length) {
+        this.hash = hash;
+        this.contentType = contentType;
+        this.segment = segment;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public int getSegment() {
+        return segment;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return the file extension for the content type, e.g. {@code .png}
+     */
+    public String extension() {
+        switch (contentType) {
+            case "image/png":
+                return ".png";
+            case "application/zip":
+                return ".zip";
+            case "text/html":
+                return ".html";
+            case "application/json":
+                return ".json";
+            default:
+                return ".bin";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "sha256:" + hash;
+    }
+}
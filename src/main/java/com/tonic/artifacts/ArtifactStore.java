@@ -0,0 +1,415 @@
+package com.tonic.artifacts;
+
+import com.tonic.constants.FrameworkConstants;
+import com.tonic.exceptions.FrameworkException;
+import com.tonic.metrics.Metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Content-addressed store for the artifacts of a run (screenshots, traces, page sources): blobs are keyed by their
+ * SHA-256 and appended to a few large segment files through memory-mapped buffers, instead of one small file each.
+ * Storing the same content twice stores it once.
+ * <p>
+ * Each record of a segment is {@code [magic][hash][content type][length][bytes]}; the magic is written last, so a
+ * record torn by a crash is simply not there. The index (hash to segment and offset) is kept in memory and rebuilt
+ * from the record headers when the store is opened. Segments are preallocated as sparse files of
+ * {@value #SEGMENT_BYTES} bytes, a larger blob gets a segment of its own, and {@link #clear()} deletes whole
+ * segments.
+ * <p>
+ * A mapping is only released once its buffer is garbage collected, and Windows refuses to delete a mapped file. A
+ * segment {@link #clear()} can't delete is listed in {@value #CLEARED_FILE} and deleted when the store is next opened,
+ * before anything is read; segment numbers are never reused, so new artifacts don't land in a cleared file.
+ */
+public final class ArtifactStore {
+
+    private static final int MAGIC = 0x41525446; // "ARTF"
+    private static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final int HASH_BYTES = 32;
+    // a media type is at most 127 characters on each side of the slash
+    private static final int MAX_TYPE_BYTES = 255;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".bin";
+    private static final String CLEARED_FILE = "cleared.txt";
+
+    private static ArtifactStore shared;
+
+    private final Path directory;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Artifact> index = new LinkedHashMap<>();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    // highest segment number in the directory, including cleared segments not deleted yet
+    private int lastSegmentNumber;
+
+    private ArtifactStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return the store of the framework, in {@code build/artifacts}
+     */
+    public static synchronized ArtifactStore shared() {
+        if (shared == null) {
+            shared = open(Paths.get(FrameworkConstants.getArtifactsFolderPath()));
+        }
+        return shared;
+    }
+
+    public static ArtifactStore open(Path directory) {
+        ArtifactStore store = new ArtifactStore(directory);
+        try {
+            Files.createDirectories(directory);
+            store.load();
+        } catch (IOException e) {
+            throw new FrameworkException("Could not open the artifact store in " + directory + ": " + e.getMessage(), e);
+        }
+        return store;
+    }
+
+    /**
+     * Stores the bytes unless the same content is already stored.
+     *
+     * @return the artifact, whose hash identifies it from now on
+     */
+    public Artifact put(byte[] content, String contentType) {
+        String hash = sha256(content);
+        long start = Metrics.start();
+        lock.lock();
+        try {
+            Artifact existing = index.get(hash);
+            if (existing != null) {
+                Metrics.increment("artifacts.deduplicated");
+                return existing;
+            }
+            byte[] type = contentType.getBytes(StandardCharsets.UTF_8);
+            if (type.length > MAX_TYPE_BYTES) {
+                throw new FrameworkException("Content type of " + type.length + " bytes is not a media type: " + contentType);
+            }
+            int recordBytes = 4 + HASH_BYTES + 2 + type.length + 4 + content.length;
+            Segment segment = segmentFor(recordBytes);
+            int recordStart = segment.end;
+            ByteBuffer buffer = segment.buffer.duplicate();
+            buffer.position(recordStart + 4);
+            buffer.put(hexToBytes(hash));
+            buffer.putShort((short) type.length);
+            buffer.put(type);
+            buffer.putInt(content.length);
+            int offset = buffer.position();
+            buffer.put(content);
+            // written last: a record without its magic is ignored when the store is opened again
+            buffer.putInt(recordStart, MAGIC);
+            segment.end = recordStart + recordBytes;
+
+            Artifact artifact = new Artifact(hash, contentType, segment.number, offset, content.length);
+            index.put(hash, artifact);
+            return artifact;
+        } catch (IOException e) {
+            throw new FrameworkException("Could not store a " + contentType + " artifact: " + e.getMessage(), e);
+        } finally {
+            lock.unlock();
+            Metrics.stop("artifacts.put", start);
+        }
+    }
+
+    /**
+     * @return the artifact with that hash, or null when it is not stored
+     */
+    public Artifact find(String hash) {
+        lock.lock();
+        try {
+            return index.get(hash);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public byte[] get(String hash) {
+        lock.lock();
+        try {
+            Artifact artifact = index.get(hash);
+            if (artifact == null) {
+                throw new FrameworkException("No artifact " + hash + " in " + directory);
+            }
+            ByteBuffer buffer = segments.get(artifact.getSegment()).buffer.duplicate();
+            buffer.position((int) artifact.getOffset());
+            byte[] content = new byte[artifact.getLength()];
+            buffer.get(content);
+            return content;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the bytes of an artifact to a channel straight from its mapped segment, without copying them to the heap.
+     */
+    public void transferTo(String hash, WritableByteChannel target) throws IOException {
+        ByteBuffer content;
+        lock.lock();
+        try {
+            Artifact artifact = index.get(hash);
+            if (artifact == null) {
+                throw new FrameworkException("No artifact " + hash + " in " + directory);
+            }
+            content = segments.get(artifact.getSegment()).buffer.duplicate();
+            content.position((int) artifact.getOffset());
+            content.limit((int) artifact.getOffset() + artifact.getLength());
+        } finally {
+            lock.unlock();
+        }
+        // stored records are never rewritten, only whole segments deleted by clear()
+        while (content.hasRemaining()) {
+            target.write(content);
+        }
+    }
+
+    /**
+     * Writes an artifact out as a regular file, e.g. to open a screenshot referred to by a report. The file is
+     * written once: its name is the hash, so an existing one already has the same content.
+     *
+     * @return the file, {@code <hash>.<extension>} in the directory
+     */
+    public Path export(String hash, Path targetDirectory) throws IOException {
+        Artifact artifact = find(hash);
+        if (artifact == null) {
+            throw new FrameworkException("No artifact " + hash + " in " + directory);
+        }
+        Files.createDirectories(targetDirectory);
+        Path file = targetDirectory.resolve(hash + artifact.extension());
+        if (Files.exists(file)) {
+            return file;
+        }
+        // written under a name of its own and renamed, so two threads exporting it never see half a file
+        Path partial = Files.createTempFile(targetDirectory, hash, ".part");
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+            transferTo(hash, channel);
+        }
+        return Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public List<Artifact> list() {
+        lock.lock();
+        try {
+            return new ArrayList<>(index.values());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes the stored artifacts durable, e.g. at the end of the suite.
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.buffer.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes every artifact, one file deletion per segment. A segment still mapped (on Windows) is deleted when the
+     * store is next opened.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+            segments.clear();
+            index.clear();
+            List<String> undeleted = deleteSegments(segmentFiles());
+            if (!undeleted.isEmpty()) {
+                Files.write(directory.resolve(CLEARED_FILE), undeleted, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            System.err.println("Error clearing the artifact store: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void load() throws IOException {
+        List<String> cleared = new ArrayList<>();
+        Path clearedFile = directory.resolve(CLEARED_FILE);
+        if (Files.exists(clearedFile)) {
+            List<Path> files = new ArrayList<>();
+            for (String name : Files.readAllLines(clearedFile, StandardCharsets.UTF_8)) {
+                if (!name.trim().isEmpty()) {
+                    files.add(directory.resolve(name.trim()));
+                }
+            }
+            cleared = deleteSegments(files);
+            if (cleared.isEmpty()) {
+                Files.delete(clearedFile);
+            } else {
+                Files.write(clearedFile, cleared, StandardCharsets.UTF_8);
+            }
+        }
+        for (Path file : segmentFiles()) {
+            String name = file.getFileName().toString();
+            int number = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            lastSegmentNumber = Math.max(lastSegmentNumber, number);
+            if (cleared.contains(name)) {
+                continue;
+            }
+            Segment segment = Segment.map(file, number, Files.size(file));
+            scan(segment);
+            segments.put(number, segment);
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
+
+    /**
+     * @return the names of the segment files that could not be deleted
+     */
+    private static List<String> deleteSegments(List<Path> files) {
+        List<String> undeleted = new ArrayList<>();
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // still mapped, by this process or another one
+                undeleted.add(file.getFileName().toString());
+            }
+        }
+        return undeleted;
+    }
+
+    /**
+     * Indexes the records of a segment and finds where the next one goes: after the last record that fits in the
+     * segment, so a damaged record and whatever follows it are overwritten by the next artifacts.
+     */
+    private void scan(Segment segment) {
+        ByteBuffer buffer = segment.buffer.duplicate();
+        int capacity = buffer.capacity();
+        int position = 0;
+        while (position + 4 + HASH_BYTES + 2 <= capacity && buffer.getInt(position) == MAGIC) {
+            buffer.position(position + 4);
+            byte[] hash = new byte[HASH_BYTES];
+            buffer.get(hash);
+            int typeLength = buffer.getShort() & 0xFFFF;
+            if (typeLength > MAX_TYPE_BYTES || (long) buffer.position() + typeLength + 4 > capacity) {
+                break;
+            }
+            byte[] type = new byte[typeLength];
+            buffer.get(type);
+            int length = buffer.getInt();
+            int offset = buffer.position();
+            if (length < 0 || (long) offset + length > capacity) {
+                break;
+            }
+            String hex = bytesToHex(hash);
+            index.putIfAbsent(hex, new Artifact(hex, new String(type, StandardCharsets.UTF_8), segment.number, offset, length));
+            position = offset + length;
+        }
+        if (position + 4 <= capacity && buffer.getInt(position) == MAGIC) {
+            System.err.println("Damaged record at " + position + " of artifact segment " + segment.number + ", ignoring the rest");
+            // unmarked, so the record isn't read again if nothing is written over it
+            buffer.putInt(position, 0);
+        }
+        segment.end = position;
+    }
+
+    private Segment segmentFor(int recordBytes) throws IOException {
+        if (!segments.isEmpty()) {
+            Segment last = segments.lastEntry().getValue();
+            if (last.end + (long) recordBytes <= last.buffer.capacity()) {
+                return last;
+            }
+        }
+        int number = ++lastSegmentNumber;
+        Path file = directory.resolve(String.format("%s%05d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        Segment segment = Segment.map(file, number, Math.max(SEGMENT_BYTES, recordBytes));
+        segments.put(number, segment);
+        return segment;
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return bytesToHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new FrameworkException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String bytesToHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static byte[] hexToBytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    private static final class Segment {
+
+        final int number;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int end;
+
+        private Segment(int number, FileChannel channel, MappedByteBuffer buffer) {
+            this.number = number;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment map(Path file, int number, long size) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                return new Segment(number, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        void close() {
+            try {
+                // the mapping itself goes away with the buffer
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing artifact segment " + number + ": " + e.getMessage());
+            }
+        }
+    }
+}
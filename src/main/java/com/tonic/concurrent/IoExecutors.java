@@ -0,0 +1,143 @@
+package com.tonic.concurrent;
+
+import com.tonic.enums.ConfigProperties;
+import com.tonic.exceptions.FrameworkException;
+import com.tonic.utils.PropertyBuilder;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads for the I/O-bound work of the framework: API calls, report and screenshot writes, Jira filing and
+ * test data loading.
+ * <p>
+ * With {@code virtualthreads=yes} (or {@code auto}, the default) and a Java 21+ runtime, every task gets its own
+ * virtual thread, so thousands of calls can wait on the network at once without sizing a pool. Otherwise tasks run
+ * on a fixed pool of daemon platform threads. Virtual threads are looked up reflectively because the framework is
+ * still compiled for Java 11.
+ * <p>
+ * Code running on these threads should guard blocking I/O with a {@link java.util.concurrent.locks.ReentrantLock}
+ * rather than {@code synchronized}, which pins a virtual thread to its carrier on Java 21; the {@code virtual-threads}
+ * Maven profile reports the pinning that is left.
+ */
+public final class IoExecutors {
+
+    private IoExecutors() {
+    }
+
+    private static final int PLATFORM_POOL_SIZE = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+    private static final boolean VIRTUAL = resolveVirtual();
+
+    private static volatile ExecutorService io;
+
+    /**
+     * @return whether the I/O work runs on virtual threads
+     */
+    public static boolean isVirtual() {
+        return VIRTUAL;
+    }
+
+    /**
+     * @return the shared executor for I/O tasks; it never needs to be shut down. Its threads are daemons, so a task
+     * still running when the JVM exits is dropped: work that must outlive the test, such as writing a file, is
+     * awaited by its caller or handed to a writer that is flushed at the end of the run, never fired and forgotten
+     */
+    public static ExecutorService io() {
+        if (io == null) {
+            synchronized (IoExecutors.class) {
+                if (io == null) {
+                    io = VIRTUAL ? virtualPerTaskExecutor() : Executors.newFixedThreadPool(PLATFORM_POOL_SIZE, threadFactory("io"));
+                }
+            }
+        }
+        return io;
+    }
+
+    /**
+     * @return a factory of virtual threads named {@code <name>-<n>}, or of daemon platform threads when virtual
+     * threads are off
+     */
+    public static ThreadFactory threadFactory(String name) {
+        if (VIRTUAL) {
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+                builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name + "-", 1L);
+                return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                throw new FrameworkException("Could not create virtual threads", e);
+            }
+        }
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Runs the tasks concurrently on the I/O executor and waits for all of them.
+     *
+     * @return the results, in the order of the tasks
+     * @throws FrameworkException with the first failure, once every task has ended
+     */
+    public static <T> List<T> invokeAll(Collection<? extends Callable<T>> tasks) {
+        List<Future<T>> futures;
+        try {
+            futures = io().invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FrameworkException("Interrupted while waiting for I/O tasks", e);
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new FrameworkException("I/O task failed: " + e.getCause(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FrameworkException("Interrupted while waiting for I/O tasks", e);
+            }
+        }
+        return results;
+    }
+
+    private static boolean resolveVirtual() {
+        String setting = System.getProperty("virtualthreads") == null
+                ? PropertyBuilder.getPropValue(ConfigProperties.VIRTUALTHREADS) : System.getProperty("virtualthreads");
+        if (setting.equalsIgnoreCase("no")) {
+            return false;
+        }
+        boolean supported = virtualThreadsSupported();
+        if (!supported && setting.equalsIgnoreCase("yes")) {
+            System.err.println("Virtual threads need Java 21+, running I/O tasks on platform threads (Java "
+                    + System.getProperty("java.version") + ")");
+        }
+        return supported;
+    }
+
+    private static boolean virtualThreadsSupported() {
+        // Java 19 and 20 have the methods, but only as a preview feature
+        return Runtime.version().feature() >= 21;
+    }
+
+    private static ExecutorService virtualPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new FrameworkException("Could not create the virtual thread executor", e);
+        }
+    }
+}
@@ -20,14 +20,21 @@ public class FrameworkConstants {
     private static final int ANDROID_PORT = 4723;
     private static final int IOS_PORT = 4725;
     private static final String IP_ADDRESS = "127.0.0.1";
+    private static final String SAUCELABS_HUB_URL = "https://ondemand.us-west-1.saucelabs.com:443/wd/hub";
     private static final String APPIUM_PATH = "appium/node_modules/appium/build/lib/main.js";
     private static final int EXPLICIT_WAIT = 30;
     private static final int MEDIUM_WAIT = 50;
     private static final int LONG_WAIT = 80;
     private static final String EXTENT_REPORT_FOLDER_PATH = System.getProperty("user.dir") + "/extent-test-output/";
     private static final String EXTENT_REPORT_SCREENSHOTS_FOLDER_PATH = EXTENT_REPORT_FOLDER_PATH + "screenshots/";
+    private static final String BUILD_FOLDER_PATH = System.getProperty("user.dir") + "/build/";
+    private static final String TEST_HISTORY_FOLDER_PATH = BUILD_FOLDER_PATH + "test-history/";
+    private static final String METRICS_FOLDER_PATH = BUILD_FOLDER_PATH + "metrics/";
+    private static final String PERFORMANCE_FOLDER_PATH = BUILD_FOLDER_PATH + "performance/";
+    private static final String ARTIFACTS_FOLDER_PATH = BUILD_FOLDER_PATH + "artifacts/";
+    private static final String VISUAL_BASELINES_FOLDER_PATH = System.getProperty("user.dir") + "/src/test/resources/visual-baselines/";
     private static String extendReportFilePath = "";
-    public static final String ERROR_LOG_FILE_PATH = System.getProperty("user.dir") + "\\extent-test-output\\errorLog" + FrameworkConstants.DEVICE.toUpperCase() + "_" + new SimpleDateFormat("MMMdd_HHmm").format(new Date()) + ".txt";
+    public static final String ERROR_LOG_FILE_PATH = EXTENT_REPORT_FOLDER_PATH + "errorLog" + FrameworkConstants.DEVICE.toUpperCase() + "_" + new SimpleDateFormat("MMMdd_HHmm").format(new Date()) + ".jsonl";
 
     public static String getPropertyFilePath() {
         return PROPERTY_FILE_PATH;
@@ -65,6 +72,31 @@ public class FrameworkConstants {
         return INPUT_JSON_PATH;
     }
 
+    public static String getSauceLabsHubUrl() {
+        return SAUCELABS_HUB_URL;
+    }
+    public static String getBuildFolderPath() {
+        return BUILD_FOLDER_PATH;
+    }
+    public static String getTestHistoryFolderPath() {
+        return TEST_HISTORY_FOLDER_PATH;
+    }
+    public static String getMetricsFolderPath() {
+        return METRICS_FOLDER_PATH;
+    }
+    public static String getPerformanceFolderPath() {
+        return PERFORMANCE_FOLDER_PATH;
+    }
+    public static String getArtifactsFolderPath() {
+        return ARTIFACTS_FOLDER_PATH;
+    }
+    public static String getVisualBaselinesFolderPath() {
+        return VISUAL_BASELINES_FOLDER_PATH;
+    }
+    public static String getErrorLogFilePath() {
+        return ERROR_LOG_FILE_PATH;
+    }
+
     public static int mediumWait() {
         return MEDIUM_WAIT;
     }
@@ -0,0 +1,176 @@
+package com.tonic.diagnostics;
+
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.ConsoleMessage;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Response;
+import com.tonic.enums.ConfigProperties;
+import com.tonic.utils.PropertyBuilder;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Browser console and network log of the current test: console messages, uncaught page errors, failed requests
+ * and error responses of every page of the test's context, popups and extra tabs included.
+ * <p>
+ * Events below {@code browserloglevel} are dropped before any formatting. The others go into a ring buffer of
+ * {@code browserlogbuffer} entries per test, so a long test keeps its latest events and never grows the heap. The
+ * buffer is meant for the report of a failure; {@link #shouldReportPass()} samples {@code browserlogpasssample} of
+ * the passed tests.
+ */
+public final class BrowserLogs {
+
+    private BrowserLogs() {
+    }
+
+    public enum Level { DEBUG, INFO, WARNING, ERROR }
+
+    private static final int MAX_TEXT = 2_000;
+    private static final Level LEVEL = Level.valueOf(setting("browserloglevel", ConfigProperties.BROWSERLOGLEVEL).toUpperCase());
+    private static final int CAPACITY = Integer.parseInt(setting("browserlogbuffer", ConfigProperties.BROWSERLOGBUFFER));
+    private static final double PASS_SAMPLE = Double.parseDouble(setting("browserlogpasssample", ConfigProperties.BROWSERLOGPASSSAMPLE));
+
+    private static final ThreadLocal<Ring> RING = new ThreadLocal<>();
+
+    /**
+     * Starts the log of a new test on the current thread and collects the events of every page of its context.
+     */
+    public static void startTest(BrowserContext context) {
+        Ring ring = new Ring(CAPACITY);
+        RING.set(ring);
+        for (Page page : context.pages()) {
+            attach(page, ring);
+        }
+        context.onPage(page -> attach(page, ring));
+    }
+
+    /**
+     * Collects the events of a page of another context, e.g. a separate fan-out context, into the current test's log.
+     */
+    public static void attach(Page page) {
+        Ring ring = RING.get();
+        if (ring != null) {
+            attach(page, ring);
+        }
+    }
+
+    /**
+     * @return the log of the current test, oldest first, or an empty string when it has no entries
+     */
+    public static String text() {
+        Ring ring = RING.get();
+        return ring == null ? "" : ring.text();
+    }
+
+    /**
+     * @return whether the log of a passed test goes into the report, for {@code browserlogpasssample} of them
+     */
+    public static boolean shouldReportPass() {
+        return PASS_SAMPLE > 0 && ThreadLocalRandom.current().nextDouble() < PASS_SAMPLE;
+    }
+
+    public static void reset() {
+        RING.remove();
+    }
+
+    private static void attach(Page page, Ring ring) {
+        page.onConsoleMessage(message -> {
+            Level level = levelOf(message);
+            if (enabled(level)) {
+                ring.add(level, "console." + message.type() + " " + message.text() + " (" + message.location() + ")");
+            }
+        });
+        page.onPageError(error -> {
+            if (enabled(Level.ERROR)) {
+                ring.add(Level.ERROR, "pageerror " + error);
+            }
+        });
+        page.onRequestFailed(request -> {
+            if (enabled(Level.ERROR)) {
+                ring.add(Level.ERROR, "requestfailed " + request.method() + " " + request.url() + " " + request.failure());
+            }
+        });
+        page.onResponse(response -> {
+            Level level = levelOf(response);
+            if (enabled(level)) {
+                ring.add(level, "response " + response.status() + " " + response.request().method() + " " + response.url());
+            }
+        });
+    }
+
+    private static boolean enabled(Level level) {
+        return level.compareTo(LEVEL) >= 0;
+    }
+
+    private static Level levelOf(ConsoleMessage message) {
+        switch (message.type()) {
+            case "error":
+            case "assert":
+                return Level.ERROR;
+            case "warning":
+                return Level.WARNING;
+            case "log":
+            case "info":
+                return Level.INFO;
+            default:
+                return Level.DEBUG;
+        }
+    }
+
+    private static Level levelOf(Response response) {
+        int status = response.status();
+        return status >= 500 ? Level.ERROR : status >= 400 ? Level.WARNING : Level.DEBUG;
+    }
+
+    private static String setting(String systemProperty, ConfigProperties key) {
+        return System.getProperty(systemProperty) == null ? PropertyBuilder.getPropValue(key) : System.getProperty(systemProperty);
+    }
+
+    /**
+     * Fixed-size ring of the latest entries; the oldest is overwritten once it is full.
+     */
+    private static final class Ring {
+
+        private final long[] times;
+        private final Level[] levels;
+        private final String[] texts;
+        private int next;
+        private long added;
+
+        Ring(int capacity) {
+            times = new long[capacity];
+            levels = new Level[capacity];
+            texts = new String[capacity];
+        }
+
+        synchronized void add(Level level, String text) {
+            if (texts.length == 0) {
+                return;
+            }
+            times[next] = System.currentTimeMillis();
+            levels[next] = level;
+            texts[next] = text.length() > MAX_TEXT ? text.substring(0, MAX_TEXT) + "..." : text;
+            next = (next + 1) % texts.length;
+            added++;
+        }
+
+        synchronized String text() {
+            int size = (int) Math.min(added, texts.length);
+            if (size == 0) {
+                return "";
+            }
+            StringBuilder text = new StringBuilder();
+            if (added > size) {
+                text.append("(").append(added - size).append(" earlier entries dropped)\n");
+            }
+            int first = added > size ? next : 0;
+            for (int i = 0; i < size; i++) {
+                int index = (first + i) % texts.length;
+                text.append(Instant.ofEpochMilli(times[index])).append(' ').append(levels[index]).append(' ')
+                        .append(texts[index]).append('\n');
+            }
+            return text.toString();
+        }
+    }
+}
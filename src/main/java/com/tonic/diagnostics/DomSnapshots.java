@@ -0,0 +1,219 @@
+package com.tonic.diagnostics;
+
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
+import com.tonic.factory.PlaywrightFactory;
+import com.tonic.metrics.Metrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Page source of the current test at its key steps, kept small: the first snapshot of a test is stored in full,
+ * each later one as the difference with the one before (the changed region between the common prefix and suffix,
+ * which is what a single-page app re-renders), all deflate-compressed. A snapshot is rebuilt only when a report
+ * asks for it, typically the last one when the test fails.
+ * <p>
+ * Snapshots belong to the thread of the test, like its page, and are dropped by {@link #reset()} when the next
+ * test starts.
+ */
+public final class DomSnapshots {
+
+    private DomSnapshots() {
+    }
+
+    private static final ThreadLocal<Session> SESSION = ThreadLocal.withInitial(Session::new);
+
+    /**
+     * Captures the source of the current page of the test, if it has one.
+     *
+     * @return false when there is no page or it could not be read
+     */
+    public static boolean capture(String label) {
+        Page page = PlaywrightFactory.getPage();
+        if (page == null || page.isClosed()) {
+            return false;
+        }
+        long start = Metrics.start();
+        try {
+            SESSION.get().add(label, page.content());
+            return true;
+        } catch (PlaywrightException e) {
+            System.err.println("Could not capture the page source at '" + label + "': " + e.getMessage());
+            return false;
+        } finally {
+            Metrics.stop("dom.snapshot", start);
+        }
+    }
+
+    /**
+     * @return the snapshots of the current test, oldest first
+     */
+    public static List<Snapshot> snapshots() {
+        return new ArrayList<>(SESSION.get().snapshots);
+    }
+
+    /**
+     * @return the full page source of a snapshot of the current test, rebuilt from the first one and the diffs
+     */
+    public static String render(Snapshot snapshot) {
+        String source = null;
+        for (Snapshot step : SESSION.get().snapshots) {
+            source = step.apply(source);
+            if (step == snapshot) {
+                return source;
+            }
+        }
+        throw new IllegalArgumentException("Snapshot '" + snapshot.getLabel() + "' is not one of the current test");
+    }
+
+    /**
+     * @return the page source of the last snapshot of the current test, or null when there is none
+     */
+    public static String renderLast() {
+        List<Snapshot> snapshots = SESSION.get().snapshots;
+        return snapshots.isEmpty() ? null : render(snapshots.get(snapshots.size() - 1));
+    }
+
+    /**
+     * @return one line per snapshot: label, page source size, stored size and the changed region
+     */
+    public static String timeline() {
+        StringBuilder timeline = new StringBuilder();
+        for (Snapshot snapshot : SESSION.get().snapshots) {
+            timeline.append(snapshot).append('\n');
+        }
+        return timeline.toString();
+    }
+
+    public static void reset() {
+        SESSION.remove();
+    }
+
+    private static final class Session {
+
+        final List<Snapshot> snapshots = new ArrayList<>();
+        // the latest source, kept uncompressed to diff the next snapshot against
+        String last;
+
+        void add(String label, String source) {
+            snapshots.add(Snapshot.of(label, last, source));
+            last = source;
+        }
+    }
+
+    /**
+     * One capture: the source in full, or the region that replaces {@code [prefix, length - suffix)} of the
+     * previous source.
+     */
+    public static final class Snapshot {
+
+        private final String label;
+        private final long timeMillis;
+        private final int sourceLength;
+        private final int prefix;
+        private final int suffix;
+        private final byte[] compressed;
+        private final boolean full;
+
+        private Snapshot(String label, int sourceLength, int prefix, int suffix, byte[] compressed, boolean full) {
+            this.label = label;
+            this.timeMillis = System.currentTimeMillis();
+            this.sourceLength = sourceLength;
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.compressed = compressed;
+            this.full = full;
+        }
+
+        static Snapshot of(String label, String previous, String source) {
+            if (previous == null) {
+                return new Snapshot(label, source.length(), 0, 0, deflate(source), true);
+            }
+            int max = Math.min(previous.length(), source.length());
+            int prefix = 0;
+            while (prefix < max && previous.charAt(prefix) == source.charAt(prefix)) {
+                prefix++;
+            }
+            int suffix = 0;
+            while (suffix < max - prefix
+                    && previous.charAt(previous.length() - 1 - suffix) == source.charAt(source.length() - 1 - suffix)) {
+                suffix++;
+            }
+            // never split a surrogate pair, the region is stored as UTF-8
+            if (prefix > 0 && Character.isHighSurrogate(source.charAt(prefix - 1))) {
+                prefix--;
+            }
+            if (suffix > 0 && Character.isLowSurrogate(source.charAt(source.length() - suffix))) {
+                suffix--;
+            }
+            String changed = source.substring(prefix, source.length() - suffix);
+            return new Snapshot(label, source.length(), prefix, suffix, deflate(changed), false);
+        }
+
+        String apply(String previous) {
+            String region = inflate(compressed);
+            if (full) {
+                return region;
+            }
+            return previous.substring(0, prefix) + region + previous.substring(previous.length() - suffix);
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+
+        public int getSourceLength() {
+            return sourceLength;
+        }
+
+        public int getStoredBytes() {
+            return compressed.length;
+        }
+
+        public boolean isFull() {
+            return full;
+        }
+
+        @Override
+        public String toString() {
+            return label + ": " + sourceLength + " chars, " + compressed.length + " bytes stored, "
+                    + (full ? "full" : "changed [" + prefix + ", " + (sourceLength - suffix) + ")");
+        }
+
+        private static byte[] deflate(String text) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+                byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        private static String inflate(byte[] compressed) {
+            try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+                byte[] utf8 = new byte[in.readInt()];
+                in.readFully(utf8);
+                return new String(utf8, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
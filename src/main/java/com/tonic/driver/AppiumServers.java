@@ -0,0 +1,85 @@
+package com.tonic.driver;
+
+import com.tonic.constants.FrameworkConstants;
+import com.tonic.enums.ConfigProperties;
+import com.tonic.exceptions.FrameworkException;
+import com.tonic.utils.PropertyBuilder;
+import io.appium.java_client.service.local.AppiumDriverLocalService;
+import io.appium.java_client.service.local.AppiumServiceBuilder;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The local Appium servers of the run, one per device type on the port configured for it.
+ * A server is started once, by the suite bootstrap or by the first mobile suite that needs it, and shared by every
+ * suite of the run until it is stopped.
+ * @author Gaurav Purwar
+ */
+public final class AppiumServers {
+
+    private AppiumServers() {
+    }
+
+    private static final Map<String, AppiumDriverLocalService> SERVICES = new ConcurrentHashMap<>();
+    private static final Map<String, ReentrantLock> STARTING = new ConcurrentHashMap<>();
+
+    /**
+     * Starts the server of the device ("android" or "ios") unless it is already running; concurrent callers wait for
+     * the same start.
+     */
+    public static AppiumDriverLocalService start(String device) {
+        String key = device.toLowerCase();
+        if (!key.equals("android") && !key.equals("ios")) {
+            throw new FrameworkException("No Appium server for device " + device + ", expected android or ios");
+        }
+        AppiumDriverLocalService service = SERVICES.get(key);
+        if (service != null && service.isRunning()) {
+            return service;
+        }
+        // started outside the map, which must not block on a start taking seconds; a lock per device makes
+        // concurrent callers wait for the same start
+        ReentrantLock lock = STARTING.computeIfAbsent(key, name -> new ReentrantLock());
+        lock.lock();
+        try {
+            service = SERVICES.get(key);
+            if (service != null && service.isRunning()) {
+                return service;
+            }
+            int port = key.equals("android") ? FrameworkConstants.getAndroidPort() : FrameworkConstants.getIosPort();
+            AppiumServiceBuilder builder = new AppiumServiceBuilder()
+                    .withAppiumJS(new File(FrameworkConstants.getAppiumPath()))
+                    .withIPAddress(FrameworkConstants.getIpAddress())
+                    .usingPort(port)
+                    .withTimeout(Duration.ofSeconds(Integer.parseInt(PropertyBuilder.getPropValue(ConfigProperties.TIMEOUT))));
+            AppiumDriverLocalService started = AppiumDriverLocalService.buildService(builder);
+            started.start();
+            SERVICES.put(key, started);
+            System.out.println("Appium server for " + key + " started on port " + port);
+            return started;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static boolean isRunning(String device) {
+        AppiumDriverLocalService service = SERVICES.get(device.toLowerCase());
+        return service != null && service.isRunning();
+    }
+
+    public static void stop(String device) {
+        AppiumDriverLocalService service = SERVICES.remove(device.toLowerCase());
+        if (service != null) {
+            service.stop();
+        }
+    }
+
+    public static void stopAll() {
+        for (String device : SERVICES.keySet()) {
+            stop(device);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.tonic.driver;
+
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.ImmutableCapabilities;
+import org.openqa.selenium.MutableCapabilities;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The compiled capabilities of a device and run mode: placeholders resolved and validated once, shared read-only by
+ * every session. A session only copies the template and sets its own test name.
+ */
+public final class CapabilityProfile {
+
+    private final String name;
+    private final String endpoint;
+    private final boolean ios;
+    private final Capabilities template;
+    private final Map<String, Object> settings;
+    // "capability" or "capability.option" receiving the test name, null when the server has no use for it
+    private final String testNameCapability;
+
+    CapabilityProfile(String name, String endpoint, boolean ios, Map<String, Object> capabilities, Map<String, Object> settings,
+                      String testNameCapability) {
+        this.name = name;
+        this.endpoint = endpoint;
+        this.ios = ios;
+        this.template = new ImmutableCapabilities(capabilities);
+        this.settings = settings;
+        this.testNameCapability = testNameCapability;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public Capabilities getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return the driver settings applied once the session is created, read-only
+     */
+    public Map<String, Object> getSettings() {
+        return settings;
+    }
+
+    public boolean isIos() {
+        return ios;
+    }
+
+    /**
+     * @return the capabilities of a session of the test
+     */
+    public MutableCapabilities forTest(String testName) {
+        MutableCapabilities capabilities = new MutableCapabilities(template);
+        if (testNameCapability != null && testName != null) {
+            int dot = testNameCapability.indexOf('.');
+            if (dot < 0) {
+                capabilities.setCapability(testNameCapability, testName);
+            } else {
+                // the nested options of the template are read-only, the session gets its own copy
+                String parent = testNameCapability.substring(0, dot);
+                Object options = template.getCapability(parent);
+                Map<String, Object> copy = new LinkedHashMap<>();
+                if (options instanceof Map) {
+                    ((Map<?, ?>) options).forEach((key, value) -> copy.put(String.valueOf(key), value));
+                }
+                copy.put(testNameCapability.substring(dot + 1), testName);
+                capabilities.setCapability(parent, copy);
+            }
+        }
+        return capabilities;
+    }
+
+    @Override
+    public String toString() {
+        // names only, the values hold the access key of the hub
+        return name + " on " + endpoint + ": " + template.getCapabilityNames();
+    }
+}
@@ -0,0 +1,183 @@
+package com.tonic.driver;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tonic.constants.FrameworkConstants;
+import com.tonic.enums.ConfigProperties;
+import com.tonic.exceptions.FrameworkException;
+import com.tonic.exceptions.PropertyFileHandleException;
+import com.tonic.metrics.Metrics;
+import com.tonic.utils.PropertyBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Appium capabilities per device and run mode, read from {@code data/capabilities.json} (profiles
+ * {@code android.local}, {@code ios.remote}, ...) and compiled into a {@link CapabilityProfile} on first use.
+ * <p>
+ * A profile names its {@link EndpointRegistry} endpoint, its capabilities, optional driver settings and the
+ * capability receiving the test name. {@code ${key}} in a value is replaced by the system property or else the config
+ * property of that name, so credentials and devices stay in {@code config.properties}; {@code ${appfilepath}} and
+ * {@code ${appiosfilepath}} default to the local apps of {@link FrameworkConstants}. A profile is checked as it is
+ * compiled: known endpoint, Android or iOS platform, W3C or vendor-prefixed capability names and no unknown
+ * placeholder; a broken profile fails the first session instead of being sent to the server.
+ */
+public final class CapabilityProfiles {
+
+    private CapabilityProfiles() {
+    }
+
+    private static final String PROFILES_FILE = "capabilities.json";
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([^}]+)}");
+    private static final Set<String> W3C_CAPABILITIES = new HashSet<>(Arrays.asList("platformName", "browserName",
+            "browserVersion", "acceptInsecureCerts", "pageLoadStrategy", "proxy", "setWindowRect", "timeouts",
+            "strictFileInteractability", "unhandledPromptBehavior", "webSocketUrl"));
+    // placeholders the framework knows a value of, when neither a system nor a config property sets them
+    private static final Map<String, Supplier<String>> DEFAULTS = new HashMap<>();
+
+    static {
+        DEFAULTS.put("appfilepath", FrameworkConstants::getAppFilePath);
+        DEFAULTS.put("appiosfilepath", FrameworkConstants::getAppIosFilePath);
+    }
+
+    private static volatile Map<String, Map<String, Object>> definitions;
+    private static final Map<String, CapabilityProfile> COMPILED = new ConcurrentHashMap<>();
+
+    /**
+     * @return the compiled profile of {@code <device>.<runMode>}, e.g. {@code android.local}
+     */
+    public static CapabilityProfile get(String device, String runMode) {
+        return get(device.trim().toLowerCase() + "." + runMode.trim().toLowerCase());
+    }
+
+    public static CapabilityProfile get(String name) {
+        return COMPILED.computeIfAbsent(name, CapabilityProfiles::compile);
+    }
+
+    public static Set<String> names() {
+        return Collections.unmodifiableSet(load().keySet());
+    }
+
+    /**
+     * Drops the compiled profiles, e.g. after a system property they read changed.
+     */
+    public static void clear() {
+        COMPILED.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CapabilityProfile compile(String name) {
+        Map<String, Object> definition = load().get(name);
+        if (definition == null) {
+            throw new FrameworkException("No capability profile '" + name + "' in " + PROFILES_FILE + ", profiles: " + load().keySet());
+        }
+        List<String> problems = new ArrayList<>();
+        String endpoint = String.valueOf(definition.get("endpoint"));
+        if (!EndpointRegistry.isRegistered(endpoint) && System.getProperty("endpoint." + endpoint) == null) {
+            problems.add("unknown endpoint '" + endpoint + "'");
+        }
+        Object rawCapabilities = definition.get("capabilities");
+        Map<String, Object> capabilities = rawCapabilities instanceof Map
+                ? (Map<String, Object>) resolve(rawCapabilities, problems)
+                : Collections.emptyMap();
+        Object rawSettings = definition.getOrDefault("settings", Collections.emptyMap());
+        Map<String, Object> settings = rawSettings instanceof Map
+                ? (Map<String, Object>) resolve(rawSettings, problems)
+                : Collections.emptyMap();
+
+        String platform = String.valueOf(capabilities.get("platformName"));
+        if (!"android".equalsIgnoreCase(platform) && !"ios".equalsIgnoreCase(platform)) {
+            problems.add("platformName is '" + platform + "', not Android or iOS");
+        }
+        for (String capability : capabilities.keySet()) {
+            if (!capability.contains(":") && !W3C_CAPABILITIES.contains(capability)) {
+                problems.add("'" + capability + "' is neither W3C nor vendor-prefixed, e.g. appium:" + capability);
+            }
+        }
+        Object testNameCapability = definition.get("testNameCapability");
+        if (!problems.isEmpty()) {
+            throw new FrameworkException("Invalid capability profile '" + name + "': " + String.join("; ", problems));
+        }
+        Metrics.increment("appium.capabilities.compiled");
+        return new CapabilityProfile(name, endpoint, "ios".equalsIgnoreCase(platform), capabilities, settings,
+                testNameCapability == null ? null : String.valueOf(testNameCapability));
+    }
+
+    /**
+     * @return a read-only copy of the value with its placeholders replaced
+     */
+    private static Object resolve(Object value, List<String> problems) {
+        if (value instanceof Map) {
+            Map<String, Object> resolved = new LinkedHashMap<>();
+            ((Map<?, ?>) value).forEach((key, item) -> resolved.put(String.valueOf(key), resolve(item, problems)));
+            return Collections.unmodifiableMap(resolved);
+        }
+        if (value instanceof List) {
+            List<Object> resolved = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                resolved.add(resolve(item, problems));
+            }
+            return Collections.unmodifiableList(resolved);
+        }
+        if (!(value instanceof String)) {
+            return value;
+        }
+        Matcher matcher = PLACEHOLDER.matcher((String) value);
+        StringBuffer resolved = new StringBuffer();
+        while (matcher.find()) {
+            String replacement = property(matcher.group(1));
+            if (replacement == null) {
+                problems.add("no system or config property for ${" + matcher.group(1) + "}");
+                replacement = matcher.group();
+            }
+            matcher.appendReplacement(resolved, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(resolved);
+        return resolved.toString();
+    }
+
+    private static String property(String key) {
+        if (System.getProperty(key) != null) {
+            return System.getProperty(key);
+        }
+        Supplier<String> framework = DEFAULTS.get(key);
+        if (framework != null) {
+            return framework.get();
+        }
+        try {
+            return PropertyBuilder.getPropValue(ConfigProperties.valueOf(key.toUpperCase()));
+        } catch (IllegalArgumentException | PropertyFileHandleException e) {
+            return null;
+        }
+    }
+
+    private static Map<String, Map<String, Object>> load() {
+        if (definitions == null) {
+            synchronized (CapabilityProfiles.class) {
+                if (definitions == null) {
+                    File file = new File(FrameworkConstants.getInputJsonPath() + PROFILES_FILE);
+                    try {
+                        definitions = new ObjectMapper().readValue(file, new TypeReference<LinkedHashMap<String, Map<String, Object>>>() {});
+                    } catch (IOException e) {
+                        throw new FrameworkException("Unable to read capability profiles from " + file, e);
+                    }
+                }
+            }
+        }
+        return definitions;
+    }
+}
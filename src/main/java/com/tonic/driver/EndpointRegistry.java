@@ -0,0 +1,76 @@
+package com.tonic.driver;
+
+import com.tonic.constants.FrameworkConstants;
+import com.tonic.exceptions.FrameworkException;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The Appium servers and hubs sessions are created on, by the name the {@link CapabilityProfiles} refer to.
+ * <p>
+ * {@code appium-android} and {@code appium-ios} are the local servers of {@link AppiumServers}, {@code saucelabs} the
+ * Sauce Labs hub. Another server, e.g. a fake hub in a test of the framework or a local Appium instead of the cloud,
+ * replaces one with {@link #register} or {@code -Dendpoint.<name>=<url>}, which wins over both.
+ */
+public final class EndpointRegistry {
+
+    private EndpointRegistry() {
+    }
+
+    public static final String LOCAL_ANDROID = "appium-android";
+    public static final String LOCAL_IOS = "appium-ios";
+    public static final String SAUCE_LABS = "saucelabs";
+
+    private static final Map<String, Supplier<String>> ENDPOINTS = new ConcurrentHashMap<>();
+
+    static {
+        register(LOCAL_ANDROID, () -> "http://" + FrameworkConstants.getIpAddress() + ":" + FrameworkConstants.getAndroidPort());
+        register(LOCAL_IOS, () -> "http://" + FrameworkConstants.getIpAddress() + ":" + FrameworkConstants.getIosPort());
+        register(SAUCE_LABS, FrameworkConstants::getSauceLabsHubUrl);
+    }
+
+    /**
+     * Adds an endpoint or replaces the one of that name, for the sessions created from now on.
+     *
+     * @param url evaluated on every session, so it may point to a server started later
+     */
+    public static void register(String name, Supplier<String> url) {
+        ENDPOINTS.put(name, url);
+    }
+
+    public static void register(String name, String url) {
+        register(name, () -> url);
+    }
+
+    public static boolean isRegistered(String name) {
+        return ENDPOINTS.containsKey(name);
+    }
+
+    /**
+     * @return the address of the endpoint, without a trailing slash
+     */
+    public static URI uri(String name) {
+        String url = System.getProperty("endpoint." + name);
+        if (url == null) {
+            Supplier<String> endpoint = ENDPOINTS.get(name);
+            if (endpoint == null) {
+                throw new FrameworkException("Unknown Appium endpoint '" + name + "', registered: " + ENDPOINTS.keySet());
+            }
+            url = endpoint.get();
+        }
+        return URI.create(url.endsWith("/") ? url.substring(0, url.length() - 1) : url);
+    }
+
+    public static URL url(String name) {
+        try {
+            return uri(name).toURL();
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            throw new FrameworkException("Appium endpoint '" + name + "' is not a URL: " + e.getMessage(), e);
+        }
+    }
+}
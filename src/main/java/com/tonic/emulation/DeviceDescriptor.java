@@ -0,0 +1,135 @@
+package com.tonic.emulation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tonic.constants.FrameworkConstants;
+import com.tonic.exceptions.FrameworkException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A device a web test can be emulated on: user agent, viewport, pixel ratio and touch, as in the device list of
+ * Playwright, which only its Node.js client ships. The devices are read once from {@code data/devices.json}; add an
+ * entry there to emulate another one.
+ */
+public final class DeviceDescriptor {
+
+    private static final String DEVICES_FILE = "devices.json";
+
+    private static volatile Map<String, DeviceDescriptor> devices;
+
+    private final String name;
+    private final String userAgent;
+    private final int width;
+    private final int height;
+    private final int screenWidth;
+    private final int screenHeight;
+    private final double deviceScaleFactor;
+    private final boolean mobile;
+    private final boolean touch;
+    private final String defaultBrowserType;
+
+    private DeviceDescriptor(String name, JsonNode node) {
+        this.name = name;
+        this.userAgent = node.path("userAgent").asText();
+        this.width = node.path("viewport").path("width").asInt();
+        this.height = node.path("viewport").path("height").asInt();
+        this.screenWidth = node.path("screen").path("width").asInt(width);
+        this.screenHeight = node.path("screen").path("height").asInt(height);
+        this.deviceScaleFactor = node.path("deviceScaleFactor").asDouble(1);
+        this.mobile = node.path("isMobile").asBoolean();
+        this.touch = node.path("hasTouch").asBoolean();
+        this.defaultBrowserType = node.path("defaultBrowserType").asText("chromium");
+    }
+
+    /**
+     * @throws FrameworkException when there is no such device in {@code data/devices.json}
+     */
+    public static DeviceDescriptor get(String name) {
+        DeviceDescriptor device = load().get(name);
+        if (device == null) {
+            throw new FrameworkException("Unknown device '" + name + "', known devices: " + load().keySet());
+        }
+        return device;
+    }
+
+    public static Map<String, DeviceDescriptor> all() {
+        return Collections.unmodifiableMap(load());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getScreenWidth() {
+        return screenWidth;
+    }
+
+    public int getScreenHeight() {
+        return screenHeight;
+    }
+
+    public double getDeviceScaleFactor() {
+        return deviceScaleFactor;
+    }
+
+    public boolean isMobile() {
+        return mobile;
+    }
+
+    public boolean hasTouch() {
+        return touch;
+    }
+
+    public String getDefaultBrowserType() {
+        return defaultBrowserType;
+    }
+
+    /**
+     * Firefox has no mobile viewport (meta viewport, isMobile), so phones and tablets can't be emulated on it.
+     */
+    public boolean supports(String browserName) {
+        return !mobile || !"firefox".equalsIgnoreCase(browserName);
+    }
+
+    private static Map<String, DeviceDescriptor> load() {
+        if (devices == null) {
+            synchronized (DeviceDescriptor.class) {
+                if (devices == null) {
+                    File file = new File(FrameworkConstants.getInputJsonPath() + DEVICES_FILE);
+                    Map<String, DeviceDescriptor> loaded = new LinkedHashMap<>();
+                    try {
+                        if (file.exists()) {
+                            JsonNode root = new ObjectMapper().readTree(file);
+                            for (Iterator<Map.Entry<String, JsonNode>> it = root.fields(); it.hasNext(); ) {
+                                Map.Entry<String, JsonNode> entry = it.next();
+                                loaded.put(entry.getKey(), new DeviceDescriptor(entry.getKey(), entry.getValue()));
+                            }
+                        }
+                    } catch (IOException e) {
+                        throw new FrameworkException("Unable to read device descriptors from " + file, e);
+                    }
+                    devices = loaded;
+                }
+            }
+        }
+        return devices;
+    }
+}
@@ -0,0 +1,124 @@
+package com.tonic.emulation;
+
+import com.microsoft.playwright.Browser;
+import com.tonic.exceptions.FrameworkException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * What the browser context of a web test emulates: a viewport ({@code 1280x720}), a device of
+ * {@link DeviceDescriptor} or a locale ({@code de-DE}), each optional. They come from the {@code viewport},
+ * {@code emulate} and {@code locale} properties of the test, set by a cell of the {@code EmulationMatrixListener}
+ * or in the test config. All of them are context options, so tests with different emulations share one browser.
+ */
+public final class Emulation {
+
+    public static final String VIEWPORT = "viewport";
+    public static final String DEVICE = "emulate";
+    public static final String LOCALE = "locale";
+    // parameter marking the <test>s the matrix generated, with the cell as value
+    public static final String CELL = "matrixcell";
+
+    public static final Emulation NONE = new Emulation(null, null, null);
+
+    private final String viewport;
+    private final String device;
+    private final String locale;
+
+    public Emulation(String viewport, String device, String locale) {
+        this.viewport = blankToNull(viewport);
+        this.device = blankToNull(device);
+        this.locale = blankToNull(locale);
+        if (this.viewport != null && !this.viewport.matches("\\d+x\\d+")) {
+            throw new FrameworkException("Viewport '" + viewport + "' is not <width>x<height>, e.g. 1280x720");
+        }
+        if (this.device != null) {
+            // fail on a typo before the first context
+            DeviceDescriptor.get(this.device);
+        }
+    }
+
+    public static Emulation from(Properties prop) {
+        Emulation emulation = new Emulation(prop.getProperty(VIEWPORT), prop.getProperty(DEVICE), prop.getProperty(LOCALE));
+        return emulation.isNone() ? NONE : emulation;
+    }
+
+    /**
+     * Sets the emulated device, viewport and locale on the options of a new context. A viewport wins over the
+     * viewport of the device.
+     */
+    public Browser.NewContextOptions apply(Browser.NewContextOptions options) {
+        if (device != null) {
+            DeviceDescriptor descriptor = DeviceDescriptor.get(device);
+            options.setUserAgent(descriptor.getUserAgent())
+                    .setViewportSize(descriptor.getWidth(), descriptor.getHeight())
+                    .setScreenSize(descriptor.getScreenWidth(), descriptor.getScreenHeight())
+                    .setDeviceScaleFactor(descriptor.getDeviceScaleFactor())
+                    .setIsMobile(descriptor.isMobile())
+                    .setHasTouch(descriptor.hasTouch());
+        }
+        if (viewport != null) {
+            String[] size = viewport.split("x");
+            options.setViewportSize(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+        }
+        if (locale != null) {
+            options.setLocale(locale);
+        }
+        return options;
+    }
+
+    public boolean isNone() {
+        return viewport == null && device == null && locale == null;
+    }
+
+    public String getViewport() {
+        return viewport;
+    }
+
+    public String getDevice() {
+        return device;
+    }
+
+    public String getLocale() {
+        return locale;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Emulation)) {
+            return false;
+        }
+        Emulation other = (Emulation) o;
+        return Objects.equals(viewport, other.viewport) && Objects.equals(device, other.device) && Objects.equals(locale, other.locale);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(viewport, device, locale);
+    }
+
+    @Override
+    public String toString() {
+        List<String> parts = new ArrayList<>();
+        if (device != null) {
+            parts.add(device);
+        }
+        if (viewport != null) {
+            parts.add(viewport);
+        }
+        if (locale != null) {
+            parts.add(locale);
+        }
+        return parts.isEmpty() ? "default" : String.join(" | ", parts);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+}
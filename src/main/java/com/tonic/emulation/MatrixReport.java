@@ -0,0 +1,187 @@
+package com.tonic.emulation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.testng.ISuite;
+import org.testng.ISuiteResult;
+import org.testng.ITestContext;
+import org.testng.ITestResult;
+import org.testng.xml.XmlTest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Results of the emulation matrix of a suite: one row per test method, one column per cell, written to
+ * {@code matrix.json} and {@code matrix.html}. A method retried into a pass counts as passed in its cell.
+ */
+public final class MatrixReport {
+
+    private static final String PASS = "PASS";
+    private static final String FAIL = "FAIL";
+    private static final String SKIP = "SKIP";
+
+    private final List<Cell> cells = new ArrayList<>();
+    private final TreeSet<String> methods = new TreeSet<>();
+
+    private MatrixReport() {
+    }
+
+    /**
+     * One cell of the matrix: a browser with an emulation, run as a {@code <test>} of its own.
+     */
+    public static final class Cell {
+
+        private final String name;
+        private final String browser;
+        private final String emulation;
+        private final long startMillis;
+        private final long endMillis;
+        private final Map<String, String> statuses = new LinkedHashMap<>();
+
+        Cell(String name, String browser, String emulation, long startMillis, long endMillis) {
+            this.name = name;
+            this.browser = browser;
+            this.emulation = emulation;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getBrowser() {
+            return browser;
+        }
+
+        public String getEmulation() {
+            return emulation;
+        }
+
+        public long getDurationMillis() {
+            return endMillis - startMillis;
+        }
+
+        public Map<String, String> getStatuses() {
+            return statuses;
+        }
+
+        public long count(String status) {
+            return statuses.values().stream().filter(status::equals).count();
+        }
+    }
+
+    /**
+     * @return the cells the matrix generated in the suite, empty when the suite ran no matrix
+     */
+    public static MatrixReport of(ISuite suite) {
+        MatrixReport report = new MatrixReport();
+        for (ISuiteResult result : suite.getResults().values()) {
+            ITestContext context = result.getTestContext();
+            XmlTest test = context.getCurrentXmlTest();
+            if (test.getParameter(Emulation.CELL) == null) {
+                continue;
+            }
+            Cell cell = new Cell(test.getName(), test.getParameter("browser"), new Emulation(test.getParameter(Emulation.VIEWPORT),
+                    test.getParameter(Emulation.DEVICE), test.getParameter(Emulation.LOCALE)).toString(),
+                    context.getStartDate().getTime(), context.getEndDate().getTime());
+            report.record(cell, context.getSkippedTests().getAllResults(), SKIP);
+            report.record(cell, context.getPassedTests().getAllResults(), PASS);
+            report.record(cell, context.getFailedButWithinSuccessPercentageTests().getAllResults(), PASS);
+            report.record(cell, context.getFailedTests().getAllResults(), FAIL);
+            report.cells.add(cell);
+        }
+        report.cells.sort((a, b) -> a.name.compareTo(b.name));
+        return report;
+    }
+
+    // later statuses win: a pass over the skipped attempts of a retry, a failure over everything
+    private void record(Cell cell, Collection<ITestResult> results, String status) {
+        for (ITestResult result : results) {
+            String method = result.getMethod().getQualifiedName();
+            methods.add(method);
+            if (!FAIL.equals(cell.statuses.get(method))) {
+                cell.statuses.put(method, status);
+            }
+        }
+    }
+
+    public List<Cell> getCells() {
+        return cells;
+    }
+
+    public boolean isEmpty() {
+        return cells.isEmpty();
+    }
+
+    /**
+     * @return milliseconds from the first cell starting to the last one finishing
+     */
+    public long wallMillis() {
+        long start = cells.stream().mapToLong(cell -> cell.startMillis).min().orElse(0);
+        long end = cells.stream().mapToLong(cell -> cell.endMillis).max().orElse(0);
+        return end - start;
+    }
+
+    public long sumMillis() {
+        return cells.stream().mapToLong(Cell::getDurationMillis).sum();
+    }
+
+    public void write(Path folder) throws IOException {
+        Files.createDirectories(folder);
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("wallMillis", wallMillis());
+        document.put("sumMillis", sumMillis());
+        document.put("methods", methods);
+        document.put("cells", cells);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(folder.resolve("matrix.json").toFile(), document);
+        Files.write(folder.resolve("matrix.html"), html().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void printSummary() {
+        long failedCells = cells.stream().filter(cell -> cell.count(FAIL) > 0).count();
+        System.out.println("Emulation matrix: " + methods.size() + " test(s) on " + cells.size() + " cell(s), " + failedCells
+                + " cell(s) with failures, " + wallMillis() + " ms (" + sumMillis() + " ms one after the other)");
+        for (Cell cell : cells) {
+            System.out.println(String.format("  %-60s %3d passed %3d failed %3d skipped  %6d ms", cell.name,
+                    cell.count(PASS), cell.count(FAIL), cell.count(SKIP), cell.getDurationMillis()));
+        }
+    }
+
+    private String html() {
+        StringBuilder html = new StringBuilder(4096)
+                .append("<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>Emulation matrix</title><style>")
+                .append("body{font-family:sans-serif}table{border-collapse:collapse}td,th{border:1px solid #ccc;padding:4px 8px}")
+                .append("th{background:#f4f4f4;font-weight:normal}.PASS{background:#c8efc8}.FAIL{background:#f6c1c1}.SKIP{background:#f3e7b5}")
+                .append("</style></head><body><h1>Emulation matrix</h1><p>")
+                .append(methods.size()).append(" test(s) on ").append(cells.size()).append(" cell(s) in ").append(wallMillis())
+                .append(" ms, ").append(sumMillis()).append(" ms one after the other</p><table><tr><th></th>");
+        for (Cell cell : cells) {
+            html.append("<th>").append(escape(cell.browser)).append("<br>").append(escape(cell.emulation))
+                    .append("<br>").append(cell.getDurationMillis()).append(" ms</th>");
+        }
+        html.append("</tr>");
+        for (String method : methods) {
+            html.append("<tr><th>").append(escape(method)).append("</th>");
+            for (Cell cell : cells) {
+                String status = cell.statuses.get(method);
+                html.append(status == null ? "<td></td>" : "<td class=\"" + status + "\">" + status + "</td>");
+            }
+            html.append("</tr>");
+        }
+        return html.append("</table></body></html>\n").toString();
+    }
+
+    private static String escape(String text) {
+        return String.valueOf(text).replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -26,5 +26,38 @@ public enum ConfigProperties {
 	PLATFORMVERSION,
 	AUTOMATIONNAMEANDROID,
 	DEVICEORIENTATION,
-	APPIUMVERSION
+	APPIUMVERSION,
+	METRICS,
+	APPIUMPROFILER,
+	JIRAURL,
+	JIRAUSERNAME,
+	JIRAAPITOKEN,
+	JIRAPROJECT,
+	FAILFASTCLUSTERTHRESHOLD,
+	CIRCUITBREAKERTHRESHOLD,
+	CIRCUITBREAKERCOOLDOWNSECONDS,
+	HEALTHPROBETIMEOUTSECONDS,
+	RETRYCOUNT,
+	RETRYBUDGET,
+	PARALLELMODE,
+	THREADCOUNT,
+	VIRTUALTHREADS,
+	BOOTSTRAP,
+	BOOTSTRAPTIMEOUTSECONDS,
+	BROWSERLOGLEVEL,
+	BROWSERLOGBUFFER,
+	BROWSERLOGPASSSAMPLE,
+	REPORTSCREENSHOTS,
+	VISUALTHRESHOLD,
+	VISUALMAXDIFFRATIO,
+	VISUALUPDATEBASELINES,
+	PREWARMCONTEXTS,
+	PREWARMMAXAGESECONDS,
+	PREWARMNAVIGATE,
+	STORAGESTATE,
+	MATRIXBROWSERS,
+	MATRIXVIEWPORTS,
+	MATRIXDEVICES,
+	MATRIXLOCALES,
+	MATRIXTHREADS
 }
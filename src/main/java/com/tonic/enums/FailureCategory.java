@@ -0,0 +1,7 @@
+package com.tonic.enums;
+
+public enum FailureCategory {
+
+    INFRASTRUCTURE,
+    APPLICATION
+}
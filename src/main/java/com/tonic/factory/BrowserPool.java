@@ -0,0 +1,104 @@
+package com.tonic.factory;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.PlaywrightException;
+import com.tonic.exceptions.FrameworkException;
+import com.tonic.metrics.Metrics;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Browsers launched ahead of the tests by the suite bootstrap, waiting to be taken by the worker threads.
+ * <p>
+ * A Playwright instance may be used from another thread than the one that created it as long as only one thread
+ * uses it at a time: Playwright keeps no reference to the creating thread, the driver pipe is read by its own threads
+ * and every call waits for its answer on the calling thread. A prelaunched browser is untouched once it is in the
+ * pool, and taking it from the pool hands it over to the taking thread for good, which then owns it like a browser
+ * it launched itself. The queue is the handoff: the launch happens-before the add, which happens-before the poll of
+ * the taking worker. That the launching thread may be a virtual thread of {@code IoExecutors} makes no difference;
+ * BrowserPoolTest uses a Playwright instance across threads this way.
+ */
+public final class BrowserPool {
+
+    private BrowserPool() {
+    }
+
+    private static final Map<String, Queue<Launched>> IDLE = new ConcurrentHashMap<>();
+
+    /**
+     * Launches a browser on the calling thread and puts it in the pool.
+     */
+    public static void prelaunch(String browserName) {
+        long start = Metrics.start();
+        Playwright playwright = Playwright.create();
+        try {
+            Browser browser = PlaywrightFactory.launch(playwright, browserName);
+            if (browser == null) {
+                throw new FrameworkException("Unknown browser " + browserName);
+            }
+            add(browserName, new Launched(playwright, browser));
+        } catch (RuntimeException e) {
+            playwright.close();
+            throw e;
+        }
+        Metrics.stop("browser.prelaunch", start);
+    }
+
+    static void add(String browserName, Launched launched) {
+        IDLE.computeIfAbsent(browserName.toLowerCase(), name -> new ConcurrentLinkedQueue<>()).add(launched);
+    }
+
+    /**
+     * @return a prelaunched browser, now owned by the calling thread, or null when none is left
+     */
+    static Launched take(String browserName) {
+        Queue<Launched> idle = IDLE.get(browserName.toLowerCase());
+        Launched launched;
+        while (idle != null && (launched = idle.poll()) != null) {
+            if (launched.browser.isConnected()) {
+                return launched;
+            }
+            close(launched);
+        }
+        return null;
+    }
+
+    public static int idle() {
+        return IDLE.values().stream().mapToInt(Queue::size).sum();
+    }
+
+    /**
+     * Closes the browsers no test took, e.g. when fewer tests ran than there were workers.
+     */
+    public static void closeIdle() {
+        for (Queue<Launched> idle : IDLE.values()) {
+            Launched launched;
+            while ((launched = idle.poll()) != null) {
+                close(launched);
+            }
+        }
+    }
+
+    private static void close(Launched launched) {
+        try {
+            launched.playwright.close();
+        } catch (PlaywrightException e) {
+            System.err.println("Error closing prelaunched browser: " + e.getMessage());
+        }
+    }
+
+    static final class Launched {
+
+        final Playwright playwright;
+        final Browser browser;
+
+        Launched(Playwright playwright, Browser browser) {
+            this.playwright = playwright;
+            this.browser = browser;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.tonic.factory;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
+import com.microsoft.playwright.Response;
+import com.microsoft.playwright.options.LoadState;
+import com.microsoft.playwright.options.WaitUntilState;
+import com.tonic.emulation.Emulation;
+import com.tonic.enums.ConfigProperties;
+import com.tonic.metrics.Metrics;
+import com.tonic.utils.PropertyBuilder;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Contexts opened ahead of the tests of a worker thread, so that a test starts on a context and page that are
+ * already there and usually already loaded.
+ * <p>
+ * A browser may only be used by one thread at a time (see {@link BrowserPool}), and while tests run that thread is
+ * the worker owning it. So the pool of a worker is filled by the worker itself, when {@link PlaywrightFactory#closeContext()}
+ * ends a test: the refill is part of no test's setup, and opens contexts for the browser, url and emulation the test
+ * just used. The pages are navigated only up to the first response ({@link WaitUntilState#COMMIT}): the browser loads
+ * them while the worker moves on to its next test, which waits for whatever is left. {@code prewarmcontexts} sets how
+ * many contexts each worker keeps, 0 (the default) turns the pool off.
+ * <p>
+ * A context is checked before it is handed out: same browser and emulation, still open, loaded without an error status and
+ * younger than {@code prewarmmaxageseconds}, since a page loaded long ago may show data older than the previous
+ * test. Failing contexts are closed and replaced.
+ */
+public final class ContextPool {
+
+    private ContextPool() {
+    }
+
+    private static final int SIZE = Integer.parseInt(setting("prewarmcontexts", ConfigProperties.PREWARMCONTEXTS));
+    private static final long MAX_AGE_MILLIS = Long.parseLong(setting("prewarmmaxageseconds", ConfigProperties.PREWARMMAXAGESECONDS)) * 1000;
+    private static final boolean NAVIGATE = "yes".equalsIgnoreCase(setting("prewarmnavigate", ConfigProperties.PREWARMNAVIGATE));
+
+    private static final ThreadLocal<Deque<Warm>> POOL = ThreadLocal.withInitial(ArrayDeque::new);
+    // what the last test of the thread asked for, to refill the pool with once it is done
+    private static final ThreadLocal<Target> TARGET = new ThreadLocal<>();
+
+    private static final class Target {
+
+        final Browser browser;
+        final String url;
+        final Emulation emulation;
+
+        Target(Browser browser, String url, Emulation emulation) {
+            this.browser = browser;
+            this.url = url;
+            this.emulation = emulation;
+        }
+    }
+
+    static final class Warm {
+
+        final BrowserContext context;
+        final Page page;
+        final String url;
+        final Response response;
+        final Emulation emulation;
+        final long createdMillis = System.currentTimeMillis();
+
+        Warm(BrowserContext context, Page page, String url, Response response, Emulation emulation) {
+            this.context = context;
+            this.page = page;
+            this.url = url;
+            this.response = response;
+            this.emulation = emulation;
+        }
+
+        /**
+         * @return whether the context can still be used for a test on that browser, url and emulation
+         */
+        boolean healthy(Browser browser, String url, Emulation emulation) {
+            if (context.browser() != browser || !browser.isConnected() || !this.emulation.equals(emulation) || page.isClosed()
+                    || System.currentTimeMillis() - createdMillis > MAX_AGE_MILLIS) {
+                return false;
+            }
+            if (this.url == null) {
+                return true;
+            }
+            if (!this.url.equals(url) || response == null || response.status() >= 400) {
+                return false;
+            }
+            try {
+                page.waitForLoadState(LoadState.LOAD);
+                return true;
+            } catch (PlaywrightException e) {
+                System.err.println("Prewarmed page of " + url + " did not load: " + e.getMessage());
+                return false;
+            }
+        }
+
+        void close() {
+            if (!context.browser().isConnected()) {
+                // went away with its browser
+                return;
+            }
+            try {
+                context.close();
+            } catch (PlaywrightException e) {
+                System.err.println("Error closing prewarmed context: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return how many contexts each worker keeps ready
+     */
+    public static int size() {
+        return SIZE;
+    }
+
+    /**
+     * @return a healthy prewarmed context of the current thread for that browser and emulation, or null when there
+     * is none
+     */
+    static Warm take(Browser browser, String url, Emulation emulation) {
+        if (SIZE > 0) {
+            TARGET.set(new Target(browser, url, emulation));
+        }
+        Deque<Warm> pool = POOL.get();
+        Warm warm;
+        while ((warm = pool.poll()) != null) {
+            if (warm.healthy(browser, url, emulation)) {
+                Metrics.increment("context.prewarmed.used");
+                return warm;
+            }
+            Metrics.increment("context.prewarmed.discarded");
+            warm.close();
+        }
+        return null;
+    }
+
+    /**
+     * Opens contexts on the current thread until it has {@code prewarmcontexts} of them, for the browser, url and
+     * emulation of its last test, navigating them to the url without waiting for the pages to load.
+     */
+    static void replenish() {
+        Target target = TARGET.get();
+        if (target == null || !target.browser.isConnected()) {
+            return;
+        }
+        Browser browser = target.browser;
+        String url = target.url;
+        Emulation emulation = target.emulation;
+        Deque<Warm> pool = POOL.get();
+        while (pool.size() < SIZE) {
+            long start = Metrics.start();
+            BrowserContext context = null;
+            try {
+                context = PlaywrightFactory.openContext(browser, emulation);
+                Page page = context.newPage();
+                Response response = NAVIGATE
+                        ? page.navigate(url, new Page.NavigateOptions().setWaitUntil(WaitUntilState.COMMIT))
+                        : null;
+                pool.add(new Warm(context, page, NAVIGATE ? url : null, response, emulation));
+            } catch (PlaywrightException e) {
+                System.err.println("Could not prewarm a context: " + e.getMessage());
+                if (context != null) {
+                    new Warm(context, null, null, null, emulation).close();
+                }
+                return;
+            } finally {
+                Metrics.stop("context.prewarm", start);
+            }
+        }
+    }
+
+    /**
+     * Closes the prewarmed contexts of the current thread, e.g. before its browser is closed.
+     */
+    public static void clear() {
+        Deque<Warm> pool = POOL.get();
+        Warm warm;
+        while ((warm = pool.poll()) != null) {
+            warm.close();
+        }
+        POOL.remove();
+        TARGET.remove();
+    }
+
+    private static String setting(String systemProperty, ConfigProperties key) {
+        return System.getProperty(systemProperty) == null ? PropertyBuilder.getPropValue(key) : System.getProperty(systemProperty);
+    }
+}
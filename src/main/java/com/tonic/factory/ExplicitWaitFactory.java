@@ -2,12 +2,15 @@ package com.tonic.factory;
 import com.tonic.constants.FrameworkConstants;
 import com.tonic.driver.Driver;
 import com.tonic.enums.WaitLogic;
+import com.tonic.metrics.Metrics;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
 import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * Handles waits
@@ -15,42 +18,60 @@ import java.time.Duration;
  */
 public final class ExplicitWaitFactory {
 
+    private static final Map<WaitLogic, String> WAIT_TIMERS = new EnumMap<>(WaitLogic.class);
+
+    static {
+        for (WaitLogic waitLogic : WaitLogic.values()) {
+            WAIT_TIMERS.put(waitLogic, "wait." + waitLogic.name().toLowerCase());
+        }
+    }
+
     private ExplicitWaitFactory() {}
 
     public static WebElement waitExplicitlyForElement(WaitLogic waitStrategy, By by) {
         System.out.println(Driver.getDriver());
+        long start = Metrics.start();
         WebElement element = null;
-        if (waitStrategy == WaitLogic.CLICKABLE) {
-            element = new WebDriverWait(Driver.getDriver(), Duration.ofSeconds(FrameworkConstants.getExplicitWait()))
-                    .until(ExpectedConditions.elementToBeClickable(by));
-        }
-        else if (waitStrategy == WaitLogic.PRESENCE) {
-            element = new WebDriverWait(Driver.getDriver(), Duration.ofSeconds(FrameworkConstants.getExplicitWait()))
-                    .until(ExpectedConditions.presenceOfElementLocated(by));
-        }
-        else if (waitStrategy == WaitLogic.VISIBLE) {
-            element = new WebDriverWait(Driver.getDriver(), Duration.ofSeconds(FrameworkConstants.getExplicitWait()))
-                    .until(ExpectedConditions.visibilityOfElementLocated(by));
-        }
-        else if (waitStrategy == WaitLogic.NONE) {
-            element = Driver.getDriver().findElement(by);
+        try {
+            if (waitStrategy == WaitLogic.CLICKABLE) {
+                element = new WebDriverWait(Driver.getDriver(), Duration.ofSeconds(FrameworkConstants.getExplicitWait()))
+                        .until(ExpectedConditions.elementToBeClickable(by));
+            }
+            else if (waitStrategy == WaitLogic.PRESENCE) {
+                element = new WebDriverWait(Driver.getDriver(), Duration.ofSeconds(FrameworkConstants.getExplicitWait()))
+                        .until(ExpectedConditions.presenceOfElementLocated(by));
+            }
+            else if (waitStrategy == WaitLogic.VISIBLE) {
+                element = new WebDriverWait(Driver.getDriver(), Duration.ofSeconds(FrameworkConstants.getExplicitWait()))
+                        .until(ExpectedConditions.visibilityOfElementLocated(by));
+            }
+            else if (waitStrategy == WaitLogic.NONE) {
+                element = Driver.getDriver().findElement(by);
+            }
+        } finally {
+            Metrics.stop(WAIT_TIMERS.get(waitStrategy), start);
         }
         return element;
     }
 
     public static WebElement waitExplicitlyForElement(WaitLogic waitStrategy, By by, int timeout) {
+        long start = Metrics.start();
         WebElement element = null;
-        if (waitStrategy == WaitLogic.CLICKABLE) {
-            element = new WebDriverWait(Driver.getDriver(), Duration.ofSeconds(timeout))
-                    .until(ExpectedConditions.elementToBeClickable(by));
-        } else if (waitStrategy == WaitLogic.PRESENCE) {
-            element = new WebDriverWait(Driver.getDriver(), Duration.ofSeconds(timeout))
-                    .until(ExpectedConditions.presenceOfElementLocated(by));
-        } else if (waitStrategy == WaitLogic.VISIBLE) {
-            element = new WebDriverWait(Driver.getDriver(), Duration.ofSeconds(timeout))
-                    .until(ExpectedConditions.visibilityOfElementLocated(by));
-        } else if (waitStrategy == WaitLogic.NONE) {
-            element = Driver.getDriver().findElement(by);
+        try {
+            if (waitStrategy == WaitLogic.CLICKABLE) {
+                element = new WebDriverWait(Driver.getDriver(), Duration.ofSeconds(timeout))
+                        .until(ExpectedConditions.elementToBeClickable(by));
+            } else if (waitStrategy == WaitLogic.PRESENCE) {
+                element = new WebDriverWait(Driver.getDriver(), Duration.ofSeconds(timeout))
+                        .until(ExpectedConditions.presenceOfElementLocated(by));
+            } else if (waitStrategy == WaitLogic.VISIBLE) {
+                element = new WebDriverWait(Driver.getDriver(), Duration.ofSeconds(timeout))
+                        .until(ExpectedConditions.visibilityOfElementLocated(by));
+            } else if (waitStrategy == WaitLogic.NONE) {
+                element = Driver.getDriver().findElement(by);
+            }
+        } finally {
+            Metrics.stop(WAIT_TIMERS.get(waitStrategy), start);
         }
         return element;
     }
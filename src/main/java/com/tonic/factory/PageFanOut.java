@@ -0,0 +1,301 @@
+package com.tonic.factory;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
+import com.tonic.diagnostics.BrowserLogs;
+import com.tonic.exceptions.FrameworkException;
+import com.tonic.metrics.Metrics;
+import com.tonic.performance.PagePerformanceCollector;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * Checks a list of items on several pages of the current test's browser at once, e.g. 200 terminals on 8 tabs
+ * instead of one after the other in the test's page.
+ * <p>
+ * A browser may only be used by one thread at a time (see {@link PlaywrightFactory}), and during the test that is
+ * the test's thread, so the fan-out runs on it as a pipeline: {@code open} starts loading an item on a free page and returns, {@code check} then reads the result.
+ * While the check of one page waits, the browser keeps loading the others, so up to {@code pages} items are in
+ * flight. {@code open} should therefore only start the navigation, e.g. with {@code WaitUntilState.COMMIT}, and
+ * leave the waiting to {@code check}.
+ * <p>
+ * An item gets {@code itemTimeout} for its {@code open} and {@code check} together, not counting the time it waits
+ * for the checks of the other pages. The Playwright waits of its {@code check} get whatever is left of it, and an item
+ * over it fails once its check returns: a check can't be cut short on the test's thread, so a sleep, a poll or an
+ * assertion with a longer timeout of its own still holds up the pipeline until it ends. A failing item (exception,
+ * assertion or timeout) only fails its own result; a page that crashed or got closed is replaced before the next item.
+ * <pre>
+ * List&lt;PageFanOut.Result&lt;String, Boolean&gt;&gt; results = PageFanOut.over(terminalIds)
+ *         .pages(8)
+ *         .open((page, id) -&gt; page.navigate(url + "/terminals/" + id, new Page.NavigateOptions().setWaitUntil(WaitUntilState.COMMIT)))
+ *         .check((page, id) -&gt; new TerminalsPage(page).isAddTerminalButtonPresent())
+ *         .run();
+ * </pre>
+ */
+public final class PageFanOut<T, R> {
+
+    private static final int DEFAULT_PAGES = 4;
+    private static final Duration DEFAULT_ITEM_TIMEOUT = Duration.ofSeconds(30);
+
+    private final List<T> items;
+    private int pages = DEFAULT_PAGES;
+    private Duration itemTimeout = DEFAULT_ITEM_TIMEOUT;
+    private boolean separateContexts;
+    private BiConsumer<Page, T> open = (page, item) -> { };
+    private BiFunction<Page, T, R> check;
+    private final Set<Page> crashed = new HashSet<>();
+
+    private PageFanOut(List<T> items) {
+        this.items = new ArrayList<>(items);
+    }
+
+    public static <T> PageFanOut<T, Object> over(List<T> items) {
+        return new PageFanOut<>(items);
+    }
+
+    /**
+     * @param pages the number of items in flight at once, capped to the number of items
+     */
+    public PageFanOut<T, R> pages(int pages) {
+        if (pages < 1) {
+            throw new FrameworkException("A fan-out needs at least one page, got " + pages);
+        }
+        this.pages = pages;
+        return this;
+    }
+
+    /**
+     * @param itemTimeout the time an item may spend in {@code open} and {@code check}, 30 seconds by default
+     */
+    public PageFanOut<T, R> itemTimeout(Duration itemTimeout) {
+        this.itemTimeout = itemTimeout;
+        return this;
+    }
+
+    /**
+     * Opens every page in its own context instead of as a tab of the test's context. The contexts start with the
+     * emulation, cookies and local storage of the test's context, so a logged-in session carries over, but whatever an item
+     * changes stays in its context.
+     */
+    public PageFanOut<T, R> separateContexts() {
+        this.separateContexts = true;
+        return this;
+    }
+
+    public PageFanOut<T, R> open(BiConsumer<Page, T> open) {
+        this.open = open;
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <V> PageFanOut<T, V> check(BiFunction<Page, T, V> check) {
+        PageFanOut<T, V> typed = (PageFanOut<T, V>) this;
+        typed.check = check;
+        return typed;
+    }
+
+    /**
+     * Runs the items on the current thread, which must own the browser of the test.
+     *
+     * @return a result per item, in the order of the items
+     */
+    public List<Result<T, R>> run() {
+        BrowserContext testContext = PlaywrightFactory.getBrowserContext();
+        if (testContext == null) {
+            throw new FrameworkException("No browser context on thread " + Thread.currentThread().getName()
+                    + ", was the @BeforeMethod setup run?");
+        }
+        return run(testContext);
+    }
+
+    List<Result<T, R>> run(BrowserContext testContext) {
+        if (check == null) {
+            throw new FrameworkException("PageFanOut needs a check");
+        }
+        List<Result<T, R>> results = new ArrayList<>(Collections.nCopies(items.size(), null));
+        if (items.isEmpty()) {
+            return results;
+        }
+
+        long runStart = System.currentTimeMillis();
+        int slots = Math.min(pages, items.size());
+        String storageState = separateContexts ? testContext.storageState() : null;
+        List<Page> slotPages = new ArrayList<>(slots);
+        int[] slotItem = new int[slots];
+        long[] slotStart = new long[slots];
+        long[] slotOpen = new long[slots];
+        Throwable[] openFailure = new Throwable[slots];
+        try {
+            int next = 0;
+            for (int slot = 0; slot < slots; slot++) {
+                slotPages.add(newPage(testContext, storageState));
+                start(slotPages, slot, next++, slotItem, slotStart, slotOpen, openFailure);
+            }
+            int done = 0;
+            while (done < items.size()) {
+                for (int slot = 0; slot < slots; slot++) {
+                    if (slotItem[slot] < 0) {
+                        continue;
+                    }
+                    results.set(slotItem[slot], finish(slotPages.get(slot), slotItem[slot], slotStart[slot], slotOpen[slot],
+                            openFailure[slot]));
+                    done++;
+                    if (slotPages.get(slot).isClosed() || crashed.contains(slotPages.get(slot))) {
+                        close(slotPages.get(slot));
+                        slotPages.set(slot, newPage(testContext, storageState));
+                    }
+                    if (next < items.size()) {
+                        start(slotPages, slot, next++, slotItem, slotStart, slotOpen, openFailure);
+                    } else {
+                        slotItem[slot] = -1;
+                    }
+                }
+            }
+        } finally {
+            for (Page page : slotPages) {
+                close(page);
+            }
+        }
+
+        long failed = results.stream().filter(result -> !result.isSuccess()).count();
+        System.out.println("Fan-out checked " + items.size() + " item(s) on " + slots + " page(s) in "
+                + (System.currentTimeMillis() - runStart) + " ms, " + failed + " failed");
+        return results;
+    }
+
+    private void start(List<Page> slotPages, int slot, int index, int[] slotItem, long[] slotStart, long[] slotOpen,
+                       Throwable[] openFailure) {
+        Page page = slotPages.get(slot);
+        slotItem[slot] = index;
+        slotStart[slot] = System.nanoTime();
+        openFailure[slot] = null;
+        timeout(page, itemTimeout.toMillis());
+        try {
+            open.accept(page, items.get(index));
+        } catch (RuntimeException | AssertionError e) {
+            openFailure[slot] = e;
+        }
+        slotOpen[slot] = System.nanoTime() - slotStart[slot];
+    }
+
+    /**
+     * @param opening the time the item spent in {@code open}
+     */
+    private Result<T, R> finish(Page page, int index, long start, long opening, Throwable openFailure) {
+        T item = items.get(index);
+        Throwable failure = openFailure;
+        R value = null;
+        long budget = itemTimeout.toNanos() - opening;
+        if (failure == null && budget <= 0) {
+            failure = overTimeout(opening);
+        } else if (failure == null) {
+            long checkStart = System.nanoTime();
+            timeout(page, Math.max(1, budget / 1_000_000L));
+            try {
+                value = check.apply(page, item);
+                long spent = opening + System.nanoTime() - checkStart;
+                if (spent > itemTimeout.toNanos()) {
+                    value = null;
+                    failure = overTimeout(spent);
+                }
+            } catch (RuntimeException | AssertionError e) {
+                failure = e;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        Metrics.record("fanout.item", elapsed);
+        return new Result<>(item, value, failure, elapsed / 1_000_000L);
+    }
+
+    private Page newPage(BrowserContext testContext, String storageState) {
+        Page page;
+        if (separateContexts) {
+            Browser browser = PlaywrightFactory.getBrowser();
+            BrowserContext context = browser.newContext(PlaywrightFactory.getEmulation()
+                    .apply(new Browser.NewContextOptions().setStorageState(storageState)));
+            PagePerformanceCollector.install(context);
+            page = context.newPage();
+            BrowserLogs.attach(page);
+        } else {
+            page = testContext.newPage();
+        }
+        page.onCrash(crashed::add);
+        return page;
+    }
+
+    private static void timeout(Page page, long millis) {
+        if (!page.isClosed()) {
+            page.setDefaultTimeout(millis);
+            page.setDefaultNavigationTimeout(millis);
+        }
+    }
+
+    private FrameworkException overTimeout(long spentNanos) {
+        return new FrameworkException("Item took " + spentNanos / 1_000_000L + " ms, over the item timeout of "
+                + itemTimeout.toMillis() + " ms");
+    }
+
+    private void close(Page page) {
+        try {
+            if (separateContexts) {
+                page.context().close();
+            } else if (!page.isClosed()) {
+                page.close();
+            }
+        } catch (PlaywrightException e) {
+            System.err.println("Error closing fan-out page: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The outcome of one item: the value of the check, or why the item failed.
+     */
+    public static final class Result<T, R> {
+
+        private final T item;
+        private final R value;
+        private final Throwable failure;
+        private final long elapsedMillis;
+
+        Result(T item, R value, Throwable failure, long elapsedMillis) {
+            this.item = item;
+            this.value = value;
+            this.failure = failure;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public R getValue() {
+            return value;
+        }
+
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        @Override
+        public String toString() {
+            return item + (isSuccess() ? " -> " + value : " failed: " + failure) + " (" + elapsedMillis + " ms)";
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.tonic.factory;
+
+import com.microsoft.playwright.Page;
+import com.tonic.exceptions.FrameworkException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Page objects of the test running on the current thread, created on first use around the thread's {@link Page}
+ * and dropped when its context is closed. Page objects therefore never leak between tests running in parallel,
+ * and a test only pays for the page objects it uses.
+ */
+public final class PageScope {
+
+    private PageScope() {
+    }
+
+    private static final ThreadLocal<Map<Class<?>, Object>> PAGES = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * @param pageClass a page object with a public constructor taking the Playwright {@link Page}
+     */
+    public static <T> T get(Class<T> pageClass) {
+        Page page = PlaywrightFactory.getPage();
+        if (page == null) {
+            throw new FrameworkException("No browser page on thread " + Thread.currentThread().getName()
+                    + ", was the @BeforeMethod setup run?");
+        }
+        Object pageObject = PAGES.get().get(pageClass);
+        if (pageObject == null) {
+            try {
+                pageObject = pageClass.getConstructor(Page.class).newInstance(page);
+            } catch (NoSuchMethodException | InstantiationException | IllegalAccessException e) {
+                throw new FrameworkException(pageClass.getName() + " needs a public constructor taking a Page", e);
+            } catch (InvocationTargetException e) {
+                throw new FrameworkException("Could not create " + pageClass.getName(), e.getCause());
+            }
+            PAGES.get().put(pageClass, pageObject);
+        }
+        return pageClass.cast(pageObject);
+    }
+
+    public static void clear() {
+        PAGES.remove();
+    }
+}
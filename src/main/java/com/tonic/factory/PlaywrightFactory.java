@@ -3,21 +3,40 @@ package com.tonic.factory;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Base64;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.microsoft.playwright.Browser;
 import com.microsoft.playwright.BrowserContext;
 import com.microsoft.playwright.BrowserType;
 import com.microsoft.playwright.Page;
 import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.PlaywrightException;
 import com.microsoft.playwright.Tracing;
+import com.tonic.artifacts.Artifact;
+import com.tonic.artifacts.ArtifactStore;
+import com.tonic.diagnostics.BrowserLogs;
+import com.tonic.diagnostics.DomSnapshots;
+import com.tonic.emulation.Emulation;
+import com.tonic.enums.ConfigProperties;
+import com.tonic.metrics.Metrics;
+import com.tonic.performance.PagePerformanceCollector;
+import com.tonic.utils.PropertyBuilder;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
 
 /**
  * Manages Playwright browser lifecycle, context, page objects, and tracing for test execution.
+ * Playwright objects are not thread-safe: a Playwright instance, with its browser, contexts and pages, may only be
+ * used by one thread at a time. Each worker thread launches its own browser once (or takes one the suite bootstrap
+ * prelaunched into the {@link BrowserPool}) and is the only thread using it while tests run, and every test gets a
+ * fresh context from it; this is what makes parallel="methods" safe. The browsers are closed by the thread running
+ * @AfterTest or the end of the suite, after the workers that used them are done.
  * @author : Gaurav Purwar
  */
 public class PlaywrightFactory {
@@ -27,31 +46,46 @@ public class PlaywrightFactory {
 	private static ThreadLocal<BrowserContext> tlBrowserContext = new ThreadLocal<>();
 	private static ThreadLocal<Page> tlPage = new ThreadLocal<>();
 	private static ThreadLocal<Playwright> tlPlaywright = new ThreadLocal<>();
+	private static ThreadLocal<String> tlBrowserName = new ThreadLocal<>();
+	private static ThreadLocal<Artifact> tlLastScreenshot = new ThreadLocal<>();
+	private static ThreadLocal<Emulation> tlEmulation = new ThreadLocal<>();
+	// the browsers of all threads, with the <test> they were launched for
+	private static final Map<Playwright, String> LAUNCHED = new ConcurrentHashMap<>();
 
-	// Screenshots taken using this method will be used in reports
+	// Screenshots taken using this method will be used in reports, as Base64 text; prefer captureScreenshot()
 	public static String takeScreenshot() {
-		String path = System.getProperty("user.dir") + "/screenshots/" + System.currentTimeMillis() + ".png";
-
-		// Create the directory if it doesn't exist
-		Path screenshotDir = Paths.get(System.getProperty("user.dir") + "/screenshots/");
-		try {
-			if (!Files.exists(screenshotDir)) {
-				Files.createDirectories(screenshotDir);
-			}
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		Artifact screenshot = captureScreenshot();
+		return screenshot == null ? null : Base64.getEncoder().encodeToString(ArtifactStore.shared().get(screenshot.getHash()));
+	}
 
+	/**
+	 * Takes a full-page screenshot into the ArtifactStore; ReportAttachments shows it in the report without copying it
+	 * again.
+	 *
+	 * @return the stored screenshot, or null when the thread has no page
+	 */
+	public static Artifact captureScreenshot() {
 		if (getPage() != null) {
+			long start = Metrics.start();
 			byte[] buffer = getPage().screenshot(new Page.ScreenshotOptions()
-					.setPath(Paths.get(path))
 					.setFullPage(true));
+			Metrics.stop("screenshot.playwright", start);
+			Metrics.increment("screenshots");
 
-			return Base64.getEncoder().encodeToString(buffer);
+			Artifact screenshot = ArtifactStore.shared().put(buffer, "image/png");
+			tlLastScreenshot.set(screenshot);
+			return screenshot;
 		}
 		return null;
 	}
 
+	/**
+	 * @return the stored artifact of the last screenshot taken by {@link #captureScreenshot()} on this thread
+	 */
+	public static Artifact getLastScreenshot() {
+		return tlLastScreenshot.get();
+	}
+
 	public static Playwright getPlaywright(){
 		return tlPlaywright.get();
 	}
@@ -68,56 +102,233 @@ public class PlaywrightFactory {
 		return tlPage.get();
 	}
 
+	public static String getBrowserName(){
+		return tlBrowserName.get();
+	}
+
 	/**
-	 * Initialize browser based on given browser name
+	 * @return what the contexts of the current test emulate, {@link Emulation#NONE} outside of a test
+	 */
+	public static Emulation getEmulation(){
+		return tlEmulation.get() == null ? Emulation.NONE : tlEmulation.get();
+	}
+
+	/**
+	 * Closes the Playwright instance of the current thread, with its browser and contexts
+	 */
+	public static void closeBrowser() {
+		ContextPool.clear();
+		if (getPlaywright() != null) {
+			LAUNCHED.remove(getPlaywright());
+			getPlaywright().close();
+		}
+		PageScope.clear();
+		tlPage.remove();
+		tlBrowserContext.remove();
+		tlBrowser.remove();
+		tlBrowserName.remove();
+		tlEmulation.remove();
+		tlPlaywright.remove();
+	}
+
+	/**
+	 * Closes the context of the current test, keeping the browser of the thread for its next test, and prewarms the
+	 * contexts of the next tests while the thread is between tests (see {@link ContextPool})
+	 */
+	public static void closeContext() {
+		releaseContext();
+		ContextPool.replenish();
+	}
+
+	private static void releaseContext() {
+		PageScope.clear();
+		if (getBrowserContext() != null) {
+			try {
+				getBrowserContext().close();
+			} catch (PlaywrightException e) {
+				System.err.println("Error closing browser context: " + e.getMessage());
+			}
+		}
+		tlPage.remove();
+		tlBrowserContext.remove();
+	}
+
+	/**
+	 * Closes the browsers of every worker thread. A browser may only be used by one thread at a time, so call this
+	 * only once the workers are done with theirs, e.g. at the end of the suite.
+	 */
+	public static void closeAllBrowsers() {
+		closeBrowsers(null);
+	}
+
+	/**
+	 * Closes the browsers launched for the current {@code <test>} of the suite, from its @AfterTest. The workers of
+	 * that test are done by then, while the browsers of the tests still running in parallel are left alone. The cells
+	 * of an emulation matrix keep theirs for the next cells of the worker, unless the cell ran parallel="methods" on
+	 * threads of its own.
+	 */
+	public static void closeTestBrowsers() {
+		ITestResult result = Reporter.getCurrentTestResult();
+		if (result != null && result.getTestContext().getCurrentXmlTest().getParameter(Emulation.CELL) != null
+				&& runsOnSuiteThreads(result.getTestContext().getCurrentXmlTest())) {
+			// the cells of an emulation matrix share their browsers, closed at the end of the suite
+			return;
+		}
+		closeBrowsers(currentTestName());
+	}
+
+	// a <test> running its methods in parallel gets a thread pool of its own, whose browsers no other test reuses
+	private static boolean runsOnSuiteThreads(XmlTest test) {
+		XmlSuite.ParallelMode mode = test.getParallel();
+		return mode == null || mode == XmlSuite.ParallelMode.NONE || mode == XmlSuite.ParallelMode.TESTS;
+	}
+
+	private static void closeBrowsers(String testName) {
+		for (Map.Entry<Playwright, String> launched : LAUNCHED.entrySet()) {
+			if (testName != null && !testName.equals(launched.getValue())) {
+				continue;
+			}
+			LAUNCHED.remove(launched.getKey());
+			try {
+				launched.getKey().close();
+			} catch (PlaywrightException e) {
+				System.err.println("Error closing browser: " + e.getMessage());
+			}
+		}
+		ContextPool.clear();
+		PageScope.clear();
+		tlPage.remove();
+		tlBrowserContext.remove();
+		tlBrowser.remove();
+		tlBrowserName.remove();
+		tlEmulation.remove();
+		tlPlaywright.remove();
+	}
+
+	/**
+	 * Opens a new context and page for the current test, navigated to the application URL, with the
+	 * {@link Emulation} of the viewport, emulate and locale properties.
+	 * The browser is launched on the first call of each thread and reused by its later tests, unless the browser
+	 * name changes or the browser went away; the context of the previous test is closed if it is still open.
 	 */
 	public Page initBrowser(Properties prop) {
 		String browserName = prop.getProperty("browser").trim();
-		System.out.println("Browser name is: " + browserName);
+		if (getBrowser() == null || !getBrowser().isConnected() || !browserName.equalsIgnoreCase(tlBrowserName.get())) {
+			closeBrowser();
+			launchBrowser(browserName);
+		} else {
+			// normally done by the @AfterMethod of the previous test
+			releaseContext();
+		}
+
+		String url = prop.getProperty("url").trim();
+		Emulation emulation = Emulation.from(prop);
+		tlEmulation.set(emulation);
+		ContextPool.Warm warm = ContextPool.take(getBrowser(), url, emulation);
+		if (warm != null) {
+			tlBrowserContext.set(warm.context);
+			tlPage.set(warm.page);
+		} else {
+			tlBrowserContext.set(openContext(getBrowser(), emulation));
+
+			long start = Metrics.start();
+			tlPage.set(getBrowserContext().newPage());
+			Metrics.stop("page.create", start);
+		}
+
+		// a new context is a new test: start its diagnostics afresh
+		DomSnapshots.reset();
+		BrowserLogs.startTest(getBrowserContext());
+
+		// Navigate to application URL, unless the prewarmed page already loaded it
+		if (warm == null || warm.url == null) {
+			long start = Metrics.start();
+			getPage().navigate(url);
+			Metrics.stop("page.navigate", start);
+		}
+		return getPage();
+	}
 
-		// Create playwright instance
-		tlPlaywright.set(Playwright.create());
+	/**
+	 * Opens a context for a test, with its emulation, the performance collector installed and tracing started
+	 */
+	static BrowserContext openContext(Browser browser, Emulation emulation) {
+		long start = Metrics.start();
+		Browser.NewContextOptions options = emulation.apply(new Browser.NewContextOptions());
+		String storageState = System.getProperty("storagestate") == null
+				? PropertyBuilder.getPropValue(ConfigProperties.STORAGESTATE) : System.getProperty("storagestate");
+		if (!storageState.isEmpty()) {
+			// signed in from a saved state instead of through the login page
+			options.setStorageStatePath(Paths.get(storageState));
+		}
+		BrowserContext context = browser.newContext(options);
+		PagePerformanceCollector.install(context);
+		Metrics.stop("context.create", start);
 
+		// Start tracing before creating / navigating a page
+		start = Metrics.start();
+		context.tracing().start(new Tracing.StartOptions()
+				.setScreenshots(true)
+				.setSnapshots(true)
+				.setSources(true));
+		Metrics.stop("tracing.start", start);
+		return context;
+	}
+
+	/**
+	 * Takes a prelaunched browser from the {@link BrowserPool}, or launches one, for the current thread
+	 */
+	private void launchBrowser(String browserName) {
+		BrowserPool.Launched prelaunched = BrowserPool.take(browserName);
+		if (prelaunched != null) {
+			System.out.println("Browser name is: " + browserName + ", prelaunched (" + Thread.currentThread().getName() + ")");
+			tlPlaywright.set(prelaunched.playwright);
+			tlBrowser.set(prelaunched.browser);
+		} else {
+			System.out.println("Browser name is: " + browserName + " (" + Thread.currentThread().getName() + ")");
+
+			// Create playwright instance
+			long start = Metrics.start();
+			tlPlaywright.set(Playwright.create());
+			Metrics.stop("playwright.create", start);
+
+			start = Metrics.start();
+			tlBrowser.set(launch(getPlaywright(), browserName));
+			Metrics.stop("browser.launch", start);
+		}
+		LAUNCHED.put(getPlaywright(), String.valueOf(currentTestName()));
+		tlBrowserName.set(browserName);
+	}
+
+	/**
+	 * Initialize browser based on given browser name
+	 */
+	static Browser launch(Playwright playwright, String browserName) {
 		switch (browserName.toLowerCase()) {
 			case "chromium":
-				tlBrowser.set(getPlaywright().chromium().launch(new BrowserType.LaunchOptions().setHeadless(false)));
-				break;
+				return playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(false));
 			case "firefox":
-				tlBrowser.set(getPlaywright().firefox().launch(new BrowserType.LaunchOptions().setHeadless(false)));
-				break;
+				return playwright.firefox().launch(new BrowserType.LaunchOptions().setHeadless(false));
 			case "safari":
-				tlBrowser.set(getPlaywright().webkit().launch(new BrowserType.LaunchOptions().setHeadless(false)));
-				break;
+				return playwright.webkit().launch(new BrowserType.LaunchOptions().setHeadless(false));
 			case "chrome":
-				tlBrowser.set(getPlaywright().chromium().launch(new BrowserType.LaunchOptions()
+				return playwright.chromium().launch(new BrowserType.LaunchOptions()
 						.setChannel("chrome")
-						.setHeadless(false)));
-				break;
+						.setHeadless(false));
 			case "edge":
-				tlBrowser.set(getPlaywright().chromium().launch(new BrowserType.LaunchOptions()
+				return playwright.chromium().launch(new BrowserType.LaunchOptions()
 						.setChannel("msedge")
-						.setHeadless(false)));
-				break;
+						.setHeadless(false));
 
 			default:
 				System.out.println("Please pass the correct browser name... " + browserName);
-				break;
+				return null;
 		}
+	}
 
-		tlBrowserContext.set(getBrowser().newContext());
-
-		// Start tracing before creating / navigating a page
-		getBrowserContext().tracing().start(new Tracing.StartOptions()
-				.setScreenshots(true)
-				.setSnapshots(true)
-				.setSources(true));
-
-		tlPage.set(getBrowserContext().newPage());
-
-		// Navigate to application URL
-		getPage().navigate(prop.getProperty("url").trim());
-
-		return getPage();
+	private static String currentTestName() {
+		ITestResult result = Reporter.getCurrentTestResult();
+		return result == null ? null : result.getTestContext().getName();
 	}
 
 	/**
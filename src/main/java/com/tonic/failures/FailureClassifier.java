@@ -0,0 +1,74 @@
+package com.tonic.failures;
+
+import com.microsoft.playwright.PlaywrightException;
+import com.microsoft.playwright.TimeoutError;
+import com.tonic.enums.FailureCategory;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.net.http.HttpTimeoutException;
+
+/**
+ * Tells infrastructure failures (the application, the Sauce Labs hub or the Appium server can't be reached,
+ * the browser or session died) from failures of the application under test.
+ */
+public final class FailureClassifier {
+
+    private FailureClassifier() {
+    }
+
+    private static final String[] PLAYWRIGHT_INFRASTRUCTURE_MESSAGES = {"net::ERR_", "NS_ERROR_", "ECONNREFUSED",
+            "ECONNRESET", "has been closed", "Browser closed", "Target closed", "Connection refused"};
+
+    private static final String[] DRIVER_INFRASTRUCTURE_MESSAGES = {"Could not start a new session",
+            "Connection refused", "Connection reset", "session is either terminated or not started",
+            "Error communicating with the remote browser", "Unable to connect"};
+
+    public static FailureCategory classify(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (isInfrastructure(cause)) {
+                return FailureCategory.INFRASTRUCTURE;
+            }
+        }
+        return FailureCategory.APPLICATION;
+    }
+
+    public static boolean isInfrastructure(Throwable throwable) {
+        if (throwable instanceof ConnectException || throwable instanceof UnknownHostException
+                || throwable instanceof NoRouteToHostException || throwable instanceof SocketTimeoutException
+                || throwable instanceof HttpTimeoutException) {
+            return true;
+        }
+        if (throwable instanceof SessionNotCreatedException || throwable instanceof NoSuchSessionException
+                || throwable instanceof UnreachableBrowserException) {
+            return true;
+        }
+        String message = String.valueOf(throwable.getMessage());
+        if (throwable instanceof PlaywrightException) {
+            // a timeout while navigating means the application didn't answer, not that an element is missing;
+            // the message is wrapped in "Error { message='Timeout ...", the call log names the navigation
+            return containsAny(message, PLAYWRIGHT_INFRASTRUCTURE_MESSAGES)
+                    || ((throwable instanceof TimeoutError || message.contains("Timeout ")) && message.contains("navigating to"));
+        }
+        if (throwable instanceof WebDriverException || throwable instanceof IOException) {
+            return containsAny(message, DRIVER_INFRASTRUCTURE_MESSAGES);
+        }
+        return false;
+    }
+
+    private static boolean containsAny(String message, String[] fragments) {
+        for (String fragment : fragments) {
+            if (message.contains(fragment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,58 @@
+package com.tonic.failures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The failures of a run sharing one {@link FailureFingerprint}.
+ */
+public class FailureCluster {
+
+    private final String fingerprint;
+    private final String signature;
+    private final String exceptionType;
+    private final String sampleMessage;
+    private final long firstSeenMillis;
+    private final List<String> tests = new CopyOnWriteArrayList<>();
+
+    FailureCluster(String fingerprint, Throwable throwable, Class<?> testClass) {
+        this.fingerprint = fingerprint;
+        this.signature = FailureFingerprint.normalize(throwable, testClass);
+        this.exceptionType = throwable.getClass().getName();
+        this.sampleMessage = String.valueOf(throwable.getMessage()).split("\\R", 2)[0];
+        this.firstSeenMillis = System.currentTimeMillis();
+    }
+
+    void add(String testName) {
+        tests.add(testName);
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public String getExceptionType() {
+        return exceptionType;
+    }
+
+    public String getSampleMessage() {
+        return sampleMessage;
+    }
+
+    public long getFirstSeenMillis() {
+        return firstSeenMillis;
+    }
+
+    public List<String> getTests() {
+        return new ArrayList<>(tests);
+    }
+
+    public int size() {
+        return tests.size();
+    }
+}
@@ -0,0 +1,110 @@
+package com.tonic.failures;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tonic.enums.ConfigProperties;
+import com.tonic.utils.PropertyBuilder;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Groups the failures of the run by {@link FailureFingerprint} as they happen, so a broken login shows up as one
+ * cluster of 100 failures instead of 100 failures to triage.
+ * With {@code failfastclusterthreshold} set above 0, the run is aborted once one cluster reaches that many failures:
+ * see {@link #abortingCluster()}.
+ */
+public final class FailureClusterer {
+
+    private FailureClusterer() {
+    }
+
+    private static final String CLUSTER_ATTRIBUTE = "failureCluster";
+    private static final int LISTED_TESTS = 5;
+
+    private static final int FAIL_FAST_THRESHOLD = Integer.parseInt(System.getProperty("failfastclusterthreshold") == null
+            ? PropertyBuilder.getPropValue(ConfigProperties.FAILFASTCLUSTERTHRESHOLD) : System.getProperty("failfastclusterthreshold"));
+
+    private static final ConcurrentMap<String, FailureCluster> CLUSTERS = new ConcurrentHashMap<>();
+    private static volatile FailureCluster aborting;
+
+    /**
+     * Adds the failed result to its cluster. Safe to call from several listeners for the same result:
+     * the result is only counted once.
+     *
+     * @return the cluster of the result, or null when the result has no throwable
+     */
+    public static FailureCluster record(ITestResult result) {
+        Object recorded = result.getAttribute(CLUSTER_ATTRIBUTE);
+        if (recorded instanceof FailureCluster) {
+            return (FailureCluster) recorded;
+        }
+        Throwable throwable = result.getThrowable();
+        if (throwable == null) {
+            return null;
+        }
+        synchronized (result) {
+            recorded = result.getAttribute(CLUSTER_ATTRIBUTE);
+            if (recorded instanceof FailureCluster) {
+                return (FailureCluster) recorded;
+            }
+            Class<?> testClass = result.getTestClass().getRealClass();
+            FailureCluster cluster = CLUSTERS.computeIfAbsent(FailureFingerprint.of(throwable, testClass),
+                    fingerprint -> new FailureCluster(fingerprint, throwable, testClass));
+            cluster.add(result.getMethod().getQualifiedName());
+            result.setAttribute(CLUSTER_ATTRIBUTE, cluster);
+            if (FAIL_FAST_THRESHOLD > 0 && cluster.size() >= FAIL_FAST_THRESHOLD && aborting == null) {
+                aborting = cluster;
+                System.err.println("Failure cluster " + cluster.getFingerprint() + " reached " + cluster.size()
+                        + " failures, skipping the rest of the run: " + cluster.getSampleMessage());
+            }
+            return cluster;
+        }
+    }
+
+    /**
+     * @return the cluster that reached the fail-fast threshold, or null while the run should go on
+     */
+    public static FailureCluster abortingCluster() {
+        return aborting;
+    }
+
+    /**
+     * @return the clusters of the run, largest first
+     */
+    public static List<FailureCluster> clusters() {
+        List<FailureCluster> clusters = new ArrayList<>(CLUSTERS.values());
+        clusters.sort(Comparator.comparingInt(FailureCluster::size).reversed());
+        return clusters;
+    }
+
+    /**
+     * @return rows of fingerprint, failure count, exception, sample message and first tests, with a header row
+     */
+    public static String[][] summaryTable() {
+        List<FailureCluster> clusters = clusters();
+        String[][] rows = new String[clusters.size() + 1][];
+        rows[0] = new String[]{"Cluster", "Failures", "Exception", "Message", "Tests"};
+        int i = 1;
+        for (FailureCluster cluster : clusters) {
+            List<String> tests = cluster.getTests();
+            String listed = String.join(", ", tests.subList(0, Math.min(LISTED_TESTS, tests.size())))
+                    + (tests.size() > LISTED_TESTS ? " and " + (tests.size() - LISTED_TESTS) + " more" : "");
+            rows[i++] = new String[]{cluster.getFingerprint(), String.valueOf(cluster.size()),
+                    cluster.getExceptionType(), cluster.getSampleMessage(), listed};
+        }
+        return rows;
+    }
+
+    public static void writeSummary(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), clusters());
+    }
+}
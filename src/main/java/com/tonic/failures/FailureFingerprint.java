@@ -0,0 +1,146 @@
+package com.tonic.failures;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stable identity of a failure, so the same defect hit by several tests (or several runs) is recognised as one.
+ * The fingerprint hashes the root cause type, its message with volatile parts (numbers, ids, quoted values)
+ * masked, and the first framework frames without line numbers, topped up with Playwright and Appium API frames.
+ * The driver internals and transport ({@code com.microsoft.playwright.impl}, the Appium and Selenium command
+ * executors) are the same for every call and left out, and so are the frames of the test class: every test failing
+ * inside {@code LoginPage.doLogin} lands on the same fingerprint, a timeout in another page object on another. The
+ * failing line of the test is only used when nothing below it is framework or driver code (e.g. a plain assertion).
+ */
+public final class FailureFingerprint {
+
+    private FailureFingerprint() {
+    }
+
+    private static final int FRAMES = 5;
+
+    private static final String[] FRAMEWORK_FRAME_PREFIXES = {"com.tonic."};
+
+    private static final String[] DRIVER_FRAME_PREFIXES = {"com.microsoft.playwright.", "io.appium.java_client."};
+
+    // shared by every command, so they would make all driver failures look alike
+    private static final String[] TRANSPORT_FRAME_PREFIXES = {"com.microsoft.playwright.impl.",
+            "io.appium.java_client.remote.", "io.appium.java_client.internal.", "org.openqa.selenium.remote.",
+            "com.tonic.profiler.ProfilingCommandExecutor"};
+
+    private static final String[] IGNORED_FRAME_PREFIXES = {"java.", "javax.", "jdk.", "sun.", "com.sun.",
+            "org.testng.", "org.junit.", "net.bytebuddy."};
+
+    // Playwright errors read "Error {\n  message='...'\n  name='TimeoutError'\n  stack='...'\n}"
+    private static final Pattern PLAYWRIGHT_MESSAGE = Pattern.compile("message='(.*?)'\\R\\s*(name|stack)=", Pattern.DOTALL);
+    private static final Pattern QUOTED = Pattern.compile("'[^']*'|\"[^\"]*\"");
+    private static final Pattern HEX = Pattern.compile("\\b(0x)?[0-9a-fA-F]{8,}\\b");
+    private static final Pattern NUMBER = Pattern.compile("\\d+(\\.\\d+)?");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * @param testClass the class of the failed test, or null when unknown
+     * @return a 12 character hex fingerprint of the throwable
+     */
+    public static String of(Throwable throwable, Class<?> testClass) {
+        return hash(normalize(throwable, testClass)).substring(0, 12);
+    }
+
+    /**
+     * @return the text the fingerprint is computed from, useful to explain why two failures were grouped
+     */
+    public static String normalize(Throwable throwable, Class<?> testClass) {
+        Throwable root = rootCause(throwable);
+        StringBuilder normalized = new StringBuilder(root.getClass().getName())
+                .append(": ").append(normalizeMessage(root.getMessage()));
+        StackTraceElement[] stackTrace = root.getStackTrace();
+        Predicate<String> inTest = className -> isTestClassFrame(className, testClass);
+        Predicate<String> transport = className -> startsWithAny(className, TRANSPORT_FRAME_PREFIXES);
+        int frames = appendFrames(normalized, stackTrace, FRAMES, className -> startsWithAny(className, FRAMEWORK_FRAME_PREFIXES)
+                && !transport.test(className) && !inTest.test(className));
+        frames += appendFrames(normalized, stackTrace, FRAMES - frames,
+                className -> startsWithAny(className, DRIVER_FRAME_PREFIXES) && !transport.test(className));
+        if (frames == 0) {
+            // failure raised outside the framework and drivers, e.g. in a library
+            frames = appendFrames(normalized, stackTrace, FRAMES, className -> !startsWithAny(className, IGNORED_FRAME_PREFIXES)
+                    && !transport.test(className) && !inTest.test(className));
+        }
+        if (frames == 0) {
+            appendFrames(normalized, stackTrace, 1, inTest);
+        }
+        return normalized.toString();
+    }
+
+    public static String normalizeMessage(String message) {
+        if (message == null) {
+            return "";
+        }
+        Matcher playwright = PLAYWRIGHT_MESSAGE.matcher(message);
+        if (playwright.find()) {
+            message = playwright.group(1);
+        }
+        // driver messages append build and session details, Playwright its call log, after the first line
+        String firstLine = message.split("\\R", 2)[0];
+        String masked = QUOTED.matcher(firstLine).replaceAll("<str>");
+        masked = HEX.matcher(masked).replaceAll("<id>");
+        masked = NUMBER.matcher(masked).replaceAll("<n>");
+        return WHITESPACE.matcher(masked).replaceAll(" ").trim();
+    }
+
+    private static Throwable rootCause(Throwable throwable) {
+        Throwable root = throwable;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root;
+    }
+
+    private static int appendFrames(StringBuilder normalized, StackTraceElement[] stackTrace, int limit, Predicate<String> hashed) {
+        int frames = 0;
+        for (StackTraceElement frame : stackTrace) {
+            if (frames == limit) {
+                break;
+            }
+            if (hashed.test(frame.getClassName())) {
+                normalized.append("\n at ").append(frame.getClassName()).append('.').append(frame.getMethodName());
+                frames++;
+            }
+        }
+        return frames;
+    }
+
+    private static boolean isTestClassFrame(String className, Class<?> testClass) {
+        for (Class<?> type = testClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            if (className.equals(type.getName()) || className.startsWith(type.getName() + "$")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWithAny(String className, String[] prefixes) {
+        for (String prefix : prefixes) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.tonic.healthCheck;
+
+import java.util.function.Supplier;
+
+/**
+ * Stops the run from hammering an environment that is down.
+ * <ul>
+ *     <li>CLOSED: tests run; the breaker trips after {@code threshold} consecutive infrastructure failures.</li>
+ *     <li>OPEN: tests are skipped with the reason of the trip until the cooldown has elapsed.</li>
+ *     <li>HALF_OPEN: one caller runs the health probe; the breaker closes if it passes and opens again otherwise.
+ *     Other callers keep being skipped meanwhile.</li>
+ * </ul>
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int threshold;
+    private final long cooldownMillis;
+    private final Supplier<String> probe;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtMillis;
+    private String reason;
+
+    /**
+     * @param probe returns null when the environment is healthy, otherwise why it is not
+     */
+    public CircuitBreaker(int threshold, long cooldownMillis, Supplier<String> probe) {
+        this.threshold = threshold;
+        this.cooldownMillis = cooldownMillis;
+        this.probe = probe;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized void recordSuccess() {
+        if (state == State.CLOSED) {
+            consecutiveFailures = 0;
+        }
+    }
+
+    public synchronized void recordFailure(String failure) {
+        if (state != State.CLOSED) {
+            return;
+        }
+        consecutiveFailures++;
+        if (consecutiveFailures >= threshold) {
+            trip(consecutiveFailures + " consecutive infrastructure failures, last: " + failure);
+        }
+    }
+
+    public synchronized void trip(String tripReason) {
+        state = State.OPEN;
+        openedAtMillis = System.currentTimeMillis();
+        reason = tripReason;
+        System.err.println("Circuit breaker open: " + tripReason);
+    }
+
+    /**
+     * @return null when the caller may go on, otherwise the reason it must not
+     */
+    public String check() {
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                return null;
+            }
+            if (state == State.HALF_OPEN || System.currentTimeMillis() - openedAtMillis < cooldownMillis) {
+                return reason;
+            }
+            state = State.HALF_OPEN;
+        }
+        // probe without holding the lock, the other callers are skipped meanwhile
+        String failure = probe.get();
+        synchronized (this) {
+            if (failure == null) {
+                state = State.CLOSED;
+                consecutiveFailures = 0;
+                reason = null;
+                System.out.println("Circuit breaker closed: environment is healthy again");
+                return null;
+            }
+            trip(failure);
+            return reason;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.tonic.healthCheck;
+
+import com.tonic.enums.ConfigProperties;
+import com.tonic.utils.PropertyBuilder;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Health of the environment the suite runs against: the registered {@link HealthProbe}s and the
+ * {@link CircuitBreaker} fed with the infrastructure failures of the run.
+ * Disabled with {@code circuitbreakerthreshold=0}.
+ */
+public final class EnvironmentGuard {
+
+    private EnvironmentGuard() {
+    }
+
+    private static final int THRESHOLD = Integer.parseInt(setting("circuitbreakerthreshold", ConfigProperties.CIRCUITBREAKERTHRESHOLD));
+    private static final long COOLDOWN_SECONDS = Long.parseLong(setting("circuitbreakercooldownseconds", ConfigProperties.CIRCUITBREAKERCOOLDOWNSECONDS));
+    private static final long PROBE_TIMEOUT_SECONDS = Long.parseLong(setting("healthprobetimeoutseconds", ConfigProperties.HEALTHPROBETIMEOUTSECONDS));
+
+    private static final List<HealthProbe> PROBES = new CopyOnWriteArrayList<>();
+    private static final CircuitBreaker BREAKER = new CircuitBreaker(THRESHOLD, COOLDOWN_SECONDS * 1000, EnvironmentGuard::probeAll);
+
+    private static String setting(String systemProperty, ConfigProperties key) {
+        return System.getProperty(systemProperty) == null ? PropertyBuilder.getPropValue(key) : System.getProperty(systemProperty);
+    }
+
+    public static boolean isEnabled() {
+        return THRESHOLD > 0;
+    }
+
+    public static synchronized void register(String name, URI uri) {
+        for (HealthProbe probe : PROBES) {
+            if (probe.getUri().equals(uri)) {
+                return;
+            }
+        }
+        PROBES.add(new HealthProbe(name, uri, Duration.ofSeconds(PROBE_TIMEOUT_SECONDS)));
+    }
+
+    /**
+     * @return null when every registered target is up, otherwise the failures of the targets that are down
+     */
+    public static String probeAll() {
+        List<String> failures = new ArrayList<>();
+        for (HealthProbe probe : PROBES) {
+            String failure = probe.check();
+            if (failure != null) {
+                failures.add(failure);
+            }
+        }
+        return failures.isEmpty() ? null : String.join("; ", failures);
+    }
+
+    /**
+     * Probes the targets before the first test, opening the breaker right away when one of them is down.
+     */
+    public static void checkBeforeSuite() {
+        if (!isEnabled()) {
+            return;
+        }
+        String failure = probeAll();
+        if (failure != null) {
+            BREAKER.trip("environment down before the run: " + failure);
+        }
+    }
+
+    /**
+     * @return null when tests may run, otherwise why they must be skipped
+     */
+    public static String check() {
+        return isEnabled() ? BREAKER.check() : null;
+    }
+
+    public static void recordInfrastructureFailure(String failure) {
+        if (isEnabled()) {
+            BREAKER.recordFailure(failure);
+        }
+    }
+
+    public static void recordHealthy() {
+        if (isEnabled()) {
+            BREAKER.recordSuccess();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.tonic.healthCheck;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Checks that a target the tests depend on (application URL, Sauce Labs hub, local Appium server) answers.
+ * Any HTTP answer below 500 counts as up: a login redirect or a 401 from the hub still means it is reachable.
+ */
+public final class HealthProbe {
+
+    private final String name;
+    private final URI uri;
+    private final HttpClient client;
+    private final Duration timeout;
+
+    public HealthProbe(String name, URI uri, Duration timeout) {
+        this.name = name;
+        this.uri = uri;
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    /**
+     * @return null when the target is up, otherwise why it is considered down
+     */
+    public String check() {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(timeout).GET().build();
+        try {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return status < 500 ? null : name + " (" + uri + ") answered HTTP " + status;
+        } catch (IOException e) {
+            return name + " (" + uri + ") is unreachable: " + e.getClass().getSimpleName()
+                    + (e.getMessage() == null ? "" : " " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return name + " (" + uri + ") check was interrupted";
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.tonic.history;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Smoothed test durations, keyed by the qualified test method name, computed from the {@link TestHistoryStore}.
+ * The durations of each run (summed when a test is invoked several times) are folded into an exponentially
+ * weighted moving average so a single slow run does not reorder the whole suite.
+ */
+public final class DurationHistory {
+
+    private static final double SMOOTHING = 0.3;
+
+    private final Map<String, Long> durations = new LinkedHashMap<>();
+
+    private DurationHistory() {
+    }
+
+    /**
+     * @return the durations known to the store at this point; runs appended later are not taken into account
+     */
+    public static DurationHistory from(TestHistoryStore store) {
+        DurationHistory history = new DurationHistory();
+        for (String testId : store.testIds()) {
+            Map<Long, Long> perRun = new LinkedHashMap<>();
+            for (TestRun run : store.runs(testId)) {
+                if (run.getStatus() != TestRun.Status.SKIPPED) {
+                    perRun.merge(run.getRunId(), run.getDurationMillis(), Long::sum);
+                }
+            }
+            for (long millis : perRun.values()) {
+                history.durations.merge(testId, millis, (previous, current) -> Math.round(SMOOTHING * current + (1 - SMOOTHING) * previous));
+            }
+        }
+        return history;
+    }
+
+    public boolean contains(String testId) {
+        return durations.containsKey(testId);
+    }
+
+    /**
+     * @return the smoothed duration of the test, or the median of all known tests when it has never run
+     */
+    public long estimate(String testId, long fallbackMillis) {
+        Long known = durations.get(testId);
+        if (known != null) {
+            return known;
+        }
+        return durations.isEmpty() ? fallbackMillis : median();
+    }
+
+    private long median() {
+        List<Long> values = new ArrayList<>(durations.values());
+        Collections.sort(values);
+        return values.get(values.size() / 2);
+    }
+}
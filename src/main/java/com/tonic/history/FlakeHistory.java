@@ -0,0 +1,83 @@
+package com.tonic.history;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recent outcomes of each test, read from the {@link TestHistoryStore}, used to spot and quarantine chronically
+ * flaky tests.
+ * Outcomes are listed oldest first as one character per run: {@code P} passed, {@code R} passed after a retry,
+ * {@code F} failed; skipped runs are left out. The flake score counts the retried passes and the pass/fail flips
+ * between runs over the window.
+ */
+public final class FlakeHistory {
+
+    public static final char PASSED = 'P';
+    public static final char PASSED_ON_RETRY = 'R';
+    public static final char FAILED = 'F';
+
+    private static final int WINDOW = 20;
+    private static final int MIN_RUNS = 5;
+    private static final double QUARANTINE_SCORE = 0.3;
+
+    private final TestHistoryStore store;
+
+    private FlakeHistory(TestHistoryStore store) {
+        this.store = store;
+    }
+
+    /**
+     * @return a view of the store, including the runs appended after this call
+     */
+    public static FlakeHistory of(TestHistoryStore store) {
+        return new FlakeHistory(store);
+    }
+
+    public String outcomes(String testId) {
+        StringBuilder outcomes = new StringBuilder();
+        for (TestRun run : store.runs(testId)) {
+            if (run.getStatus() == TestRun.Status.FAILED) {
+                outcomes.append(FAILED);
+            } else if (run.getStatus() == TestRun.Status.PASSED) {
+                outcomes.append(run.getRetries() > 0 ? PASSED_ON_RETRY : PASSED);
+            }
+        }
+        return outcomes.length() > WINDOW ? outcomes.substring(outcomes.length() - WINDOW) : outcomes.toString();
+    }
+
+    /**
+     * @return the share of recent runs that were flaky, between 0 and 1
+     */
+    public double flakeScore(String testId) {
+        return scoreOf(outcomes(testId));
+    }
+
+    public boolean isQuarantined(String testId) {
+        String recent = outcomes(testId);
+        return recent.length() >= MIN_RUNS && scoreOf(recent) >= QUARANTINE_SCORE;
+    }
+
+    public List<String> quarantined() {
+        List<String> quarantined = new ArrayList<>();
+        for (String testId : store.testIds()) {
+            if (isQuarantined(testId)) {
+                quarantined.add(testId);
+            }
+        }
+        return quarantined;
+    }
+
+    private static double scoreOf(String recent) {
+        if (recent.isEmpty()) {
+            return 0;
+        }
+        int flakes = 0;
+        for (int i = 0; i < recent.length(); i++) {
+            char outcome = recent.charAt(i);
+            if (outcome == PASSED_ON_RETRY || (i > 0 && (outcome == FAILED) != (recent.charAt(i - 1) == FAILED))) {
+                flakes++;
+            }
+        }
+        return (double) flakes / recent.length();
+    }
+}
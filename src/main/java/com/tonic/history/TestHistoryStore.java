@@ -0,0 +1,432 @@
+package com.tonic.history;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tonic.constants.FrameworkConstants;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only local history of test executions, shared by the scheduler, the retry analyzer and anything else
+ * that needs to know how tests behaved in earlier runs.
+ * <p>
+ * The file starts with a magic number and a version, followed by one record per {@link TestRun}:
+ * {@code [payload length][payload][CRC32 of the payload]}. Runs are appended in batches; a record torn by a killed
+ * run fails its length or checksum and is cut off on the next load. Only the last {@value #KEEP_PER_TEST} runs
+ * of each test are kept in memory, and the file is compacted down to them once it holds twice as many records.
+ * <p>
+ * When the file doesn't exist yet, the {@code durations.json} and {@code flakes.json} of the scheduler and the retry
+ * quarantine of earlier versions, found next to it, are imported once: one run per recorded outcome, carrying the
+ * smoothed duration of the test.
+ */
+public final class TestHistoryStore {
+
+    private static final int MAGIC = 0x544E4853;
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 6;
+    private static final int KEEP_PER_TEST = 50;
+    private static final int BATCH_SIZE = 25;
+    private static final int COMPACT_MIN_RECORDS = 1000;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+    private static final TestRun.Status[] STATUSES = TestRun.Status.values();
+    private static final String LEGACY_DURATIONS = "durations.json";
+    private static final String LEGACY_OUTCOMES = "flakes.json";
+    // the outcome window of flakes.json
+    private static final int LEGACY_RUNS = 20;
+
+    private static final ReentrantLock SHARED_LOCK = new ReentrantLock();
+    private static TestHistoryStore shared;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Path file;
+    private final Map<String, Deque<TestRun>> runsByTest = new HashMap<>();
+    private final List<TestRun> pending = new ArrayList<>();
+    private int recordsOnDisk;
+    private int retained;
+
+    private TestHistoryStore(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the store of the project, {@code build/test-history/history.bin}
+     */
+    public static TestHistoryStore shared() {
+        SHARED_LOCK.lock();
+        try {
+            if (shared == null) {
+                shared = open(Paths.get(FrameworkConstants.getTestHistoryFolderPath(), "history.bin"));
+            }
+            return shared;
+        } finally {
+            SHARED_LOCK.unlock();
+        }
+    }
+
+    public static TestHistoryStore open(Path file) {
+        TestHistoryStore store = new TestHistoryStore(file);
+        if (Files.exists(file)) {
+            store.load();
+        } else {
+            store.importLegacy(file.resolveSibling(LEGACY_DURATIONS), file.resolveSibling(LEGACY_OUTCOMES));
+        }
+        return store;
+    }
+
+    /**
+     * Adds a run; it is visible to queries right away and written with the next batch.
+     */
+    public void append(TestRun run) {
+        lock.lock();
+        try {
+            index(run);
+            pending.add(run);
+            if (pending.size() >= BATCH_SIZE) {
+                flush();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void flush() {
+        lock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                Files.createDirectories(file.getParent());
+                ByteArrayOutputStream batch = new ByteArrayOutputStream();
+                if (!Files.exists(file) || Files.size(file) == 0) {
+                    writeHeader(batch);
+                }
+                for (TestRun run : pending) {
+                    writeRecord(batch, run);
+                }
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+                recordsOnDisk += pending.size();
+                pending.clear();
+            } catch (IOException e) {
+                System.err.println("Could not write test history " + file + ": " + e.getMessage());
+                return;
+            }
+            if (recordsOnDisk >= COMPACT_MIN_RECORDS && recordsOnDisk > 2 * retained) {
+                compact();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites the file with only the runs still kept in memory.
+     */
+    public void compact() {
+        lock.lock();
+        try {
+            List<TestRun> runs = new ArrayList<>(retained);
+            runsByTest.values().forEach(runs::addAll);
+            runs.sort(Comparator.comparingLong(TestRun::getStartMillis));
+            Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+            try {
+                Files.createDirectories(file.getParent());
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                writeHeader(content);
+                for (TestRun run : runs) {
+                    writeRecord(content, run);
+                }
+                Files.write(compacted, content.toByteArray());
+                Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                System.out.println("Compacted test history from " + recordsOnDisk + " to " + runs.size() + " records");
+                recordsOnDisk = runs.size();
+                // runs still pending were written by the compaction
+                pending.clear();
+            } catch (IOException e) {
+                System.err.println("Could not compact test history " + file + ": " + e.getMessage());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the kept runs of the test, oldest first
+     */
+    public List<TestRun> runs(String testId) {
+        lock.lock();
+        try {
+            Deque<TestRun> runs = runsByTest.get(testId);
+            return runs == null ? Collections.emptyList() : new ArrayList<>(runs);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the last {@code limit} runs of the test, oldest first
+     */
+    public List<TestRun> runs(String testId, int limit) {
+        lock.lock();
+        try {
+            List<TestRun> runs = runs(testId);
+            return runs.size() <= limit ? runs : runs.subList(runs.size() - limit, runs.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Set<String> testIds() {
+        lock.lock();
+        try {
+            return new TreeSet<>(runsByTest.keySet());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the ids of the kept runs, oldest first
+     */
+    public List<Long> runIds() {
+        lock.lock();
+        try {
+            TreeSet<Long> runIds = new TreeSet<>();
+            runsByTest.values().forEach(runs -> runs.forEach(run -> runIds.add(run.getRunId())));
+            return new ArrayList<>(runIds);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the tests executed by one run, in execution order
+     */
+    public List<TestRun> run(long runId) {
+        lock.lock();
+        try {
+            List<TestRun> runs = new ArrayList<>();
+            runsByTest.values().forEach(testRuns -> testRuns.stream().filter(run -> run.getRunId() == runId).forEach(runs::add));
+            runs.sort(Comparator.comparingLong(TestRun::getStartMillis));
+            return runs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the kept runs that failed with the given fingerprint, oldest first
+     */
+    public List<TestRun> failures(String fingerprint) {
+        lock.lock();
+        try {
+            List<TestRun> runs = new ArrayList<>();
+            runsByTest.values().forEach(testRuns -> testRuns.stream().filter(run -> fingerprint.equals(run.getFingerprint())).forEach(runs::add));
+            runs.sort(Comparator.comparingLong(TestRun::getStartMillis));
+            return runs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void index(TestRun run) {
+        Deque<TestRun> runs = runsByTest.computeIfAbsent(run.getTestId(), testId -> new ArrayDeque<>());
+        runs.addLast(run);
+        retained++;
+        if (runs.size() > KEEP_PER_TEST) {
+            runs.removeFirst();
+            retained--;
+        }
+    }
+
+    private void load() {
+        long validBytes = 0;
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                Path unreadable = file.resolveSibling(file.getFileName() + ".unreadable");
+                System.err.println("Unknown test history format, moving " + file + " to " + unreadable);
+                Files.move(file, unreadable, StandardCopyOption.REPLACE_EXISTING);
+                return;
+            }
+            validBytes = HEADER_BYTES;
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if (in.readInt() != (int) crc.getValue()) {
+                    break;
+                }
+                TestRun run = readRun(payload);
+                if (run == null) {
+                    break;
+                }
+                index(run);
+                recordsOnDisk++;
+                validBytes += 8 + length;
+            }
+        } catch (EOFException e) {
+            // record torn by a killed run, cut off below
+        } catch (IOException e) {
+            System.err.println("Could not read test history " + file + ": " + e.getMessage());
+            return;
+        }
+        truncate(validBytes);
+    }
+
+    private void truncate(long validBytes) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            if (channel.size() > validBytes) {
+                System.err.println("Dropping " + (channel.size() - validBytes) + " unreadable bytes at the end of " + file);
+                channel.truncate(validBytes);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not repair test history " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static void writeHeader(ByteArrayOutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.flush();
+    }
+
+    private static void writeRecord(ByteArrayOutputStream out, TestRun run) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(96);
+        DataOutputStream fields = new DataOutputStream(payload);
+        fields.writeLong(run.getRunId());
+        fields.writeUTF(run.getTestId());
+        fields.writeByte(run.getStatus().ordinal());
+        fields.writeLong(run.getStartMillis());
+        fields.writeLong(run.getDurationMillis());
+        fields.writeShort(run.getRetries());
+        fields.writeUTF(run.getFingerprint() == null ? "" : run.getFingerprint());
+        fields.flush();
+
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+        data.writeInt((int) crc.getValue());
+        data.flush();
+    }
+
+    /**
+     * @return the run of the payload, or null when its fields don't make sense despite a matching checksum
+     */
+    private static TestRun readRun(byte[] payload) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        try {
+            long runId = in.readLong();
+            String testId = in.readUTF();
+            int status = in.readByte();
+            if (status < 0 || status >= STATUSES.length) {
+                return null;
+            }
+            long startMillis = in.readLong();
+            long durationMillis = in.readLong();
+            int retries = in.readShort();
+            String fingerprint = in.readUTF();
+            return new TestRun(runId, testId, STATUSES[status], startMillis, durationMillis, retries,
+                    fingerprint.isEmpty() ? null : fingerprint);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Turns the JSON history of earlier versions into runs: {@code durations.json} maps each test to its smoothed
+     * duration, {@code flakes.json} to its recent outcomes ({@code P} passed, {@code R} passed after a retry,
+     * {@code F} failed). The outcomes are numbered as runs 1 to 20 ending together, so they stay older than any
+     * real run; a test with a duration but no outcomes gets a single passed run.
+     */
+    private void importLegacy(Path durationsFile, Path outcomesFile) {
+        Map<String, Long> durations = readLegacy(durationsFile, new TypeReference<Map<String, Long>>() {});
+        Map<String, String> outcomes = readLegacy(outcomesFile, new TypeReference<Map<String, String>>() {});
+        if (durations.isEmpty() && outcomes.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            Set<String> testIds = new TreeSet<>(durations.keySet());
+            testIds.addAll(outcomes.keySet());
+            for (String testId : testIds) {
+                String recent = outcomes.getOrDefault(testId, "P");
+                if (recent.length() > LEGACY_RUNS) {
+                    recent = recent.substring(recent.length() - LEGACY_RUNS);
+                }
+                long duration = durations.getOrDefault(testId, 0L);
+                for (int i = 0; i < recent.length(); i++) {
+                    char outcome = recent.charAt(i);
+                    long runId = LEGACY_RUNS - recent.length() + i + 1;
+                    TestRun.Status status = outcome == 'F' ? TestRun.Status.FAILED : TestRun.Status.PASSED;
+                    TestRun run = new TestRun(runId, testId, status, runId, duration, outcome == 'R' ? 1 : 0, null);
+                    index(run);
+                    pending.add(run);
+                }
+            }
+            System.out.println("Importing " + testIds.size() + " tests of history from " + durationsFile.getFileName()
+                    + " and " + outcomesFile.getFileName() + " into " + file);
+            flush();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static <T> Map<String, T> readLegacy(Path file, TypeReference<Map<String, T>> type) {
+        if (!Files.exists(file)) {
+            return Collections.emptyMap();
+        }
+        try {
+            return new ObjectMapper().readValue(file.toFile(), type);
+        } catch (IOException e) {
+            System.err.println("Could not import test history " + file + ": " + e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+}
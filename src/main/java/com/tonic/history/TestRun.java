@@ -0,0 +1,64 @@
+package com.tonic.history;
+
+/**
+ * One execution of a test as kept by the {@link TestHistoryStore}.
+ */
+public class TestRun {
+
+    public enum Status {
+        PASSED,
+        FAILED,
+        SKIPPED
+    }
+
+    private final long runId;
+    private final String testId;
+    private final Status status;
+    private final long startMillis;
+    private final long durationMillis;
+    private final int retries;
+    private final String fingerprint;
+
+    /**
+     * @param runId       start time of the suite the test ran in, shared by all the tests of that run
+     * @param retries     attempts retried before this final outcome
+     * @param fingerprint the {@link com.tonic.failures.FailureFingerprint} of the failure, or null
+     */
+    public TestRun(long runId, String testId, Status status, long startMillis, long durationMillis, int retries, String fingerprint) {
+        this.runId = runId;
+        this.testId = testId;
+        this.status = status;
+        this.startMillis = startMillis;
+        this.durationMillis = durationMillis;
+        this.retries = retries;
+        this.fingerprint = fingerprint;
+    }
+
+    public long getRunId() {
+        return runId;
+    }
+
+    public String getTestId() {
+        return testId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public int getRetries() {
+        return retries;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+}
@@ -0,0 +1,173 @@
+package com.tonic.impact;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the classes a compiled class refers to straight from the constant pool of its class file, without loading
+ * it: the class entries (superclass, interfaces, instantiated and called classes) and the class names in field and
+ * method descriptors and generic signatures.
+ * Only classes of the project ({@code com.tonic}) are kept, and nested classes are folded into their top-level class.
+ */
+public final class ClassFileScanner {
+
+    private ClassFileScanner() {
+    }
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final String PROJECT_PREFIX = "com/tonic/";
+    private static final String TEST_ANNOTATION = "Lorg/testng/annotations/Test;";
+    private static final Pattern DESCRIPTOR_CLASS = Pattern.compile("L(com/tonic/[\\w/$]+)[;<]");
+
+    /**
+     * What a class file tells about one class.
+     */
+    public static class ClassInfo {
+
+        private final String name;
+        private final Set<String> dependencies;
+        private final boolean concrete;
+        private final boolean annotatedTests;
+
+        ClassInfo(String name, Set<String> dependencies, boolean concrete, boolean annotatedTests) {
+            this.name = name;
+            this.dependencies = dependencies;
+            this.concrete = concrete;
+            this.annotatedTests = annotatedTests;
+        }
+
+        /**
+         * @return the binary name of the top-level class, e.g. {@code com.tonic.pages.web.LoginPage}
+         */
+        public String getName() {
+            return name;
+        }
+
+        public Set<String> getDependencies() {
+            return dependencies;
+        }
+
+        public boolean isConcrete() {
+            return concrete;
+        }
+
+        /**
+         * @return whether the class itself uses TestNG's {@code @Test}
+         */
+        public boolean hasAnnotatedTests() {
+            return annotatedTests;
+        }
+    }
+
+    public static ClassInfo scan(Path classFile) throws IOException {
+        try (InputStream stream = Files.newInputStream(classFile);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a class file: " + classFile);
+            }
+            in.readUnsignedShort();
+            in.readUnsignedShort();
+
+            int count = in.readUnsignedShort();
+            String[] utf8 = new String[count];
+            // for class entries, the index of their name
+            int[] classNames = new int[count];
+            for (int i = 1; i < count; i++) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case 1:
+                        utf8[i] = in.readUTF();
+                        break;
+                    case 7:
+                        classNames[i] = in.readUnsignedShort();
+                        break;
+                    case 8:
+                    case 16:
+                    case 19:
+                    case 20:
+                        in.skipBytes(2);
+                        break;
+                    case 15:
+                        in.skipBytes(3);
+                        break;
+                    case 3:
+                    case 4:
+                    case 9:
+                    case 10:
+                    case 11:
+                    case 12:
+                    case 17:
+                    case 18:
+                        in.skipBytes(4);
+                        break;
+                    case 5:
+                    case 6:
+                        in.skipBytes(8);
+                        // longs and doubles take two entries
+                        i++;
+                        break;
+                    default:
+                        throw new IOException("Unknown constant pool tag " + tag + " in " + classFile);
+                }
+            }
+            int accessFlags = in.readUnsignedShort();
+            String thisClass = utf8[classNames[in.readUnsignedShort()]];
+
+            Set<String> dependencies = new TreeSet<>();
+            boolean annotatedTests = false;
+            for (int i = 1; i < count; i++) {
+                if (classNames[i] != 0) {
+                    addProjectClass(dependencies, utf8[classNames[i]]);
+                }
+            }
+            for (String entry : utf8) {
+                if (entry == null) {
+                    continue;
+                }
+                if (entry.equals(TEST_ANNOTATION)) {
+                    annotatedTests = true;
+                }
+                if (entry.indexOf('L') >= 0) {
+                    Matcher matcher = DESCRIPTOR_CLASS.matcher(entry);
+                    while (matcher.find()) {
+                        addProjectClass(dependencies, matcher.group(1));
+                    }
+                }
+            }
+            String name = topLevel(thisClass);
+            dependencies.remove(name);
+            boolean concrete = (accessFlags & (ACC_INTERFACE | ACC_ABSTRACT)) == 0;
+            return new ClassInfo(name, dependencies, concrete, annotatedTests);
+        }
+    }
+
+    /**
+     * @return the top-level binary name of an internal class name, e.g. {@code com/tonic/Foo$1} to {@code com.tonic.Foo}
+     */
+    static String topLevel(String internalName) {
+        String name = internalName.replace('/', '.');
+        int nested = name.indexOf('$');
+        return nested > 0 ? name.substring(0, nested) : name;
+    }
+
+    private static void addProjectClass(Set<String> dependencies, String internalName) {
+        if (internalName == null) {
+            return;
+        }
+        // array class entries look like [Lcom/tonic/Foo;
+        String name = internalName.startsWith("[") ? internalName.substring(internalName.indexOf('L') + 1).replace(";", "") : internalName;
+        if (name.startsWith(PROJECT_PREFIX)) {
+            dependencies.add(topLevel(name));
+        }
+    }
+}
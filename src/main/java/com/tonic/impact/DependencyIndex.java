@@ -0,0 +1,183 @@
+package com.tonic.impact;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Class-level dependency graph of the compiled project, built with {@link ClassFileScanner}.
+ * The scan of each class file is cached with its size and modification time, so after a small change only the
+ * recompiled class files are read again.
+ */
+public class DependencyIndex {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Cached scan of one class file.
+     */
+    public static class Entry {
+        public String className;
+        public long size;
+        public long lastModified;
+        public boolean topLevel;
+        public boolean concrete;
+        public boolean annotatedTests;
+        public Set<String> dependencies = new TreeSet<>();
+    }
+
+    private final Map<String, Entry> entries;
+    private final Map<String, Set<String>> dependencies = new HashMap<>();
+    private final Map<String, Set<String>> dependents = new HashMap<>();
+    private int scanned;
+
+    private DependencyIndex(Map<String, Entry> entries) {
+        this.entries = entries;
+        for (Entry entry : entries.values()) {
+            dependencies.computeIfAbsent(entry.className, name -> new TreeSet<>()).addAll(entry.dependencies);
+            for (String dependency : entry.dependencies) {
+                dependents.computeIfAbsent(dependency, name -> new TreeSet<>()).add(entry.className);
+            }
+        }
+    }
+
+    /**
+     * Scans the class directories, reusing the cached scan of the class files that didn't change, and updates the cache.
+     */
+    public static DependencyIndex build(List<Path> classDirectories, Path cacheFile) throws IOException {
+        Map<String, Entry> cached = readCache(cacheFile);
+        Map<String, Entry> entries = new TreeMap<>();
+        int scanned = 0;
+        for (Path directory : classDirectories) {
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+            List<Path> classFiles;
+            try (Stream<Path> files = Files.walk(directory)) {
+                classFiles = files.filter(file -> file.toString().endsWith(".class")).collect(Collectors.toList());
+            }
+            for (Path classFile : classFiles) {
+                String key = classFile.toAbsolutePath().normalize().toString();
+                long size = Files.size(classFile);
+                long lastModified = Files.getLastModifiedTime(classFile).toMillis();
+                Entry entry = cached.get(key);
+                if (entry == null || entry.size != size || entry.lastModified != lastModified) {
+                    entry = scan(classFile, size, lastModified);
+                    scanned++;
+                }
+                entries.put(key, entry);
+            }
+        }
+        Files.createDirectories(cacheFile.getParent());
+        MAPPER.writeValue(cacheFile.toFile(), entries);
+
+        DependencyIndex index = new DependencyIndex(entries);
+        index.scanned = scanned;
+        return index;
+    }
+
+    /**
+     * @return how many class files had to be read because they were new or changed since the cached scan
+     */
+    public int getScanned() {
+        return scanned;
+    }
+
+    public Set<String> classNames() {
+        return new TreeSet<>(dependencies.keySet());
+    }
+
+    /**
+     * @return the concrete classes in the package that declare TestNG tests
+     */
+    public Set<String> testClasses(String packagePrefix) {
+        Set<String> testClasses = new TreeSet<>();
+        for (Entry entry : entries.values()) {
+            if (entry.topLevel && entry.concrete && entry.className.startsWith(packagePrefix) && declaresTests(entry.className)) {
+                testClasses.add(entry.className);
+            }
+        }
+        return testClasses;
+    }
+
+    /**
+     * @return the classes the class depends on, directly or not
+     */
+    public Set<String> transitiveDependencies(String className) {
+        return walk(className, dependencies);
+    }
+
+    /**
+     * @return the classes that depend on any of the given classes, directly or not, including the given classes
+     */
+    public Set<String> affectedBy(Collection<String> changedClasses) {
+        Set<String> affected = new TreeSet<>();
+        for (String changed : changedClasses) {
+            affected.add(changed);
+            affected.addAll(walk(changed, dependents));
+        }
+        return affected;
+    }
+
+    private boolean declaresTests(String className) {
+        // tests may be declared by an abstract base class, like the web BaseTest
+        if (entries.values().stream().anyMatch(entry -> entry.className.equals(className) && entry.annotatedTests)) {
+            return true;
+        }
+        return transitiveDependencies(className).stream()
+                .anyMatch(dependency -> entries.values().stream().anyMatch(entry -> entry.className.equals(dependency) && entry.annotatedTests
+                        && !entry.concrete));
+    }
+
+    private static Set<String> walk(String start, Map<String, Set<String>> edges) {
+        Set<String> visited = new TreeSet<>();
+        Deque<String> queue = new ArrayDeque<>(edges.getOrDefault(start, new TreeSet<>()));
+        while (!queue.isEmpty()) {
+            String next = queue.poll();
+            if (!next.equals(start) && visited.add(next)) {
+                queue.addAll(edges.getOrDefault(next, new TreeSet<>()));
+            }
+        }
+        return visited;
+    }
+
+    private static Entry scan(Path classFile, long size, long lastModified) throws IOException {
+        ClassFileScanner.ClassInfo info = ClassFileScanner.scan(classFile);
+        Entry entry = new Entry();
+        entry.className = info.getName();
+        entry.size = size;
+        entry.lastModified = lastModified;
+        entry.topLevel = !classFile.getFileName().toString().contains("$");
+        entry.concrete = info.isConcrete();
+        entry.annotatedTests = info.hasAnnotatedTests();
+        entry.dependencies.addAll(info.getDependencies());
+        return entry;
+    }
+
+    private static Map<String, Entry> readCache(Path cacheFile) {
+        if (!Files.exists(cacheFile)) {
+            return new LinkedHashMap<>();
+        }
+        try {
+            return MAPPER.readValue(cacheFile.toFile(), new TypeReference<Map<String, Entry>>() {});
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable dependency cache " + cacheFile + ": " + e.getMessage());
+            return new LinkedHashMap<>();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.tonic.impact;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Files changed in the working tree compared with a git revision, committed or not, including untracked files.
+ */
+public final class GitChanges {
+
+    private GitChanges() {
+    }
+
+    private static final long GIT_TIMEOUT_SECONDS = 60;
+
+    /**
+     * @return the changed paths, relative to the root of the repository
+     * @throws IOException when git is missing or the revision is unknown
+     */
+    public static Set<String> since(String revision) throws IOException {
+        Set<String> changed = new TreeSet<>();
+        changed.addAll(git("diff", "--name-only", revision, "--"));
+        changed.addAll(git("ls-files", "--others", "--exclude-standard"));
+        return changed;
+    }
+
+    /**
+     * @return the class a Java source file declares, e.g. {@code src/test/java/com/tonic/pages/web/LoginPage.java}
+     * to {@code com.tonic.pages.web.LoginPage}, or null when the path is not a Java source under a source root
+     */
+    public static String sourceToClass(String path) {
+        String normalized = path.replace('\\', '/');
+        int root = normalized.indexOf("/java/");
+        if (!normalized.endsWith(".java") || !normalized.startsWith("src/") || root < 0) {
+            return null;
+        }
+        return normalized.substring(root + "/java/".length(), normalized.length() - ".java".length()).replace('/', '.');
+    }
+
+    private static List<String> git(String... arguments) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(List.of(arguments));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    lines.add(line.trim());
+                }
+            }
+        }
+        try {
+            if (!process.waitFor(GIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("git " + String.join(" ", arguments) + " timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running git", e);
+        }
+        if (process.exitValue() != 0) {
+            throw new IOException("git " + String.join(" ", arguments) + " failed: " + String.join(" ", lines));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,111 @@
+package com.tonic.impact;
+
+import com.tonic.constants.FrameworkConstants;
+import org.testng.xml.Parser;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Test impact analysis: generates a copy of a TestNG suite that keeps only the test classes affected by the
+ * changes since a git revision.
+ * <p>
+ * A test class is affected when it depends, directly or through page objects, actions, the framework or its
+ * base class, on a changed class. Changes the bytecode can't follow (resources, test data, the pom, or a class
+ * the suite listeners depend on) keep the whole suite. Documentation outside {@code src/} is ignored.
+ * <p>
+ * Usage: {@code ImpactSuiteGenerator [template suite] [generated suite] [git revision]}, see the {@code impact}
+ * Maven profile.
+ */
+public final class ImpactSuiteGenerator {
+
+    private ImpactSuiteGenerator() {
+    }
+
+    private static final String DEFAULT_TEMPLATE = "src/test/resources/testrunners/testng.xml";
+    private static final String DEFAULT_REVISION = "HEAD";
+    private static final String TEST_PACKAGE = "com.tonic.tests.";
+    private static final List<Path> CLASS_DIRECTORIES = List.of(Paths.get("target/classes"), Paths.get("target/test-classes"));
+
+    public static void main(String[] args) throws IOException {
+        Path template = Paths.get(args.length > 0 ? args[0] : DEFAULT_TEMPLATE);
+        Path output = args.length > 1 ? Paths.get(args[1]) : Paths.get(FrameworkConstants.getBuildFolderPath(), "impact", "testng-impacted.xml");
+        String revision = args.length > 2 && !args[2].isBlank() ? args[2] : DEFAULT_REVISION;
+
+        XmlSuite suite = new Parser(template.toString()).parseToList().get(0);
+        String fullRunReason;
+        Set<String> changed = new TreeSet<>();
+        try {
+            changed = GitChanges.since(revision);
+            fullRunReason = null;
+        } catch (IOException e) {
+            fullRunReason = "changes since " + revision + " unknown (" + e.getMessage() + ")";
+        }
+
+        Set<String> changedClasses = new TreeSet<>();
+        for (String path : changed) {
+            String className = GitChanges.sourceToClass(path);
+            if (className != null) {
+                changedClasses.add(className);
+            } else if (fullRunReason == null && (path.startsWith("src/") || path.equals("pom.xml"))) {
+                fullRunReason = path + " changed";
+            }
+        }
+
+        Path cache = output.resolveSibling("dependencies.json");
+        DependencyIndex index = DependencyIndex.build(CLASS_DIRECTORIES, cache);
+        System.out.println("Dependency index: " + index.classNames().size() + " classes, " + index.getScanned()
+                + " class file(s) scanned, the rest cached in " + cache);
+
+        Set<String> affected = index.affectedBy(changedClasses);
+        if (fullRunReason == null) {
+            for (String listener : suite.getListeners()) {
+                if (affected.contains(listener)) {
+                    fullRunReason = "suite listener " + listener + " affected";
+                    break;
+                }
+            }
+        }
+
+        if (fullRunReason != null) {
+            System.out.println("Running the whole suite: " + fullRunReason);
+        } else {
+            Set<String> selected = new TreeSet<>(affected);
+            selected.retainAll(index.testClasses(TEST_PACKAGE));
+            System.out.println("Changed classes since " + revision + ": " + (changedClasses.isEmpty() ? "none" : String.join(", ", changedClasses)));
+            System.out.println("Affected test classes: " + (selected.isEmpty() ? "none" : String.join(", ", selected)));
+            keepOnly(suite, selected);
+        }
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Files.write(output, suite.toXml().getBytes(StandardCharsets.UTF_8));
+        System.out.println("Generated " + output + " with " + suite.getTests().size() + " of the tests of " + template);
+    }
+
+    private static void keepOnly(XmlSuite suite, Set<String> testClasses) {
+        List<XmlTest> kept = new ArrayList<>();
+        for (XmlTest test : suite.getTests()) {
+            List<XmlClass> classes = new ArrayList<>();
+            for (XmlClass xmlClass : test.getXmlClasses()) {
+                if (testClasses.contains(xmlClass.getName())) {
+                    classes.add(xmlClass);
+                }
+            }
+            if (!classes.isEmpty()) {
+                test.setXmlClasses(classes);
+                kept.add(test);
+            }
+        }
+        suite.setTests(kept);
+    }
+}
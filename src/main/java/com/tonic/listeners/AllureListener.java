@@ -1,6 +1,11 @@
 package com.tonic.listeners;
 
 import com.microsoft.playwright.Page;
+import com.tonic.artifacts.ArtifactStore;
+import com.tonic.diagnostics.BrowserLogs;
+import com.tonic.diagnostics.DomSnapshots;
+import com.tonic.factory.PlaywrightFactory;
+import com.tonic.metrics.Metrics;
 import com.tonic.utils.AllureScreenshotUtil;
 import io.qameta.allure.Allure;
 import io.qameta.allure.Attachment;
@@ -15,7 +20,6 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 public class AllureListener implements ITestListener {
     
@@ -27,10 +31,15 @@ public class AllureListener implements ITestListener {
     
     @Override
     public void onStart(ITestContext iTestContext) {
-        System.out.println("Starting test execution: " + iTestContext.getName());
-        
-        // Add environment information to Allure report
-        addEnvironmentInfo();
+        long start = Metrics.start();
+        try {
+            System.out.println("Starting test execution: " + iTestContext.getName());
+
+            // Add environment information to Allure report
+            addEnvironmentInfo();
+        } finally {
+            Metrics.stop("listener.allure.onStart", start);
+        }
     }
 
     @Override
@@ -45,30 +54,42 @@ public class AllureListener implements ITestListener {
 
     @Override
     public void onTestSuccess(ITestResult iTestResult) {
-        System.out.println("Test succeeded: " + getTestMethodName(iTestResult));
-        // Get the page object from the test instance if available
-        Page page = getPageFromTestInstance(iTestResult);
-        if (page != null) {
-            takeScreenshot(page, "Test PASSED: " + getTestMethodName(iTestResult));
-            
-            // Collect and attach browser logs if available
-            attachBrowserLogs(iTestResult);
+        long start = Metrics.start();
+        try {
+            System.out.println("Test succeeded: " + getTestMethodName(iTestResult));
+            // Get the page object from the test instance if available
+            Page page = getPageFromTestInstance(iTestResult);
+            if (page != null) {
+                takeScreenshot(page, "Test PASSED: " + getTestMethodName(iTestResult));
+
+                // Browser logs of passed tests are only attached for a sample of them
+                if (BrowserLogs.shouldReportPass()) {
+                    attachBrowserLogs(iTestResult);
+                }
+            }
+        } finally {
+            Metrics.stop("listener.allure.onTestSuccess", start);
         }
     }
 
     @Override
     public void onTestFailure(ITestResult iTestResult) {
-        System.out.println("Test failed: " + getTestMethodName(iTestResult));
-        // Get the page object from the test instance if available
-        Page page = getPageFromTestInstance(iTestResult);
-        if (page != null) {
-            takeScreenshot(page, "Test FAILED: " + getTestMethodName(iTestResult));
-            
-            // Collect and attach browser logs if available
-            attachBrowserLogs(iTestResult);
-            
-            // Capture and attach HTML source of the page
-            attachPageSource(page, iTestResult);
+        long start = Metrics.start();
+        try {
+            System.out.println("Test failed: " + getTestMethodName(iTestResult));
+            // Get the page object from the test instance if available
+            Page page = getPageFromTestInstance(iTestResult);
+            if (page != null) {
+                takeScreenshot(page, "Test FAILED: " + getTestMethodName(iTestResult));
+
+                // Collect and attach browser logs if available
+                attachBrowserLogs(iTestResult);
+
+                // Capture and attach HTML source of the page
+                attachPageSource(page, iTestResult);
+            }
+        } finally {
+            Metrics.stop("listener.allure.onTestFailure", start);
         }
     }
 
@@ -83,39 +104,21 @@ public class AllureListener implements ITestListener {
     }
     
     /**
-     * Helper method to get the Page object from test instance
+     * Helper method to get the Page object of the test; pages belong to the test's thread, not to the test instance
      */
     private Page getPageFromTestInstance(ITestResult iTestResult) {
-        try {
-            Object testInstance = iTestResult.getInstance();
-            // Check if the test instance has a 'page' field
-            java.lang.reflect.Field pageField = testInstance.getClass().getDeclaredField("page");
-            pageField.setAccessible(true);
-            return (Page) pageField.get(testInstance);
-        } catch (Exception e) {
-            System.err.println("Could not get page from test instance: " + e.getMessage());
-            return null;
-        }
+        Page page = PlaywrightFactory.getPage();
+        return page == null || page.isClosed() ? null : page;
     }
 
     @Attachment(value = "Screenshot on {1}", type = "image/png")
     public byte[] takeScreenshot(Page page, String methodName) {
         try {
-            String screenshotName = methodName + "_" + UUID.randomUUID().toString() + ".png";
-            String screenshotPath = System.getProperty("user.dir") + "/screenshots/" + screenshotName;
-            
-            // Create screenshots directory if it doesn't exist
-            Path screenshotsDir = Paths.get(System.getProperty("user.dir") + "/screenshots/");
-            if (!Files.exists(screenshotsDir)) {
-                Files.createDirectories(screenshotsDir);
-            }
-            
             // Take screenshot using Playwright
             byte[] screenshot = page.screenshot(new Page.ScreenshotOptions()
-                    .setPath(Paths.get(screenshotPath))
                     .setFullPage(true));
             
-            System.out.println("Screenshot saved to: " + screenshotPath);
+            System.out.println("Screenshot of " + methodName + " stored as " + ArtifactStore.shared().put(screenshot, "image/png"));
             return screenshot;
         } catch (Exception e) {
             System.err.println("Error taking screenshot: " + e.getMessage());
@@ -155,7 +158,10 @@ public class AllureListener implements ITestListener {
      */
     private void attachBrowserLogs(ITestResult iTestResult) {
         try {
-            String logs = "Browser logs would be captured here if available";
+            String logs = BrowserLogs.text();
+            if (logs.isEmpty()) {
+                return;
+            }
             Allure.addAttachment("Browser Logs", "text/plain", new ByteArrayInputStream(logs.getBytes(StandardCharsets.UTF_8)), ".txt");
         } catch (Exception e) {
             System.err.println("Error attaching browser logs: " + e.getMessage());
@@ -163,12 +169,17 @@ public class AllureListener implements ITestListener {
     }
     
     /**
-     * Capture and attach the page source
+     * Capture the page source at the failure and attach it, with the timeline of the snapshots of the test
      */
     private void attachPageSource(Page page, ITestResult iTestResult) {
         try {
-            String pageSource = page.content();
+            DomSnapshots.capture("failure");
+            String pageSource = DomSnapshots.renderLast();
+            if (pageSource == null) {
+                return;
+            }
             Allure.addAttachment("Page Source", "text/html", new ByteArrayInputStream(pageSource.getBytes(StandardCharsets.UTF_8)), ".html");
+            Allure.addAttachment("Page Source Timeline", "text/plain", new ByteArrayInputStream(DomSnapshots.timeline().getBytes(StandardCharsets.UTF_8)), ".txt");
         } catch (Exception e) {
             System.err.println("Error attaching page source: " + e.getMessage());
         }
@@ -0,0 +1,137 @@
+package com.tonic.listeners;
+
+import com.tonic.driver.CapabilityProfiles;
+import com.tonic.driver.EndpointRegistry;
+import com.tonic.enums.FailureCategory;
+import com.tonic.exceptions.FrameworkException;
+import com.tonic.factory.PlaywrightFactory;
+import com.tonic.failures.FailureClassifier;
+import com.tonic.healthCheck.EnvironmentGuard;
+import com.tonic.utils.TestDataReader;
+import org.json.simple.JSONObject;
+import org.testng.IConfigurationListener;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.SkipException;
+import org.testng.xml.XmlTest;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Probes the targets of the suite before it starts (the application URL for web suites, the Sauce Labs hub or
+ * the local Appium server for mobile suites) and feeds the {@link EnvironmentGuard} circuit breaker with the
+ * outcome of every test, skipping tests while the breaker is open.
+ */
+public class CircuitBreakerListener implements ISuiteListener, ITestListener, IInvokedMethodListener, IConfigurationListener {
+
+    private static final String WEB_CONFIG = "./src/test/resources/config/config.properties";
+
+    @Override
+    public void onStart(ISuite suite) {
+        if (!EnvironmentGuard.isEnabled()) {
+            return;
+        }
+        // a suite may mix web and mobile <test>s, or run several devices; each target is probed once
+        Set<String> devices = new LinkedHashSet<>();
+        boolean web = false;
+        for (XmlTest test : suite.getXmlSuite().getTests()) {
+            String device = test.getParameter("device");
+            if (device == null) {
+                web = true;
+            } else {
+                devices.add(device.trim());
+            }
+        }
+        if (web) {
+            registerWebTarget();
+        }
+        devices.forEach(this::registerMobileTarget);
+        EnvironmentGuard.checkBeforeSuite();
+    }
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        ITestNGMethod testMethod = method.getTestMethod();
+        if (testMethod.isTest() || testMethod.isBeforeMethodConfiguration()) {
+            String reason = EnvironmentGuard.check();
+            if (reason != null) {
+                throw new SkipException("Environment unavailable, circuit breaker open: " + reason);
+            }
+        }
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        EnvironmentGuard.recordHealthy();
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        record(result);
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        // a failed attempt that is retried is reported as skipped
+        if (result.wasRetried()) {
+            record(result);
+        }
+    }
+
+    @Override
+    public void onConfigurationFailure(ITestResult result) {
+        record(result);
+    }
+
+    private void record(ITestResult result) {
+        Throwable throwable = result.getThrowable();
+        if (throwable != null && FailureClassifier.classify(throwable) == FailureCategory.INFRASTRUCTURE) {
+            EnvironmentGuard.recordInfrastructureFailure(result.getMethod().getQualifiedName() + ": " + throwable);
+        } else {
+            // the application answered, even if wrongly
+            EnvironmentGuard.recordHealthy();
+        }
+    }
+
+    private void registerWebTarget() {
+        if (!Files.exists(Paths.get(WEB_CONFIG))) {
+            return;
+        }
+        Properties prop = new PlaywrightFactory().init_prop();
+        if (prop != null && prop.getProperty("url") != null) {
+            EnvironmentGuard.register("application", URI.create(prop.getProperty("url").trim()));
+        }
+    }
+
+    private void registerMobileTarget(String device) {
+        String runMode = "local";
+        try {
+            Object configuration = TestDataReader.readJson("configuration").get("configuration");
+            if (configuration instanceof JSONObject && ((JSONObject) configuration).get("runMode") != null) {
+                runMode = String.valueOf(((JSONObject) configuration).get("runMode"));
+            }
+        } catch (Exception e) {
+            System.out.println("Unable to read the run mode, probing the local Appium server: " + e.getMessage());
+        }
+        // the server the sessions of the device will be created on
+        String endpoint;
+        try {
+            endpoint = CapabilityProfiles.get(device, runMode).getEndpoint();
+        } catch (FrameworkException e) {
+            System.err.println("Not probing the Appium server of " + device + ": " + e.getMessage());
+            return;
+        }
+        EnvironmentGuard.register(EndpointRegistry.SAUCE_LABS.equals(endpoint) ? "Sauce Labs hub" : "Appium server " + endpoint,
+                URI.create(EndpointRegistry.uri(endpoint) + "/status"));
+    }
+}
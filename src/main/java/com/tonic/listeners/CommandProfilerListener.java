@@ -0,0 +1,63 @@
+package com.tonic.listeners;
+
+import com.tonic.constants.FrameworkConstants;
+import com.tonic.profiler.CommandProfiler;
+import io.qameta.allure.Allure;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Scopes the {@link CommandProfiler} to each test, reports redundant element lookups and writes
+ * the command profile of the suite to {@code build/metrics/appium-commands.json}.
+ */
+public class CommandProfilerListener implements ITestListener, ISuiteListener {
+
+    @Override
+    public void onTestStart(ITestResult result) {
+        CommandProfiler.beginTest(result.getMethod().getQualifiedName());
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        endTest();
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        endTest();
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        endTest();
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (!CommandProfiler.isEnabled()) {
+            return;
+        }
+        Path report = Paths.get(FrameworkConstants.getMetricsFolderPath(), "appium-commands.json");
+        try {
+            CommandProfiler.writeReport(report);
+            System.out.println("Appium command profile written to: " + report);
+        } catch (IOException e) {
+            System.err.println("Error writing Appium command profile: " + e.getMessage());
+        }
+    }
+
+    private void endTest() {
+        List<String> findings = CommandProfiler.endTest();
+        if (!findings.isEmpty()) {
+            findings.forEach(finding -> System.out.println("Redundant lookup: " + finding));
+            Allure.addAttachment("Redundant Element Lookups", String.join("\n", findings));
+        }
+    }
+}
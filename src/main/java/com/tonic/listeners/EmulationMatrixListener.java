@@ -0,0 +1,168 @@
+package com.tonic.listeners;
+
+import com.tonic.constants.FrameworkConstants;
+import com.tonic.emulation.DeviceDescriptor;
+import com.tonic.emulation.Emulation;
+import com.tonic.emulation.MatrixReport;
+import com.tonic.enums.ConfigProperties;
+import com.tonic.factory.PlaywrightFactory;
+import com.tonic.utils.PropertyBuilder;
+import org.testng.IAlterSuiteListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Runs every web {@code <test>} of the suite on a matrix of browsers ({@code matrixbrowsers}), screens (the viewports
+ * of {@code matrixviewports} and the devices of {@code matrixdevices}) and locales ({@code matrixlocales}). Each cell
+ * becomes a {@code <test>} of its own, named after the cell and run in parallel with the others on
+ * {@code matrixthreads} workers. The emulation of a cell is a set of context options, so the cells of a browser share
+ * the browser of their worker thread instead of launching their own; the browsers are closed with the suite. A cell
+ * running its methods in parallel ({@code parallelmode=methods}) gets threads of its own from TestNG, so it closes
+ * its browsers when it ends instead.
+ * <p>
+ * Devices that can't run on a browser (phones on Firefox) are left out. When the suite ends, the results are written
+ * to {@code build/matrix/matrix.html} and {@code matrix.json}. With every matrix key empty (the default) the suite
+ * runs as written. Must be registered in the suite XML after {@link ParallelSuiteListener}, whose settings the cells
+ * keep, and before {@link SuiteBootstrapListener}, which prelaunches their browsers.
+ */
+public class EmulationMatrixListener implements IAlterSuiteListener, ISuiteListener {
+
+    private static final String DEFAULT_BROWSER = "chrome";
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        List<String> browsers = list(setting("matrixbrowsers", ConfigProperties.MATRIXBROWSERS));
+        List<String> viewports = list(setting("matrixviewports", ConfigProperties.MATRIXVIEWPORTS));
+        List<String> devices = list(setting("matrixdevices", ConfigProperties.MATRIXDEVICES));
+        List<String> locales = list(setting("matrixlocales", ConfigProperties.MATRIXLOCALES));
+        if (browsers.isEmpty() && viewports.isEmpty() && devices.isEmpty() && locales.isEmpty()) {
+            return;
+        }
+        int configured = Integer.parseInt(setting("matrixthreads", ConfigProperties.MATRIXTHREADS));
+        int workers = configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+
+        List<Emulation> emulations = new ArrayList<>();
+        for (String locale : locales.isEmpty() ? Collections.<String>singletonList(null) : locales) {
+            for (String viewport : viewports) {
+                emulations.add(new Emulation(viewport, null, locale));
+            }
+            for (String device : devices) {
+                emulations.add(new Emulation(null, device, locale));
+            }
+            if (viewports.isEmpty() && devices.isEmpty()) {
+                emulations.add(new Emulation(null, null, locale));
+            }
+        }
+
+        for (XmlSuite suite : suites) {
+            List<XmlTest> tests = new ArrayList<>();
+            Set<String> unsupported = new TreeSet<>();
+            int cells = 0;
+            for (XmlTest test : new ArrayList<>(suite.getTests())) {
+                if (!"web".equalsIgnoreCase(test.getParameter("platform"))) {
+                    tests.add(test);
+                    continue;
+                }
+                String testBrowser = test.getParameter("browser") == null ? DEFAULT_BROWSER : test.getParameter("browser").trim();
+                // grouped by browser, so a worker thread mostly keeps the browser it has
+                for (String browser : browsers.isEmpty() ? Collections.singletonList(testBrowser) : browsers) {
+                    for (Emulation emulation : emulations) {
+                        if (emulation.getDevice() != null && !DeviceDescriptor.get(emulation.getDevice()).supports(browser)) {
+                            unsupported.add(emulation.getDevice() + " on " + browser);
+                            continue;
+                        }
+                        tests.add(cell(test, browser, emulation));
+                        cells++;
+                    }
+                }
+            }
+            if (!unsupported.isEmpty()) {
+                System.out.println("Matrix leaves out what the browsers can't emulate: " + String.join(", ", unsupported));
+            }
+            if (cells == 0) {
+                continue;
+            }
+            for (int i = 0; i < tests.size(); i++) {
+                tests.get(i).setIndex(i);
+            }
+            suite.setTests(tests);
+            suite.setParallel(XmlSuite.ParallelMode.TESTS);
+            suite.setThreadCount(Math.max(suite.getThreadCount(), workers));
+            System.out.println("Suite '" + suite.getName() + "' runs its web tests on a matrix of " + cells
+                    + " cell(s), " + suite.getThreadCount() + " at a time");
+        }
+    }
+
+    private static XmlTest cell(XmlTest test, String browser, Emulation emulation) {
+        String label = browser + " | " + emulation;
+        // the clone takes the name, parameters and the resolved parallel settings of the test
+        XmlTest cell = (XmlTest) test.clone();
+        cell.setName(test.getName() + " [" + label + "]");
+        Map<String, String> parameters = new HashMap<>(test.getLocalParameters());
+        parameters.put("browser", browser);
+        put(parameters, Emulation.VIEWPORT, emulation.getViewport());
+        put(parameters, Emulation.DEVICE, emulation.getDevice());
+        put(parameters, Emulation.LOCALE, emulation.getLocale());
+        parameters.put(Emulation.CELL, label);
+        cell.setParameters(parameters);
+        List<XmlClass> classes = new ArrayList<>();
+        for (XmlClass xmlClass : test.getXmlClasses()) {
+            XmlClass copy = (XmlClass) xmlClass.clone();
+            copy.setXmlTest(cell);
+            classes.add(copy);
+        }
+        cell.setXmlClasses(classes);
+        return cell;
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        MatrixReport report = MatrixReport.of(suite);
+        if (report.isEmpty()) {
+            return;
+        }
+        // the cells left their browsers open for each other
+        PlaywrightFactory.closeAllBrowsers();
+        Path folder = Paths.get(FrameworkConstants.getBuildFolderPath(), "matrix");
+        try {
+            report.write(folder);
+        } catch (IOException e) {
+            System.err.println("Error writing the emulation matrix report: " + e.getMessage());
+        }
+        report.printSummary();
+        System.out.println("Emulation matrix report: " + folder.resolve("matrix.html"));
+    }
+
+    private static void put(Map<String, String> parameters, String name, String value) {
+        if (value != null) {
+            parameters.put(name, value);
+        }
+    }
+
+    private static List<String> list(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static String setting(String systemProperty, ConfigProperties key) {
+        return System.getProperty(systemProperty) == null ? PropertyBuilder.getPropValue(key) : System.getProperty(systemProperty);
+    }
+}
@@ -8,25 +8,37 @@ import java.nio.file.Paths;
 import java.util.Calendar;
 import java.util.Date;
 
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
 import org.testng.ITestContext;
 import org.testng.ITestListener;
 import org.testng.ITestResult;
 
 import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
-import com.aventstack.extentreports.MediaEntityBuilder;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
-import static com.tonic.factory.PlaywrightFactory.takeScreenshot;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+import com.tonic.artifacts.Artifact;
+import com.tonic.failures.FailureCluster;
+import com.tonic.failures.FailureClusterer;
+import com.tonic.metrics.Metrics;
+import com.tonic.utils.ExtentReport;
+import com.tonic.utils.ReportAttachments;
 
-public class ExtentReportListener implements ITestListener {
+import static com.tonic.factory.PlaywrightFactory.captureScreenshot;
+
+public class ExtentReportListener implements ITestListener, ISuiteListener {
 
 	// Use absolute paths to ensure the directory is created properly
 	private static final String OUTPUT_FOLDER = System.getProperty("user.dir") + File.separator + "build" + File.separator;
 	private static final String FILE_NAME = "TestExecutionReport"+System.currentTimeMillis()+".html";
+	// the screenshots are linked relative to this file, not to the report of ExtentReport
+	private static final Path REPORT = Paths.get(OUTPUT_FOLDER, FILE_NAME);
 
-	// Changed from static initialization to per-test-run initialization
+	// One report for the whole run, shared by the <test>s; the current test is kept per thread so that
+	// parallel="methods" and parallel="tests" don't log into each other's nodes
 	private ExtentReports extent;
-	private ExtentTest test;
+	private final ThreadLocal<ExtentTest> currentTest = new ThreadLocal<>();
 	
 	// Initialize the report when the test suite starts
 	private ExtentReports initReports() {
@@ -74,89 +86,157 @@ public class ExtentReportListener implements ITestListener {
 
 	@Override
 	public void onStart(ITestContext context) {
-		System.out.println("Test Suite started!");
-		// Create a new report for each test run
-		extent = initReports();
+		long start = Metrics.start();
+		try {
+			System.out.println("Test Suite started!");
+			synchronized (this) {
+				if (extent == null) {
+					extent = initReports();
+				}
+			}
+		} finally {
+			Metrics.stop("listener.extent.onStart", start);
+		}
 	}
 
 	@Override
 	public void onFinish(ITestContext context) {
-		System.out.println("Test Suite is ending!");
-		if (extent != null) {
-			extent.flush();
-			System.out.println("ExtentReports saved to: " + OUTPUT_FOLDER + FILE_NAME);
+		long start = Metrics.start();
+		try {
+			System.out.println("Test Suite is ending!");
+			synchronized (this) {
+				if (extent != null) {
+					extent.flush();
+					System.out.println("ExtentReports saved to: " + OUTPUT_FOLDER + FILE_NAME);
+				}
+			}
+		} finally {
+			Metrics.stop("listener.extent.onFinish", start);
+		}
+	}
+
+	@Override
+	public void onFinish(ISuite suite) {
+		synchronized (this) {
+			if (extent != null) {
+				ExtentReport.addFailureClusters(extent);
+				extent.flush();
+			}
 		}
 	}
 
 	@Override
 	public void onTestStart(ITestResult result) {
-		String methodName = result.getMethod().getMethodName();
-		String qualifiedName = result.getMethod().getQualifiedName();
-		int last = qualifiedName.lastIndexOf(".");
-		int mid = qualifiedName.substring(0, last).lastIndexOf(".");
-		String className = qualifiedName.substring(mid + 1, last);
-
-		System.out.println(methodName + " started!");
-		test = extent.createTest(result.getMethod().getMethodName(),
-				result.getMethod().getDescription());
-
-		test.assignCategory(result.getTestContext().getSuite().getName());
-		/*
-		 * methodName = StringUtils.capitalize(StringUtils.join(StringUtils.
-		 * splitByCharacterTypeCamelCase(methodName), StringUtils.SPACE));
-		 */
-		test.assignCategory(className);
-		test.getModel().setStartTime(getTime(result.getStartMillis()));
+		long start = Metrics.start();
+		try {
+			String methodName = result.getMethod().getMethodName();
+			String qualifiedName = result.getMethod().getQualifiedName();
+			int last = qualifiedName.lastIndexOf(".");
+			int mid = qualifiedName.substring(0, last).lastIndexOf(".");
+			String className = qualifiedName.substring(mid + 1, last);
+
+			System.out.println(methodName + " started!");
+			ExtentTest test;
+			synchronized (this) {
+				test = extent.createTest(result.getMethod().getMethodName(),
+						result.getMethod().getDescription());
+			}
+			currentTest.set(test);
+
+			test.assignCategory(result.getTestContext().getSuite().getName());
+			/*
+			 * methodName = StringUtils.capitalize(StringUtils.join(StringUtils.
+			 * splitByCharacterTypeCamelCase(methodName), StringUtils.SPACE));
+			 */
+			test.assignCategory(className);
+			test.getModel().setStartTime(getTime(result.getStartMillis()));
+		} finally {
+			Metrics.stop("listener.extent.onTestStart", start);
+		}
 	}
 
 	public void onTestSuccess(ITestResult result) {
-		System.out.println((result.getMethod().getMethodName() + " passed!"));
-		test.pass("Test passed");
-		
-		// Take screenshot and attach to report
-		String screenshotBase64 = takeScreenshot();
-		if (screenshotBase64 != null && !screenshotBase64.isEmpty()) {
-			test.pass(MediaEntityBuilder.createScreenCaptureFromBase64String(screenshotBase64, 
-					result.getMethod().getMethodName() + "_passed").build());
+		long start = Metrics.start();
+		try {
+			ExtentTest test = currentTest.get();
+			System.out.println((result.getMethod().getMethodName() + " passed!"));
+			test.pass("Test passed");
+
+			// Take screenshot and attach to report
+			Artifact screenshot = captureScreenshot();
+			if (screenshot != null) {
+				test.pass(ReportAttachments.media(screenshot, screenshotTitle(screenshot, result, "_passed"), REPORT));
+			}
+
+			test.getModel().setEndTime(getTime(result.getEndMillis()));
+		} finally {
+			Metrics.stop("listener.extent.onTestSuccess", start);
 		}
-		
-		test.getModel().setEndTime(getTime(result.getEndMillis()));
+		logTimingBreakdown();
 	}
 
 	public void onTestFailure(ITestResult result) {
-		System.out.println((result.getMethod().getMethodName() + " failed!"));
-		
-		// Take screenshot and attach to report
-		String screenshotBase64 = takeScreenshot();
-		if (screenshotBase64 != null && !screenshotBase64.isEmpty()) {
-			test.fail(result.getThrowable(), MediaEntityBuilder.createScreenCaptureFromBase64String(
-					screenshotBase64, result.getMethod().getMethodName() + "_failed").build());
-		} else {
-			test.fail(result.getThrowable());
+		long start = Metrics.start();
+		try {
+			ExtentTest test = currentTest.get();
+			System.out.println((result.getMethod().getMethodName() + " failed!"));
+
+			// Take screenshot and attach to report
+			Artifact screenshot = captureScreenshot();
+			if (screenshot != null) {
+				test.fail(result.getThrowable(), ReportAttachments.media(screenshot, screenshotTitle(screenshot, result, "_failed"), REPORT));
+			} else {
+				test.fail(result.getThrowable());
+			}
+			FailureCluster cluster = FailureClusterer.record(result);
+			if (cluster != null) {
+				test.info("Failure cluster " + cluster.getFingerprint() + " (" + cluster.size() + " failure(s) so far)");
+			}
+
+			test.getModel().setEndTime(getTime(result.getEndMillis()));
+		} finally {
+			Metrics.stop("listener.extent.onTestFailure", start);
 		}
-		
-		test.getModel().setEndTime(getTime(result.getEndMillis()));
+		logTimingBreakdown();
 	}
 
 	public void onTestSkipped(ITestResult result) {
-		System.out.println((result.getMethod().getMethodName() + " skipped!"));
-		
-		// Take screenshot and attach to report
-		String screenshotBase64 = takeScreenshot();
-		if (screenshotBase64 != null && !screenshotBase64.isEmpty()) {
-			test.skip(result.getThrowable(), MediaEntityBuilder.createScreenCaptureFromBase64String(
-					screenshotBase64, result.getMethod().getMethodName() + "_skipped").build());
-		} else {
-			test.skip(result.getThrowable());
+		long start = Metrics.start();
+		try {
+			ExtentTest test = currentTest.get();
+			System.out.println((result.getMethod().getMethodName() + " skipped!"));
+
+			// Take screenshot and attach to report
+			Artifact screenshot = captureScreenshot();
+			if (screenshot != null) {
+				test.skip(result.getThrowable(), ReportAttachments.media(screenshot, screenshotTitle(screenshot, result, "_skipped"), REPORT));
+			} else {
+				test.skip(result.getThrowable());
+			}
+
+			test.getModel().setEndTime(getTime(result.getEndMillis()));
+		} finally {
+			Metrics.stop("listener.extent.onTestSkipped", start);
 		}
-		
-		test.getModel().setEndTime(getTime(result.getEndMillis()));
+		logTimingBreakdown();
 	}
 
 	public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
 		System.out.println(("onTestFailedButWithinSuccessPercentage for " + result.getMethod().getMethodName()));
 	}
 
+	private void logTimingBreakdown() {
+		ExtentTest test = currentTest.get();
+		if (Metrics.isEnabled() && test != null) {
+			test.info(MarkupHelper.createTable(Metrics.testBreakdown()));
+		}
+	}
+
+	// names the stored copy, so the screenshot can be found in the ArtifactStore by its hash
+	private String screenshotTitle(Artifact screenshot, ITestResult result, String suffix) {
+		return result.getMethod().getMethodName() + suffix + " (" + screenshot + ")";
+	}
+
 	private Date getTime(long millis) {
 		Calendar calendar = Calendar.getInstance();
 		calendar.setTimeInMillis(millis);
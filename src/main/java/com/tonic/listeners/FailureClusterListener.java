@@ -0,0 +1,63 @@
+package com.tonic.listeners;
+
+import com.tonic.constants.FrameworkConstants;
+import com.tonic.failures.FailureCluster;
+import com.tonic.failures.FailureClusterer;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.SkipException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Clusters failures as they happen, skips the remaining tests once a cluster reaches the fail-fast threshold
+ * and writes the clusters of the run to {@code build/failure-clusters.json}.
+ * The Extent listeners add the cluster summary to their reports.
+ */
+public class FailureClusterListener implements ITestListener, ISuiteListener, IInvokedMethodListener {
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        FailureCluster cluster = FailureClusterer.record(result);
+        if (cluster != null && cluster.size() > 1) {
+            System.out.println(result.getMethod().getQualifiedName() + " failed like " + (cluster.size() - 1)
+                    + " other test(s), cluster " + cluster.getFingerprint());
+        }
+    }
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        FailureCluster aborting = FailureClusterer.abortingCluster();
+        ITestNGMethod testMethod = method.getTestMethod();
+        // skipping @BeforeMethod too saves the browser or session of tests that won't run
+        if (aborting != null && (testMethod.isTest() || testMethod.isBeforeMethodConfiguration())) {
+            throw new SkipException("Run aborted: failure cluster " + aborting.getFingerprint() + " reached "
+                    + aborting.size() + " failures (" + aborting.getSampleMessage() + ")");
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (FailureClusterer.clusters().isEmpty()) {
+            return;
+        }
+        Path summary = Paths.get(FrameworkConstants.getBuildFolderPath(), "failure-clusters.json");
+        try {
+            FailureClusterer.writeSummary(summary);
+        } catch (IOException e) {
+            System.err.println("Error writing failure clusters: " + e.getMessage());
+        }
+        System.out.println("Failure clusters:");
+        for (FailureCluster cluster : FailureClusterer.clusters()) {
+            System.out.println("  " + cluster.getFingerprint() + "  " + cluster.size() + " failure(s)  "
+                    + cluster.getExceptionType() + ": " + cluster.getSampleMessage());
+        }
+    }
+}
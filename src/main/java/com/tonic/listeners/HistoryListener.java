@@ -0,0 +1,63 @@
+package com.tonic.listeners;
+
+import com.tonic.failures.FailureFingerprint;
+import com.tonic.history.TestHistoryStore;
+import com.tonic.history.TestRun;
+import com.tonic.retry.InfrastructureRetryAnalyzer;
+import org.testng.IRetryAnalyzer;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+/**
+ * Records the final outcome of every test in the {@link TestHistoryStore}: duration, status, retries and the
+ * fingerprint of the failure. Retried attempts are folded into the outcome of the last attempt, and the failures
+ * of quarantined tests are kept as failures even though they are reported as skips.
+ */
+public class HistoryListener implements ITestListener, ISuiteListener {
+
+    private final TestHistoryStore store = TestHistoryStore.shared();
+    private long runId = System.currentTimeMillis();
+
+    @Override
+    public void onStart(ISuite suite) {
+        runId = System.currentTimeMillis();
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        record(result, TestRun.Status.PASSED, null);
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        record(result, TestRun.Status.FAILED, result.getThrowable());
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        if (result.wasRetried()) {
+            return;
+        }
+        Object quarantinedFailure = result.getAttribute(RetryListener.QUARANTINED_FAILURE);
+        if (quarantinedFailure instanceof Throwable) {
+            record(result, TestRun.Status.FAILED, (Throwable) quarantinedFailure);
+        } else {
+            record(result, TestRun.Status.SKIPPED, null);
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        store.flush();
+    }
+
+    private void record(ITestResult result, TestRun.Status status, Throwable throwable) {
+        IRetryAnalyzer analyzer = result.getMethod().getRetryAnalyzer(result);
+        int retries = analyzer instanceof InfrastructureRetryAnalyzer ? ((InfrastructureRetryAnalyzer) analyzer).getAttempts() : 0;
+        String fingerprint = throwable == null ? null : FailureFingerprint.of(throwable, result.getTestClass().getRealClass());
+        store.append(new TestRun(runId, result.getMethod().getQualifiedName(), status, result.getStartMillis(),
+                result.getEndMillis() - result.getStartMillis(), retries, fingerprint));
+    }
+}
@@ -1,14 +1,22 @@
 package com.tonic.listeners;
 
-import org.apache.commons.lang.exception.ExceptionUtils;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
 import org.testng.ITestContext;
 import org.testng.ITestListener;
 import org.testng.ITestResult;
 
+import com.tonic.metrics.Metrics;
 import com.tonic.utils.JiraPolicy;
-import com.tonic.utils.JiraServiceProvider;
+import com.tonic.utils.JiraFilingQueue;
 
-public class JiraListener implements ITestListener {
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class JiraListener implements ITestListener, ISuiteListener {
+
+    // one filing queue per running suite, drained when the suite ends
+    private static final Map<ISuite, JiraFilingQueue> QUEUES = new ConcurrentHashMap<>();
 
     @Override
     public void onTestStart(ITestResult result) {
@@ -24,23 +32,18 @@ public class JiraListener implements ITestListener {
 
     @Override
     public void onTestFailure(ITestResult result) {
-
-        JiraPolicy jiraPolicy = result.getMethod().getConstructorOrMethod().getMethod().getAnnotation(JiraPolicy.class);
-        boolean isTicketReady = jiraPolicy.logTicketReady();
-        if (isTicketReady) {
-            // raise jira ticket:
-            System.out.println("is ticket ready for JIRA: " + isTicketReady);
-            JiraServiceProvider jiraSp = new JiraServiceProvider("https://versitech.atlassian.net/",
-                    "YOUR MAIL", "YOUR CREDS", "AUT");
-            String issueSummary = result.getMethod().getConstructorOrMethod().getMethod().getName()
-                    + "got failed due to some assertion or exception";
-            String issueDescription = result.getThrowable().getMessage() + "\n";
-            issueDescription.concat(ExceptionUtils.getFullStackTrace(result.getThrowable()));
-
-            jiraSp.createJiraTicket("Bug", issueSummary, issueDescription, "Naveen");
-
+        long start = Metrics.start();
+        try {
+            JiraPolicy jiraPolicy = result.getMethod().getConstructorOrMethod().getMethod().getAnnotation(JiraPolicy.class);
+            if (jiraPolicy != null && jiraPolicy.logTicketReady()) {
+                // raise jira ticket in the background, deduplicated by failure fingerprint:
+                System.out.println("is ticket ready for JIRA: true");
+                queue(result.getTestContext().getSuite()).submit(result.getMethod().getQualifiedName(), result.getTestClass().getRealClass(),
+                        result.getThrowable());
+            }
+        } finally {
+            Metrics.stop("listener.jira.onTestFailure", start);
         }
-
     }
 
     @Override
@@ -67,5 +70,16 @@ public class JiraListener implements ITestListener {
 
     }
 
-}
+    @Override
+    public void onFinish(ISuite suite) {
+        JiraFilingQueue queue = QUEUES.remove(suite);
+        if (queue != null) {
+            queue.drain();
+        }
+    }
 
+    private static JiraFilingQueue queue(ISuite suite) {
+        return QUEUES.computeIfAbsent(suite, key -> new JiraFilingQueue());
+    }
+
+}
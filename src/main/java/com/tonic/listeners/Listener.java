@@ -1,11 +1,15 @@
 package com.tonic.listeners;
 
 import com.aventstack.extentreports.Status;
-import com.tonic.constants.FrameworkConstants;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+import com.tonic.artifacts.ArtifactStore;
 import com.tonic.enums.LogType;
+import com.tonic.failures.FailureCluster;
+import com.tonic.failures.FailureClusterer;
+import com.tonic.metrics.Metrics;
+import com.tonic.utils.ErrorLog;
 import com.tonic.utils.ExtentManager;
 import com.tonic.utils.ExtentReport;
-import com.tonic.utils.FileUtils;
 import org.testng.*;
 
 import java.util.Arrays;
@@ -16,42 +20,77 @@ public class Listener implements ITestListener, ISuiteListener {
 
     @Override
     public void onStart(ISuite suite) {
-        ExtentReport.initReports();
+        long start = Metrics.start();
+        try {
+            ExtentReport.initReports();
+        } finally {
+            Metrics.stop("listener.report.onStart", start);
+        }
     }
 
     @Override
     public void onFinish(ISuite suite) {
-        ExtentReport.flushReports();
+        long start = Metrics.start();
+        try {
+            ExtentReport.flushReports();
+        } finally {
+            Metrics.stop("listener.report.onFinish", start);
+        }
+        ErrorLog.flush();
+        ArtifactStore.shared().flush();
     }
 
     @Override
     public void onTestStart(ITestResult result) {
-        System.out.println(result.getMethod().getDescription());
-        ExtentReport.createTest(result.getMethod().getDescription());
-        log(LogType.CONSOLE, result.getMethod().getDescription());
-//        ExtentReport.addCategories(result.getMethod().getConstructorOrMethod().getMethod()
-//                .getAnnotation(TonicAnnotation.class).category());
+        long start = Metrics.start();
+        try {
+            System.out.println(result.getMethod().getDescription());
+            ExtentReport.createTest(result.getMethod().getDescription());
+            log(LogType.CONSOLE, result.getMethod().getDescription());
+//            ExtentReport.addCategories(result.getMethod().getConstructorOrMethod().getMethod()
+//                    .getAnnotation(TonicAnnotation.class).category());
+        } finally {
+            Metrics.stop("listener.report.onTestStart", start);
+        }
     }
 
     @Override
     public void onTestSuccess(ITestResult result) {
-        log(LogType.PASS, result.getMethod().getDescription() + " is passed");
+        long start = Metrics.start();
+        try {
+            log(LogType.PASS, result.getMethod().getDescription() + " is passed");
+        } finally {
+            Metrics.stop("listener.report.onTestSuccess", start);
+        }
+        logTimingBreakdown();
     }
 
     @Override
     public void onTestFailure(ITestResult result) {
-        FileUtils fileUtils = new FileUtils();
-        fileUtils.appendToFile(result.getName() + " | " + result.getThrowable() + ",\n\n", FrameworkConstants.ERROR_LOG_FILE_PATH);
-        log(LogType.FAIL,result.getMethod().getDescription());
-        log(LogType.FAIL, result.getMethod().getDescription() + " is failed");
-        log(LogType.FAIL, result.getThrowable().toString());
-        log(LogType.FAIL, Arrays.toString(result.getThrowable().getStackTrace()));
+        long start = Metrics.start();
+        try {
+            ErrorLog.failure(result);
+            log(LogType.FAIL,result.getMethod().getDescription());
+            log(LogType.FAIL, result.getMethod().getDescription() + " is failed");
+            log(LogType.FAIL, result.getThrowable().toString());
+            log(LogType.FAIL, Arrays.toString(result.getThrowable().getStackTrace()));
+            logFailureCluster(result);
+        } finally {
+            Metrics.stop("listener.report.onTestFailure", start);
+        }
+        logTimingBreakdown();
     }
 
     @Override
     public void onTestSkipped(ITestResult result) {
-        log(LogType.FAIL, Arrays.toString(result.getThrowable().getStackTrace()));
-        ExtentManager.getExtentTest().log(Status.SKIP, "Test Skipped");
+        long start = Metrics.start();
+        try {
+            log(LogType.FAIL, Arrays.toString(result.getThrowable().getStackTrace()));
+            ExtentManager.getExtentTest().log(Status.SKIP, "Test Skipped");
+        } finally {
+            Metrics.stop("listener.report.onTestSkipped", start);
+        }
+        logTimingBreakdown();
     }
 
     @Override
@@ -65,4 +104,17 @@ public class Listener implements ITestListener, ISuiteListener {
     @Override
     public void onFinish(ITestContext context) {
     }
-}
\ No newline at end of file
+
+    private void logFailureCluster(ITestResult result) {
+        FailureCluster cluster = FailureClusterer.record(result);
+        if (cluster != null) {
+            log(LogType.INFO, "Failure cluster " + cluster.getFingerprint() + " (" + cluster.size() + " failure(s) so far)");
+        }
+    }
+
+    private void logTimingBreakdown() {
+        if (Metrics.isEnabled() && ExtentManager.getExtentTest() != null) {
+            ExtentManager.getExtentTest().info(MarkupHelper.createTable(Metrics.testBreakdown()));
+        }
+    }
+}
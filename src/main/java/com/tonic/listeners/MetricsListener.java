@@ -0,0 +1,70 @@
+package com.tonic.listeners;
+
+import com.tonic.constants.FrameworkConstants;
+import com.tonic.metrics.Metrics;
+import com.tonic.metrics.MetricsExporter;
+import io.qameta.allure.Allure;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * Scopes {@link Metrics} to each test, attaches the per-test timing breakdown to Allure
+ * and exports the suite aggregates when the suite ends.
+ * The Extent listeners add the same breakdown to their own test nodes.
+ */
+public class MetricsListener implements ITestListener, ISuiteListener {
+
+    @Override
+    public void onTestStart(ITestResult result) {
+        Metrics.beginTest();
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        attachBreakdown();
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        attachBreakdown();
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        attachBreakdown();
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (!Metrics.isEnabled()) {
+            return;
+        }
+        String folder = FrameworkConstants.getMetricsFolderPath();
+        try {
+            MetricsExporter.writeJson(Paths.get(folder, "metrics.json"), Metrics.timers(), Metrics.counters());
+            MetricsExporter.writePrometheus(Paths.get(folder, "metrics.prom"), Metrics.timers(), Metrics.counters());
+            System.out.println("Framework metrics exported to: " + folder);
+        } catch (IOException e) {
+            System.err.println("Error exporting framework metrics: " + e.getMessage());
+        }
+    }
+
+    private void attachBreakdown() {
+        if (!Metrics.isEnabled()) {
+            return;
+        }
+        StringBuilder breakdown = new StringBuilder();
+        for (String[] row : Metrics.testBreakdown()) {
+            breakdown.append(String.format("%-40s %8s %12s%n", row[0], row[1], row[2]));
+        }
+        Allure.addAttachment("Timing Breakdown", "text/plain",
+                new ByteArrayInputStream(breakdown.toString().getBytes(StandardCharsets.UTF_8)), ".txt");
+    }
+}
@@ -0,0 +1,48 @@
+package com.tonic.listeners;
+
+import com.tonic.enums.ConfigProperties;
+import com.tonic.utils.PropertyBuilder;
+import org.testng.IAlterSuiteListener;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.util.List;
+
+/**
+ * Switches the web {@code <test>}s of the suite to parallel="methods" with one worker per core when
+ * {@code parallelmode=methods} (or {@code -Dparallelmode=methods}); {@code threadcount} overrides the number of
+ * workers. Mobile and API {@code <test>}s keep running their methods one at a time, since they share a device
+ * or server. With the default {@code parallelmode=xml} the suite file is used as written.
+ * Must be registered in the suite XML, alter-suite listeners declared with @Listeners are ignored.
+ */
+public class ParallelSuiteListener implements IAlterSuiteListener {
+
+    private static final String METHODS = "methods";
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        String mode = setting("parallelmode", ConfigProperties.PARALLELMODE);
+        if (!METHODS.equalsIgnoreCase(mode)) {
+            return;
+        }
+        int configured = Integer.parseInt(setting("threadcount", ConfigProperties.THREADCOUNT));
+        int workers = configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+        for (XmlSuite suite : suites) {
+            suite.setParallel(XmlSuite.ParallelMode.METHODS);
+            suite.setThreadCount(workers);
+            for (XmlTest test : suite.getTests()) {
+                if ("web".equalsIgnoreCase(test.getParameter("platform"))) {
+                    test.setParallel(XmlSuite.ParallelMode.METHODS);
+                    test.setThreadCount(workers);
+                } else {
+                    test.setParallel(XmlSuite.ParallelMode.NONE);
+                }
+            }
+            System.out.println("Suite '" + suite.getName() + "' runs web test methods in parallel on " + workers + " workers");
+        }
+    }
+
+    private static String setting(String systemProperty, ConfigProperties key) {
+        return System.getProperty(systemProperty) == null ? PropertyBuilder.getPropValue(key) : System.getProperty(systemProperty);
+    }
+}
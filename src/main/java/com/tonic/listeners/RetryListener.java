@@ -0,0 +1,73 @@
+package com.tonic.listeners;
+
+import com.tonic.history.FlakeHistory;
+import com.tonic.history.TestHistoryStore;
+import com.tonic.retry.InfrastructureRetryAnalyzer;
+import org.testng.IAnnotationTransformer;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.IRetryAnalyzer;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+import org.testng.SkipException;
+import org.testng.annotations.ITestAnnotation;
+import org.testng.internal.annotations.DisabledRetryAnalyzer;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Attaches the {@link InfrastructureRetryAnalyzer} to every test that doesn't declare its own retry analyzer.
+ * Tests whose {@link FlakeHistory} makes them chronically flaky are quarantined: they still run, but a failure is
+ * reported as a skip so it doesn't fail the build. Must be registered in the suite XML for the transformer to apply.
+ */
+public class RetryListener implements IAnnotationTransformer, IInvokedMethodListener, ISuiteListener {
+
+    /**
+     * Set on the results of quarantined tests whose failure was turned into a skip.
+     */
+    public static final String QUARANTINED_FAILURE = "quarantinedFailure";
+
+    private static final FlakeHistory HISTORY = FlakeHistory.of(TestHistoryStore.shared());
+
+    @Override
+    public void transform(ITestAnnotation annotation, Class testClass, Constructor testConstructor, Method testMethod) {
+        Class<? extends IRetryAnalyzer> declared = annotation.getRetryAnalyzerClass();
+        if (declared == null || declared == DisabledRetryAnalyzer.class) {
+            annotation.setRetryAnalyzer(InfrastructureRetryAnalyzer.class);
+        }
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!method.isTestMethod() || testResult.getStatus() != ITestResult.FAILURE) {
+            return;
+        }
+        IRetryAnalyzer analyzer = testResult.getMethod().getRetryAnalyzer(testResult);
+        if (analyzer instanceof InfrastructureRetryAnalyzer && ((InfrastructureRetryAnalyzer) analyzer).isRetryable(testResult)) {
+            // only the final attempt is quarantined
+            return;
+        }
+        String testId = testResult.getMethod().getQualifiedName();
+        if (HISTORY.isQuarantined(testId)) {
+            testResult.setAttribute(QUARANTINED_FAILURE, testResult.getThrowable());
+            testResult.setStatus(ITestResult.SKIP);
+            testResult.setThrowable(new SkipException("Quarantined flaky test (recent outcomes "
+                    + HISTORY.outcomes(testId) + "), failure ignored: " + testResult.getThrowable()));
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        List<String> quarantined = HISTORY.quarantined();
+        if (!quarantined.isEmpty()) {
+            System.out.println("Quarantined flaky tests:");
+            for (String testId : quarantined) {
+                System.out.println("  " + testId + "  flake score " + String.format("%.2f", HISTORY.flakeScore(testId))
+                        + "  recent outcomes " + HISTORY.outcomes(testId));
+            }
+        }
+    }
+}
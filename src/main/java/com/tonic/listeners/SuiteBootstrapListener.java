@@ -0,0 +1,146 @@
+package com.tonic.listeners;
+
+import com.tonic.concurrent.IoExecutors;
+import com.tonic.driver.AppiumServers;
+import com.tonic.enums.ConfigProperties;
+import com.tonic.factory.BrowserPool;
+import com.tonic.metrics.Metrics;
+import com.tonic.utils.PropertyBuilder;
+import com.tonic.utils.TestDataReader;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Warm start: before the first test, starts everything the suite will need at the same time instead of one after
+ * the other in the first @BeforeSuite and @BeforeMethod. That is the Appium server of each device, a browser
+ * per web worker (into the {@link BrowserPool}) and the test data files. The suite waits until all of them are
+ * ready, so its first test waits about as long as the slowest of them.
+ * <p>
+ * Nothing is lost when a dependency fails or misses the {@code bootstraptimeoutseconds} barrier: the tests start
+ * it themselves, as without the bootstrap. Set {@code bootstrap=no} (or {@code -Dbootstrap=no}) to disable it.
+ * Must be registered in the suite XML after {@link ParallelSuiteListener}, whose parallel settings it reads.
+ */
+public class SuiteBootstrapListener implements ISuiteListener {
+
+    private static final String DEFAULT_BROWSER = "chrome";
+
+    @Override
+    public void onStart(ISuite suite) {
+        if (!"yes".equalsIgnoreCase(setting("bootstrap", ConfigProperties.BOOTSTRAP))) {
+            return;
+        }
+        long start = Metrics.start();
+        long startMillis = System.currentTimeMillis();
+        Map<String, Long> elapsedMillis = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Void>> tasks = new LinkedHashMap<>();
+        tasks.put("test data", run(elapsedMillis, "test data", TestDataReader::preload));
+        for (String device : devices(suite.getXmlSuite())) {
+            String name = "appium " + device;
+            tasks.put(name, run(elapsedMillis, name, () -> AppiumServers.start(device)));
+        }
+        for (Map.Entry<String, Integer> browser : browsers(suite.getXmlSuite()).entrySet()) {
+            for (int i = 1; i <= browser.getValue(); i++) {
+                String name = browser.getKey() + " #" + i;
+                tasks.put(name, run(elapsedMillis, name, () -> BrowserPool.prelaunch(browser.getKey())));
+            }
+        }
+
+        long timeoutSeconds = Long.parseLong(setting("bootstraptimeoutseconds", ConfigProperties.BOOTSTRAPTIMEOUTSECONDS));
+        try {
+            CompletableFuture.allOf(tasks.values().toArray(new CompletableFuture[0])).get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            System.err.println("Bootstrap not ready after " + timeoutSeconds + " s, the tests start the rest themselves");
+        } catch (ExecutionException e) {
+            // reported per dependency below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Metrics.stop("bootstrap.ready", start);
+
+        List<String> failed = new ArrayList<>();
+        long sumMillis = 0;
+        // dependencies that missed the barrier may still be running
+        synchronized (elapsedMillis) {
+            for (Map.Entry<String, CompletableFuture<Void>> task : tasks.entrySet()) {
+                if (task.getValue().isCompletedExceptionally()) {
+                    failed.add(task.getKey());
+                }
+                sumMillis += elapsedMillis.getOrDefault(task.getKey(), 0L);
+            }
+            System.out.println("Bootstrap of suite '" + suite.getName() + "' ready in " + (System.currentTimeMillis() - startMillis)
+                    + " ms, " + sumMillis + " ms one after the other: " + elapsedMillis
+                    + (failed.isEmpty() ? "" : ", failed: " + String.join(", ", failed)));
+        }
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        BrowserPool.closeIdle();
+        AppiumServers.stopAll();
+    }
+
+    private static CompletableFuture<Void> run(Map<String, Long> elapsedMillis, String name, Runnable dependency) {
+        return CompletableFuture.runAsync(() -> {
+            long start = System.currentTimeMillis();
+            try {
+                dependency.run();
+            } catch (RuntimeException e) {
+                System.err.println("Bootstrap of " + name + " failed: " + e.getMessage());
+                throw e;
+            } finally {
+                synchronized (elapsedMillis) {
+                    elapsedMillis.put(name, System.currentTimeMillis() - start);
+                }
+            }
+        }, IoExecutors.io());
+    }
+
+    private static Set<String> devices(XmlSuite suite) {
+        Set<String> devices = new TreeSet<>();
+        for (XmlTest test : suite.getTests()) {
+            String device = test.getParameter("device");
+            if (device != null && !"web".equalsIgnoreCase(test.getParameter("platform"))) {
+                devices.add(device.toLowerCase());
+            }
+        }
+        return devices;
+    }
+
+    /**
+     * @return the number of browsers of each name the suite keeps busy at once: the workers of its web tests,
+     * capped by the number of tests the suite runs in parallel
+     */
+    private static Map<String, Integer> browsers(XmlSuite suite) {
+        Map<String, Integer> workers = new LinkedHashMap<>();
+        int mostWorkers = 1;
+        for (XmlTest test : suite.getTests()) {
+            if (!"web".equalsIgnoreCase(test.getParameter("platform"))) {
+                continue;
+            }
+            String browser = test.getParameter("browser") == null ? DEFAULT_BROWSER : test.getParameter("browser").trim();
+            int testWorkers = test.getParallel() == XmlSuite.ParallelMode.METHODS ? Math.max(1, test.getThreadCount()) : 1;
+            workers.merge(browser.toLowerCase(), testWorkers, Integer::sum);
+            mostWorkers = Math.max(mostWorkers, testWorkers);
+        }
+        int concurrent = suite.getParallel() != XmlSuite.ParallelMode.NONE ? Math.max(suite.getThreadCount(), mostWorkers) : mostWorkers;
+        workers.replaceAll((browser, count) -> Math.min(count, concurrent));
+        return workers;
+    }
+
+    private static String setting(String systemProperty, ConfigProperties key) {
+        return System.getProperty(systemProperty) == null ? PropertyBuilder.getPropValue(key) : System.getProperty(systemProperty);
+    }
+}
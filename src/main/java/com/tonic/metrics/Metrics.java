@@ -0,0 +1,97 @@
+package com.tonic.metrics;
+
+import com.tonic.enums.ConfigProperties;
+import com.tonic.utils.PropertyBuilder;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named timers and counters for the framework hot paths (browser launch, waits, screenshots, listeners...).
+ * Suite-wide aggregates are kept for export and every measurement is also added to the breakdown of the test
+ * running on the current thread.
+ * Enabled with {@code metrics=yes} in config.properties or {@code -Dmetrics=yes}; when disabled every call returns
+ * after a single check of a constant flag. Time a block with {@code long start = Metrics.start();} and
+ * {@code Metrics.stop(name, start)} in a finally: unlike a lambda, that allocates nothing when metrics are off.
+ */
+public final class Metrics {
+
+    private Metrics() {
+    }
+
+    private static final boolean ENABLED = "yes".equalsIgnoreCase(System.getProperty("metrics") == null
+            ? PropertyBuilder.getPropValue(ConfigProperties.METRICS) : System.getProperty("metrics"));
+
+    private static final ConcurrentMap<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Map<String, long[]>> TEST_BREAKDOWN = ThreadLocal.withInitial(LinkedHashMap::new);
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * @return the start timestamp to pass to {@link #stop(String, long)}, or 0 when metrics are disabled
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    public static void stop(String name, long startNanos) {
+        if (ENABLED) {
+            record(name, System.nanoTime() - startNanos);
+        }
+    }
+
+    public static void increment(String name) {
+        if (ENABLED) {
+            COUNTERS.computeIfAbsent(name, key -> new LongAdder()).increment();
+        }
+    }
+
+    public static void record(String name, long nanos) {
+        if (ENABLED) {
+            TIMERS.computeIfAbsent(name, Timer::new).record(nanos);
+            long[] entry = TEST_BREAKDOWN.get().computeIfAbsent(name, key -> new long[2]);
+            entry[0]++;
+            entry[1] += nanos;
+        }
+    }
+
+    /**
+     * Starts a fresh per-test breakdown on the current thread.
+     */
+    public static void beginTest() {
+        if (ENABLED) {
+            TEST_BREAKDOWN.get().clear();
+        }
+    }
+
+    /**
+     * @return rows of name, call count and total milliseconds for the test running on the current thread
+     */
+    public static String[][] testBreakdown() {
+        Map<String, long[]> breakdown = TEST_BREAKDOWN.get();
+        String[][] rows = new String[breakdown.size() + 1][];
+        rows[0] = new String[]{"Operation", "Calls", "Total (ms)"};
+        int i = 1;
+        for (Map.Entry<String, long[]> entry : breakdown.entrySet()) {
+            rows[i++] = new String[]{entry.getKey(), String.valueOf(entry.getValue()[0]),
+                    String.valueOf(TimeUnit.NANOSECONDS.toMillis(entry.getValue()[1]))};
+        }
+        return rows;
+    }
+
+    public static Map<String, Timer> timers() {
+        return Collections.unmodifiableMap(TIMERS);
+    }
+
+    public static Map<String, LongAdder> counters() {
+        return Collections.unmodifiableMap(COUNTERS);
+    }
+}
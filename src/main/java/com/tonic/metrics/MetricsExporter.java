@@ -0,0 +1,81 @@
+package com.tonic.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes the suite-wide timers and counters of {@link Metrics} as JSON and as Prometheus text exposition format.
+ */
+public final class MetricsExporter {
+
+    private MetricsExporter() {
+    }
+
+    public static void writeJson(Path file, Map<String, Timer> timers, Map<String, LongAdder> counters) throws IOException {
+        Map<String, Object> timerEntries = new TreeMap<>();
+        timers.forEach((name, timer) -> timerEntries.put(name, summarize(timer)));
+        Map<String, Long> counterEntries = new TreeMap<>();
+        counters.forEach((name, counter) -> counterEntries.put(name, counter.sum()));
+
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("timers", timerEntries);
+        document.put("counters", counterEntries);
+        Files.createDirectories(file.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), document);
+    }
+
+    /**
+     * @return count, total, mean, max and p50/p95 of the timer in milliseconds, ready to be serialized
+     */
+    public static Map<String, Object> summarize(Timer timer) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("count", timer.getCount());
+        entry.put("totalMillis", TimeUnit.NANOSECONDS.toMillis(timer.getTotalNanos()));
+        entry.put("meanMillis", timer.getMeanMillis());
+        entry.put("maxMillis", TimeUnit.NANOSECONDS.toMillis(timer.getMaxNanos()));
+        entry.put("p50Millis", timer.percentileMillis(50));
+        entry.put("p95Millis", timer.percentileMillis(95));
+        return entry;
+    }
+
+    public static void writePrometheus(Path file, Map<String, Timer> timers, Map<String, LongAdder> counters) throws IOException {
+        StringBuilder out = new StringBuilder();
+        out.append("# HELP tonic_operation_seconds Duration of instrumented framework operations.\n");
+        out.append("# TYPE tonic_operation_seconds histogram\n");
+        for (Timer timer : new TreeMap<>(timers).values()) {
+            String label = "operation=\"" + escape(timer.getName()) + "\"";
+            long[] buckets = timer.getBucketCounts();
+            long cumulative = 0;
+            for (int i = 0; i < Timer.BUCKET_BOUNDS_MILLIS.length; i++) {
+                cumulative += buckets[i];
+                out.append("tonic_operation_seconds_bucket{").append(label).append(",le=\"")
+                        .append(Timer.BUCKET_BOUNDS_MILLIS[i] / 1000.0).append("\"} ").append(cumulative).append('\n');
+            }
+            cumulative += buckets[Timer.BUCKET_BOUNDS_MILLIS.length];
+            out.append("tonic_operation_seconds_bucket{").append(label).append(",le=\"+Inf\"} ").append(cumulative).append('\n');
+            out.append("tonic_operation_seconds_sum{").append(label).append("} ").append(timer.getTotalNanos() / 1e9).append('\n');
+            out.append("tonic_operation_seconds_count{").append(label).append("} ").append(timer.getCount()).append('\n');
+        }
+        out.append("# HELP tonic_events_total Count of instrumented framework events.\n");
+        out.append("# TYPE tonic_events_total counter\n");
+        new TreeMap<>(counters).forEach((name, counter) -> out.append("tonic_events_total{event=\"").append(escape(name))
+                .append("\"} ").append(counter.sum()).append('\n'));
+
+        Files.createDirectories(file.getParent());
+        Files.write(file, out.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,67 @@
+package com.tonic.performance;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Performance figures captured for one page state. Timings are in milliseconds, CLS is unitless
+ * and Chromium DevTools metrics are kept under their CDP name with a {@code cdp.} prefix.
+ */
+public class PageMetrics {
+
+    public static final String TTFB = "ttfb";
+    public static final String DOM_CONTENT_LOADED = "domContentLoaded";
+    public static final String LOAD = "load";
+    public static final String FCP = "fcp";
+    public static final String LCP = "lcp";
+    public static final String CLS = "cls";
+    public static final String TBT = "tbt";
+
+    private String label;
+    private String url;
+    private long timestamp;
+    private Map<String, Double> values = new LinkedHashMap<>();
+
+    public PageMetrics() {
+    }
+
+    public PageMetrics(String label, String url, long timestamp) {
+        this.label = label;
+        this.url = url;
+        this.timestamp = timestamp;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Map<String, Double> getValues() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    public Double get(String metric) {
+        return values.get(metric);
+    }
+
+    void put(String metric, double value) {
+        values.put(metric, value);
+    }
+
+    @Override
+    public String toString() {
+        return "PageMetrics{" +
+                "label='" + label + '\'' +
+                ", url='" + url + '\'' +
+                ", values=" + values +
+                '}';
+    }
+}
@@ -0,0 +1,122 @@
+package com.tonic.performance;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.CDPSession;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
+import com.tonic.metrics.Metrics;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Captures browser-level performance of the page under test: navigation timing and the Core Web Vitals
+ * (LCP, CLS and TBT from long tasks) on every engine, plus the DevTools {@code Performance.getMetrics}
+ * counters on Chromium.
+ * {@link #install(BrowserContext)} must run before the first navigation so the observers see buffered entries.
+ */
+public final class PagePerformanceCollector {
+
+    private PagePerformanceCollector() {
+    }
+
+    private static final int MAX_LONG_TASKS = 500;
+
+    private static final String OBSERVER_SCRIPT = "(() => {" +
+            "  if (window.__tonicPerf) return;" +
+            "  const perf = window.__tonicPerf = { lcp: 0, cls: 0, longTasks: [] };" +
+            "  const observe = (type, callback) => {" +
+            "    try { new PerformanceObserver(list => list.getEntries().forEach(callback)).observe({ type: type, buffered: true }); } catch (e) {}" +
+            "  };" +
+            "  observe('largest-contentful-paint', e => { perf.lcp = e.startTime; });" +
+            "  observe('layout-shift', e => { if (!e.hadRecentInput) perf.cls += e.value; });" +
+            "  observe('longtask', e => { if (perf.longTasks.length < " + MAX_LONG_TASKS + ") perf.longTasks.push([e.startTime, e.duration]); });" +
+            "})();";
+
+    private static final String COLLECT_SCRIPT = "() => {" +
+            "  const perf = window.__tonicPerf || { lcp: 0, cls: 0, longTasks: [] };" +
+            "  const nav = performance.getEntriesByType('navigation')[0];" +
+            "  const paint = performance.getEntriesByName('first-contentful-paint')[0];" +
+            "  const fcp = paint ? paint.startTime : 0;" +
+            "  let tbt = 0;" +
+            "  perf.longTasks.forEach(t => { if (t[0] >= fcp) tbt += Math.max(0, t[1] - 50); });" +
+            "  return {" +
+            "    ttfb: nav ? nav.responseStart - nav.requestStart : 0," +
+            "    domContentLoaded: nav ? nav.domContentLoadedEventEnd : 0," +
+            "    load: nav ? nav.loadEventEnd : 0," +
+            "    fcp: fcp, lcp: perf.lcp, cls: perf.cls, tbt: tbt" +
+            "  };" +
+            "}";
+
+    private static final Set<String> CDP_METRICS = new HashSet<>(Arrays.asList("JSHeapUsedSize", "JSHeapTotalSize",
+            "Nodes", "Documents", "JSEventListeners", "LayoutCount", "RecalcStyleCount", "LayoutDuration",
+            "RecalcStyleDuration", "ScriptDuration", "TaskDuration"));
+
+    public static void install(BrowserContext context) {
+        context.addInitScript(OBSERVER_SCRIPT);
+    }
+
+    /**
+     * Reads the metrics of the page's current document and appends them to the {@link PerformanceTrend}.
+     *
+     * @param label budget and trend key of the page state, e.g. {@code dashboard}
+     */
+    public static PageMetrics collect(Page page, String label) {
+        long start = Metrics.start();
+        PageMetrics metrics = new PageMetrics(label, page.url(), System.currentTimeMillis());
+        try {
+            Object result = page.evaluate(COLLECT_SCRIPT);
+            if (result instanceof Map) {
+                ((Map<?, ?>) result).forEach((name, value) -> {
+                    if (value instanceof Number) {
+                        metrics.put(String.valueOf(name), ((Number) value).doubleValue());
+                    }
+                });
+            }
+            if (isChromium(page)) {
+                collectDevToolsMetrics(page, metrics);
+            }
+        } finally {
+            Metrics.stop("performance.collect", start);
+        }
+        PerformanceTrend.record(metrics);
+        return metrics;
+    }
+
+    private static boolean isChromium(Page page) {
+        BrowserContext context = page.context();
+        return context.browser() != null && "chromium".equals(context.browser().browserType().name());
+    }
+
+    private static void collectDevToolsMetrics(Page page, PageMetrics metrics) {
+        CDPSession session = null;
+        try {
+            session = page.context().newCDPSession(page);
+            session.send("Performance.enable");
+            JsonObject response = session.send("Performance.getMetrics");
+            JsonArray entries = response.getAsJsonArray("metrics");
+            for (JsonElement element : entries) {
+                JsonObject entry = element.getAsJsonObject();
+                String name = entry.get("name").getAsString();
+                if (CDP_METRICS.contains(name)) {
+                    metrics.put("cdp." + name, entry.get("value").getAsDouble());
+                }
+            }
+        } catch (PlaywrightException e) {
+            System.err.println("Unable to read DevTools performance metrics: " + e.getMessage());
+        } finally {
+            if (session != null) {
+                try {
+                    session.detach();
+                } catch (PlaywrightException ignored) {
+                    // the page may already be gone
+                }
+            }
+        }
+    }
+}
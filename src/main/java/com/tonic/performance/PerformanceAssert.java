@@ -0,0 +1,53 @@
+package com.tonic.performance;
+
+import org.testng.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TestNG assertions over captured {@link PageMetrics}. Every violation is listed in the failure message,
+ * not just the first one.
+ */
+public final class PerformanceAssert {
+
+    private PerformanceAssert() {
+    }
+
+    private static final int TREND_WINDOW = 10;
+
+    public static void assertWithinBudget(PageMetrics metrics) {
+        List<String> violations = PerformanceBudget.violations(metrics);
+        if (!violations.isEmpty()) {
+            Assert.fail("Performance budget exceeded on '" + metrics.getLabel() + "' (" + metrics.getUrl() + "):\n"
+                    + String.join("\n", violations));
+        }
+    }
+
+    /**
+     * Fails when a budgeted metric is more than {@code tolerance} (0.2 = 20%) above the median of the
+     * previous runs recorded in the {@link PerformanceTrend}. Needs at least three previous runs.
+     */
+    public static void assertNoRegression(PageMetrics metrics, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (String metric : PerformanceBudget.forLabel(metrics.getLabel()).keySet()) {
+            Double actual = metrics.get(metric);
+            if (actual == null) {
+                continue;
+            }
+            // the current capture is already the last entry of the trend
+            List<Double> history = PerformanceTrend.history(metrics.getLabel(), metric, TREND_WINDOW + 1);
+            if (history.size() < 4) {
+                continue;
+            }
+            double baseline = PerformanceTrend.median(history.subList(0, history.size() - 1));
+            if (baseline > 0 && actual > baseline * (1 + tolerance)) {
+                regressions.add(String.format("%s: %.2f vs median %.2f of the last %d runs",
+                        metric, actual, baseline, history.size() - 1));
+            }
+        }
+        if (!regressions.isEmpty()) {
+            Assert.fail("Performance regression on '" + metrics.getLabel() + "':\n" + String.join("\n", regressions));
+        }
+    }
+}
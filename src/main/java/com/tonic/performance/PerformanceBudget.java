@@ -0,0 +1,63 @@
+package com.tonic.performance;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tonic.constants.FrameworkConstants;
+import com.tonic.exceptions.FrameworkException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upper limits per page label and metric, read once from {@code data/performance-budgets.json}.
+ */
+public final class PerformanceBudget {
+
+    private PerformanceBudget() {
+    }
+
+    private static final String BUDGET_FILE = "performance-budgets.json";
+
+    private static volatile Map<String, Map<String, Double>> budgets;
+
+    public static Map<String, Double> forLabel(String label) {
+        Map<String, Double> budget = load().get(label);
+        return budget == null ? Collections.emptyMap() : Collections.unmodifiableMap(budget);
+    }
+
+    /**
+     * @return one message per metric exceeding its budget, empty when the page is within budget
+     */
+    public static List<String> violations(PageMetrics metrics) {
+        List<String> violations = new ArrayList<>();
+        forLabel(metrics.getLabel()).forEach((metric, limit) -> {
+            Double actual = metrics.get(metric);
+            if (actual != null && actual > limit) {
+                violations.add(String.format("%s: %.2f exceeds budget %.2f", metric, actual, limit));
+            }
+        });
+        return violations;
+    }
+
+    private static Map<String, Map<String, Double>> load() {
+        if (budgets == null) {
+            synchronized (PerformanceBudget.class) {
+                if (budgets == null) {
+                    File file = new File(FrameworkConstants.getInputJsonPath() + BUDGET_FILE);
+                    try {
+                        budgets = file.exists()
+                                ? new ObjectMapper().readValue(file, new TypeReference<Map<String, Map<String, Double>>>() {})
+                                : Collections.emptyMap();
+                    } catch (IOException e) {
+                        throw new FrameworkException("Unable to read performance budgets from " + file, e);
+                    }
+                }
+            }
+        }
+        return budgets;
+    }
+}
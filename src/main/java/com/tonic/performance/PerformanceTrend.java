@@ -0,0 +1,97 @@
+package com.tonic.performance;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tonic.constants.FrameworkConstants;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only history of captured {@link PageMetrics}, one JSON document per line in
+ * {@code build/performance/trend.jsonl}, used to spot regressions against previous runs.
+ */
+public final class PerformanceTrend {
+
+    private PerformanceTrend() {
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final ReentrantLock LOCK = new ReentrantLock();
+
+    private static Path trendFile() {
+        return Paths.get(FrameworkConstants.getPerformanceFolderPath(), "trend.jsonl");
+    }
+
+    public static void record(PageMetrics metrics) {
+        Path file = trendFile();
+        LOCK.lock();
+        try {
+            Files.createDirectories(file.getParent());
+            String line = MAPPER.writeValueAsString(metrics) + System.lineSeparator();
+            Files.write(file, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Error recording performance trend: " + e.getMessage());
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /**
+     * @return the last {@code limit} values of the metric recorded for the label, oldest first
+     */
+    public static List<Double> history(String label, String metric, int limit) {
+        Path file = trendFile();
+        Deque<Double> values = new ArrayDeque<>(limit);
+        LOCK.lock();
+        try {
+            if (!Files.exists(file)) {
+                return Collections.emptyList();
+            }
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    PageMetrics entry = MAPPER.readValue(line, PageMetrics.class);
+                    Double value = entry.get(metric);
+                    if (label.equals(entry.getLabel()) && value != null) {
+                        if (values.size() == limit) {
+                            values.removeFirst();
+                        }
+                        values.addLast(value);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Error reading performance trend: " + e.getMessage());
+            }
+        } finally {
+            LOCK.unlock();
+        }
+        return new ArrayList<>(values);
+    }
+
+    public static double median(List<Double> values) {
+        if (values.isEmpty()) {
+            return Double.NaN;
+        }
+        List<Double> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+    }
+}
@@ -0,0 +1,184 @@
+package com.tonic.profiler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tonic.enums.ConfigProperties;
+import com.tonic.metrics.Metrics;
+import com.tonic.metrics.MetricsExporter;
+import com.tonic.metrics.Timer;
+import com.tonic.utils.PropertyBuilder;
+import io.appium.java_client.MobileCommand;
+import io.appium.java_client.remote.AppiumCommandExecutor;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Per-command latency profile of the Appium sessions: histograms per command, per test and per locator,
+ * plus detection of redundant lookups (the same locator found again with only reads in between,
+ * e.g. {@code findElement(locator).isDisplayed() || findElement(locator).isDisplayed()}).
+ * Enabled with {@code appiumprofiler=yes} in config.properties or {@code -Dappiumprofiler=yes}.
+ */
+public final class CommandProfiler {
+
+    private CommandProfiler() {
+    }
+
+    private static final boolean ENABLED = "yes".equalsIgnoreCase(System.getProperty("appiumprofiler") == null
+            ? PropertyBuilder.getPropValue(ConfigProperties.APPIUMPROFILER) : System.getProperty("appiumprofiler"));
+
+    /** Lookups of one locator in a single test above which the test is reported even without redundant lookups. */
+    private static final int REPEATED_LOOKUP_THRESHOLD = 10;
+
+    private static final String NO_TEST = "(outside test)";
+
+    private static final Set<String> FIND_COMMANDS = new HashSet<>(Arrays.asList(DriverCommand.FIND_ELEMENT,
+            DriverCommand.FIND_ELEMENTS, DriverCommand.FIND_CHILD_ELEMENT, DriverCommand.FIND_CHILD_ELEMENTS));
+
+    /** Commands that don't change the screen, so they don't invalidate an element found just before. */
+    private static final Set<String> READ_COMMANDS = new HashSet<>(Arrays.asList(DriverCommand.IS_ELEMENT_DISPLAYED,
+            DriverCommand.IS_ELEMENT_ENABLED, DriverCommand.IS_ELEMENT_SELECTED, DriverCommand.GET_ELEMENT_TEXT,
+            DriverCommand.GET_ELEMENT_ATTRIBUTE, DriverCommand.GET_ELEMENT_DOM_ATTRIBUTE,
+            DriverCommand.GET_ELEMENT_DOM_PROPERTY, DriverCommand.GET_ELEMENT_RECT, DriverCommand.GET_ELEMENT_LOCATION,
+            DriverCommand.GET_ELEMENT_SIZE, DriverCommand.GET_ELEMENT_TAG_NAME));
+
+    private static final ConcurrentMap<String, Timer> COMMANDS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Timer> LOCATORS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, ConcurrentMap<String, Timer>> TESTS = new ConcurrentHashMap<>();
+    private static final List<String> FINDINGS = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<TestProfile> CURRENT = ThreadLocal.withInitial(() -> new TestProfile(NO_TEST));
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * @return the command executor for a new driver, profiling commands only when the profiler is enabled
+     */
+    public static HttpCommandExecutor executor(URL remoteAddress) {
+        return ENABLED ? new ProfilingCommandExecutor(remoteAddress)
+                : new AppiumCommandExecutor(MobileCommand.commandRepository, remoteAddress);
+    }
+
+    public static void beginTest(String testName) {
+        if (ENABLED) {
+            CURRENT.set(new TestProfile(testName));
+        }
+    }
+
+    /**
+     * Closes the profile of the test running on the current thread.
+     *
+     * @return the redundant lookup findings of the test, empty when there are none
+     */
+    public static List<String> endTest() {
+        if (!ENABLED) {
+            return Collections.emptyList();
+        }
+        TestProfile profile = CURRENT.get();
+        CURRENT.remove();
+        List<String> findings = profile.findings();
+        FINDINGS.addAll(findings);
+        return findings;
+    }
+
+    static void record(Command command, long nanos, boolean failed) {
+        String name = command.getName();
+        TestProfile profile = CURRENT.get();
+        COMMANDS.computeIfAbsent(name, Timer::new).record(nanos);
+        TESTS.computeIfAbsent(profile.testName, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(name, Timer::new).record(nanos);
+        Metrics.record("appium." + name, nanos);
+
+        if (FIND_COMMANDS.contains(name)) {
+            String locator = locator(command);
+            LOCATORS.computeIfAbsent(locator, Timer::new).record(nanos);
+            // a failed lookup inside a polling loop is a wait, not a redundant lookup
+            if (!failed) {
+                profile.lookup(locator);
+            }
+        } else if (!READ_COMMANDS.contains(name)) {
+            profile.screenChanged();
+        }
+    }
+
+    private static String locator(Command command) {
+        Map<String, ?> parameters = command.getParameters();
+        return parameters.get("using") + "=" + parameters.get("value");
+    }
+
+    public static void writeReport(Path file) throws IOException {
+        Map<String, Object> commands = new TreeMap<>();
+        COMMANDS.forEach((name, timer) -> commands.put(name, MetricsExporter.summarize(timer)));
+        Map<String, Object> locators = new TreeMap<>();
+        LOCATORS.forEach((locator, timer) -> locators.put(locator, MetricsExporter.summarize(timer)));
+        Map<String, Object> tests = new TreeMap<>();
+        TESTS.forEach((test, timers) -> {
+            Map<String, Object> entries = new TreeMap<>();
+            timers.forEach((name, timer) -> entries.put(name, MetricsExporter.summarize(timer)));
+            tests.put(test, entries);
+        });
+
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("commands", commands);
+        document.put("locators", locators);
+        document.put("tests", tests);
+        document.put("redundantLookups", new ArrayList<>(FINDINGS));
+        Files.createDirectories(file.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), document);
+    }
+
+    private static final class TestProfile {
+
+        private final String testName;
+        private final Map<String, Integer> lookups = new HashMap<>();
+        private final Map<String, Integer> redundant = new LinkedHashMap<>();
+        /** Locators found since the last command that may have changed the screen. */
+        private final Set<String> sinceLastChange = new HashSet<>();
+
+        private TestProfile(String testName) {
+            this.testName = testName;
+        }
+
+        private void lookup(String locator) {
+            lookups.merge(locator, 1, Integer::sum);
+            if (!sinceLastChange.add(locator)) {
+                redundant.merge(locator, 1, Integer::sum);
+            }
+        }
+
+        private void screenChanged() {
+            sinceLastChange.clear();
+        }
+
+        private List<String> findings() {
+            List<String> findings = new ArrayList<>();
+            redundant.forEach((locator, count) -> findings.add(testName + ": " + locator + " found again " + count
+                    + " time(s) with no action in between, reuse the element"));
+            lookups.forEach((locator, count) -> {
+                if (count >= REPEATED_LOOKUP_THRESHOLD && !redundant.containsKey(locator)) {
+                    findings.add(testName + ": " + locator + " looked up " + count + " times in one test");
+                }
+            });
+            return findings;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.tonic.profiler;
+
+import io.appium.java_client.MobileCommand;
+import io.appium.java_client.remote.AppiumCommandExecutor;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.Response;
+
+import java.net.URL;
+
+/**
+ * The executor every driver and element command goes through, timing each command for {@link CommandProfiler}.
+ * Wrapping the executor rather than the driver also covers element-level commands (click, getText...),
+ * which {@code RemoteWebElement} sends without going through the public driver methods.
+ */
+public class ProfilingCommandExecutor extends AppiumCommandExecutor {
+
+    public ProfilingCommandExecutor(URL remoteAddress) {
+        super(MobileCommand.commandRepository, remoteAddress);
+    }
+
+    @Override
+    public Response execute(Command command) throws WebDriverException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Response response = super.execute(command);
+            // W3C errors come back as a response and are only thrown later by the driver
+            failed = response.getState() != null && !"success".equals(response.getState());
+            return response;
+        } finally {
+            CommandProfiler.record(command, System.nanoTime() - start, failed);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.tonic.retry;
+
+import com.tonic.driver.Driver;
+import com.tonic.enums.ConfigProperties;
+import com.tonic.enums.FailureCategory;
+import com.tonic.factory.PlaywrightFactory;
+import com.tonic.failures.FailureClassifier;
+import com.tonic.healthCheck.EnvironmentGuard;
+import com.tonic.utils.PropertyBuilder;
+import org.testng.IRetryAnalyzer;
+import org.testng.ITestResult;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Retries a test only when it failed for an infrastructure reason (see {@link FailureClassifier}), never on an
+ * assertion or application failure. Each test gets up to {@code retrycount} retries and the whole suite at most
+ * {@code retrybudget}, so an outage can't double the length of the run. The browser context or Appium session of the
+ * failed attempt is closed first, so the retry starts from the fresh one created by {@code @BeforeMethod}; the browser
+ * of the thread is kept, and only relaunched there if it went away.
+ * Attached to every test without an explicit retry analyzer by {@link com.tonic.listeners.RetryListener}.
+ */
+public class InfrastructureRetryAnalyzer implements IRetryAnalyzer {
+
+    private static final int MAX_RETRIES = Integer.parseInt(System.getProperty("retrycount") == null
+            ? PropertyBuilder.getPropValue(ConfigProperties.RETRYCOUNT) : System.getProperty("retrycount"));
+    private static final AtomicInteger SUITE_BUDGET = new AtomicInteger(Integer.parseInt(System.getProperty("retrybudget") == null
+            ? PropertyBuilder.getPropValue(ConfigProperties.RETRYBUDGET) : System.getProperty("retrybudget")));
+
+    private int attempts;
+
+    @Override
+    public boolean retry(ITestResult result) {
+        Throwable throwable = result.getThrowable();
+        if (throwable == null || attempts >= MAX_RETRIES
+                || FailureClassifier.classify(throwable) != FailureCategory.INFRASTRUCTURE) {
+            return false;
+        }
+        String environment = EnvironmentGuard.check();
+        if (environment != null) {
+            System.out.println("Not retrying " + result.getMethod().getQualifiedName() + ", environment unavailable: " + environment);
+            return false;
+        }
+        if (SUITE_BUDGET.getAndUpdate(budget -> budget > 0 ? budget - 1 : 0) == 0) {
+            System.out.println("Not retrying " + result.getMethod().getQualifiedName() + ", suite retry budget exhausted");
+            return false;
+        }
+        attempts++;
+        System.out.println("Retrying " + result.getMethod().getQualifiedName() + " (retry " + attempts + " of "
+                + MAX_RETRIES + ") after infrastructure failure: " + throwable);
+        closeSession();
+        return true;
+    }
+
+    /**
+     * @return whether a failure of the result may still be retried, without using up an attempt
+     */
+    public boolean isRetryable(ITestResult result) {
+        Throwable throwable = result.getThrowable();
+        return throwable != null && attempts < MAX_RETRIES && SUITE_BUDGET.get() > 0
+                && FailureClassifier.classify(throwable) == FailureCategory.INFRASTRUCTURE;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    private static void closeSession() {
+        try {
+            PlaywrightFactory.closeContext();
+        } catch (RuntimeException e) {
+            System.err.println("Error closing browser context before retry: " + e.getMessage());
+        }
+        try {
+            Driver.quitDriver();
+        } catch (RuntimeException e) {
+            System.err.println("Error closing Appium driver before retry: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.tonic.scheduler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tonic.constants.FrameworkConstants;
+import com.tonic.history.DurationHistory;
+import com.tonic.history.TestHistoryStore;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reorders the test methods of every {@code <test>} longest-first, using the durations of earlier runs kept in the
+ * {@link TestHistoryStore} (recorded by {@link com.tonic.listeners.HistoryListener}),
+ * so long tests start early instead of forming a tail at the end of the run.
+ * Methods are ranked by their critical path (own duration plus the longest chain of methods depending on them)
+ * and are never placed ahead of the methods or groups they depend on.
+ * At the end of the suite the predicted makespan is reported next to the actual one.
+ */
+public class DurationAwareScheduler implements IMethodInterceptor, ITestListener, ISuiteListener {
+
+    private static final long DEFAULT_DURATION_MILLIS = 30_000;
+    private static final String REPORT_FILE = FrameworkConstants.getBuildFolderPath() + "scheduler-report.json";
+    private static final DurationHistory HISTORY = DurationHistory.from(TestHistoryStore.shared());
+
+    private final Map<String, Long> predictedMakespans = new ConcurrentHashMap<>();
+    private final Map<String, Long> actualMakespans = new ConcurrentHashMap<>();
+    private long suiteStartMillis;
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        int size = methods.size();
+        long[] durations = new long[size];
+        for (int i = 0; i < size; i++) {
+            durations[i] = HISTORY.estimate(testId(methods.get(i).getMethod()), DEFAULT_DURATION_MILLIS);
+        }
+        List<Set<Integer>> dependencies = resolveDependencies(methods);
+        long[] criticalPaths = criticalPaths(durations, dependencies);
+
+        List<IMethodInstance> ordered = new ArrayList<>(size);
+        List<Integer> orderedIndexes = new ArrayList<>(size);
+        boolean[] placed = new boolean[size];
+        for (int step = 0; step < size; step++) {
+            int next = -1;
+            for (int i = 0; i < size; i++) {
+                if (!placed[i] && isReady(dependencies.get(i), placed)
+                        && (next == -1 || criticalPaths[i] > criticalPaths[next])) {
+                    next = i;
+                }
+            }
+            if (next == -1) {
+                // Only reachable with a dependency cycle, which TestNG reports on its own; keep the declared order.
+                for (int i = 0; i < size; i++) {
+                    if (!placed[i]) {
+                        placed[i] = true;
+                        orderedIndexes.add(i);
+                        ordered.add(methods.get(i));
+                    }
+                }
+                break;
+            }
+            placed[next] = true;
+            orderedIndexes.add(next);
+            ordered.add(methods.get(next));
+        }
+
+        long predicted = simulate(orderedIndexes, durations, dependencies, workers(context.getCurrentXmlTest()));
+        predictedMakespans.put(context.getName(), predicted);
+        context.setAttribute("predictedMakespanMillis", predicted);
+        System.out.println("Scheduled " + size + " methods of '" + context.getName() + "' longest-first, predicted makespan: "
+                + predicted + " ms");
+        return ordered;
+    }
+
+    @Override
+    public void onStart(ISuite suite) {
+        suiteStartMillis = System.currentTimeMillis();
+    }
+
+    @Override
+    public void onFinish(ITestContext context) {
+        actualMakespans.put(context.getName(), context.getEndDate().getTime() - context.getStartDate().getTime());
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        long actual = System.currentTimeMillis() - suiteStartMillis;
+        long predicted = predictSuiteMakespan(suite.getXmlSuite());
+        System.out.println("Suite '" + suite.getName() + "' makespan - predicted: " + predicted + " ms, actual: " + actual + " ms");
+        writeReport(suite.getName(), predicted, actual);
+    }
+
+    private static String testId(ITestNGMethod method) {
+        return method.getQualifiedName();
+    }
+
+    private static List<Set<Integer>> resolveDependencies(List<IMethodInstance> methods) {
+        List<Set<Integer>> dependencies = new ArrayList<>(methods.size());
+        for (IMethodInstance instance : methods) {
+            ITestNGMethod method = instance.getMethod();
+            Set<String> dependsOnMethods = new HashSet<>(Arrays.asList(method.getMethodsDependedUpon()));
+            Set<String> dependsOnGroups = new HashSet<>(Arrays.asList(method.getGroupsDependedUpon()));
+            Set<Integer> resolved = new HashSet<>();
+            for (int j = 0; j < methods.size(); j++) {
+                ITestNGMethod candidate = methods.get(j).getMethod();
+                if (candidate == method) {
+                    continue;
+                }
+                if (dependsOnMethods.contains(candidate.getQualifiedName())
+                        || Arrays.stream(candidate.getGroups()).anyMatch(dependsOnGroups::contains)) {
+                    resolved.add(j);
+                }
+            }
+            dependencies.add(resolved);
+        }
+        return dependencies;
+    }
+
+    private static long[] criticalPaths(long[] durations, List<Set<Integer>> dependencies) {
+        long[] paths = new long[durations.length];
+        boolean[] visiting = new boolean[durations.length];
+        for (int i = 0; i < durations.length; i++) {
+            criticalPath(i, durations, dependencies, paths, visiting);
+        }
+        return paths;
+    }
+
+    private static long criticalPath(int index, long[] durations, List<Set<Integer>> dependencies, long[] paths, boolean[] visiting) {
+        if (paths[index] > 0 || visiting[index]) {
+            return paths[index];
+        }
+        visiting[index] = true;
+        long longestDependent = 0;
+        for (int j = 0; j < dependencies.size(); j++) {
+            if (dependencies.get(j).contains(index)) {
+                longestDependent = Math.max(longestDependent, criticalPath(j, durations, dependencies, paths, visiting));
+            }
+        }
+        visiting[index] = false;
+        paths[index] = durations[index] + longestDependent;
+        return paths[index];
+    }
+
+    private static boolean isReady(Set<Integer> dependencies, boolean[] placed) {
+        for (int dependency : dependencies) {
+            if (!placed[dependency]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * List-schedules the ordered methods on the given number of workers, the way TestNG hands them out.
+     */
+    private static long simulate(List<Integer> order, long[] durations, List<Set<Integer>> dependencies, int workers) {
+        PriorityQueue<Long> freeAt = new PriorityQueue<>();
+        for (int i = 0; i < workers; i++) {
+            freeAt.add(0L);
+        }
+        long[] finishedAt = new long[durations.length];
+        long makespan = 0;
+        for (int index : order) {
+            long start = freeAt.poll();
+            for (int dependency : dependencies.get(index)) {
+                start = Math.max(start, finishedAt[dependency]);
+            }
+            finishedAt[index] = start + durations[index];
+            freeAt.add(finishedAt[index]);
+            makespan = Math.max(makespan, finishedAt[index]);
+        }
+        return makespan;
+    }
+
+    private static int workers(XmlTest xmlTest) {
+        XmlSuite.ParallelMode mode = xmlTest.getParallel();
+        boolean parallelWithinTest = mode == XmlSuite.ParallelMode.METHODS
+                || mode == XmlSuite.ParallelMode.CLASSES
+                || mode == XmlSuite.ParallelMode.INSTANCES;
+        return parallelWithinTest ? Math.max(1, xmlTest.getThreadCount()) : 1;
+    }
+
+    private long predictSuiteMakespan(XmlSuite xmlSuite) {
+        if (xmlSuite.getParallel() != XmlSuite.ParallelMode.TESTS) {
+            return predictedMakespans.values().stream().mapToLong(Long::longValue).sum();
+        }
+        PriorityQueue<Long> freeAt = new PriorityQueue<>();
+        for (int i = 0; i < Math.max(1, xmlSuite.getThreadCount()); i++) {
+            freeAt.add(0L);
+        }
+        long makespan = 0;
+        for (XmlTest xmlTest : xmlSuite.getTests()) {
+            long finish = freeAt.poll() + predictedMakespans.getOrDefault(xmlTest.getName(), 0L);
+            freeAt.add(finish);
+            makespan = Math.max(makespan, finish);
+        }
+        return makespan;
+    }
+
+    private void writeReport(String suiteName, long predicted, long actual) {
+        Map<String, Object> tests = new LinkedHashMap<>();
+        predictedMakespans.forEach((name, predictedMillis) -> {
+            Map<String, Long> entry = new LinkedHashMap<>();
+            entry.put("predictedMillis", predictedMillis);
+            entry.put("actualMillis", actualMakespans.getOrDefault(name, 0L));
+            tests.put(name, entry);
+        });
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("suite", suiteName);
+        report.put("predictedMillis", predicted);
+        report.put("actualMillis", actual);
+        report.put("tests", tests);
+        try {
+            File reportFile = new File(REPORT_FILE);
+            reportFile.getParentFile().mkdirs();
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile, report);
+        } catch (IOException e) {
+            System.err.println("Could not write scheduler report: " + e.getMessage());
+        }
+    }
+}
@@ -1,12 +1,9 @@
 package com.tonic.utils;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.UUID;
-
 import com.microsoft.playwright.Page;
 import com.microsoft.playwright.Locator;
+import com.tonic.artifacts.ArtifactStore;
+import com.tonic.diagnostics.DomSnapshots;
 import io.qameta.allure.Attachment;
 
 /**
@@ -14,8 +11,6 @@ import io.qameta.allure.Attachment;
  */
 public class AllureScreenshotUtil {
     
-    private static final String SCREENSHOTS_DIR = System.getProperty("user.dir") + "/screenshots/";
-    
     /**
      * Takes a screenshot using Playwright and attaches it to the Allure report
      * 
@@ -26,25 +21,15 @@ public class AllureScreenshotUtil {
     @Attachment(value = "{name}", type = "image/png")
     public static byte[] takeScreenshot(Page page, String name) {
         try {
-            // Create a unique filename for the screenshot
-            String screenshotName = name.replaceAll("[^a-zA-Z0-9]", "_") + "_" + 
-                                    UUID.randomUUID().toString() + ".png";
-            
-            // Create the path where the screenshot will be saved
-            String screenshotPath = SCREENSHOTS_DIR + screenshotName;
-            
-            // Create screenshots directory if it doesn't exist
-            Path screenshotsDir = Paths.get(SCREENSHOTS_DIR);
-            if (!Files.exists(screenshotsDir)) {
-                Files.createDirectories(screenshotsDir);
-            }
-            
             // Take the screenshot using Playwright
             byte[] screenshot = page.screenshot(new Page.ScreenshotOptions()
-                    .setPath(Paths.get(screenshotPath))
                     .setFullPage(true));
             
-            System.out.println("Screenshot taken: " + name);
+            // Keep a copy in the artifact store rather than a file per screenshot
+            System.out.println("Screenshot taken: " + name + ", stored as " + ArtifactStore.shared().put(screenshot, "image/png"));
+
+            // a screenshot marks a key step of the test, keep the page source of that step too
+            DomSnapshots.capture(name);
             return screenshot;
         } catch (Exception e) {
             System.err.println("Error taking screenshot: " + e.getMessage());
@@ -64,25 +49,11 @@ public class AllureScreenshotUtil {
     @Attachment(value = "{name} - Element Screenshot", type = "image/png")
     public static byte[] takeElementScreenshot(Page page, String selector, String name) {
         try {
-            // Create a unique filename for the screenshot
-            String screenshotName = "element_" + name.replaceAll("[^a-zA-Z0-9]", "_") + "_" + 
-                                    UUID.randomUUID().toString() + ".png";
-            
-            // Create the path where the screenshot will be saved
-            String screenshotPath = SCREENSHOTS_DIR + screenshotName;
-            
-            // Create screenshots directory if it doesn't exist
-            Path screenshotsDir = Paths.get(SCREENSHOTS_DIR);
-            if (!Files.exists(screenshotsDir)) {
-                Files.createDirectories(screenshotsDir);
-            }
-            
             // Take the screenshot of the specific element using Playwright
             Locator elementLocator = page.locator(selector);
-            byte[] screenshot = elementLocator.screenshot(new Locator.ScreenshotOptions()
-                    .setPath(Paths.get(screenshotPath)));
+            byte[] screenshot = elementLocator.screenshot();
             
-            System.out.println("Element screenshot taken: " + name);
+            System.out.println("Element screenshot taken: " + name + ", stored as " + ArtifactStore.shared().put(screenshot, "image/png"));
             return screenshot;
         } catch (Exception e) {
             System.err.println("Error taking element screenshot: " + e.getMessage());
@@ -0,0 +1,276 @@
+package com.tonic.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tonic.concurrent.IoExecutors;
+import com.tonic.constants.FrameworkConstants;
+import com.tonic.failures.FailureClassifier;
+import com.tonic.failures.FailureFingerprint;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The error log of the run: one JSON line per failed test, with its id, failure fingerprint and category, timing
+ * and error, in {@link FrameworkConstants#getErrorLogFilePath()}.
+ * <p>
+ * Test threads only queue the record. A single writer thread takes whatever is queued, up to {@value #BATCH_SIZE}
+ * records, and appends it with one write to a file channel kept open for the whole run, so parallel failures
+ * never interleave. Once the file passes {@value #MAX_FILE_BYTES} bytes it is rotated to {@code <name>.1.jsonl},
+ * keeping {@value #KEEP_ROTATED} rotated files. {@link #flush()} waits for the queue to be written, at suite end.
+ * <p>
+ * The static methods write the log of the run; a test of the log opens one of its own on a small file.
+ */
+public final class ErrorLog {
+
+    private static final int BATCH_SIZE = 64;
+    private static final long LINGER_MILLIS = 200;
+    private static final long MAX_FILE_BYTES = 10L * 1024 * 1024;
+    private static final int KEEP_ROTATED = 5;
+    private static final int STACK_FRAMES = 15;
+    private static final long FLUSH_TIMEOUT_SECONDS = 30;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static ErrorLog shared;
+
+    private final Path file;
+    private final long maxFileBytes;
+    private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong queued = new AtomicLong();
+    /** Records written so far; guarded by writeLock, signalled on writtenChanged. */
+    private long written;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Condition writtenChanged = writeLock.newCondition();
+
+    private Thread writer;
+    private FileChannel channel;
+
+    /**
+     * @param maxFileBytes the size past which the file is rotated
+     */
+    ErrorLog(Path file, long maxFileBytes) {
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+    }
+
+    private static synchronized ErrorLog shared() {
+        if (shared == null) {
+            shared = new ErrorLog(Paths.get(FrameworkConstants.getErrorLogFilePath()), MAX_FILE_BYTES);
+        }
+        return shared;
+    }
+
+    /**
+     * Queues the record of a failed test.
+     */
+    public static void failure(ITestResult result) {
+        Throwable throwable = result.getThrowable();
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("time", Instant.now().toString());
+        record.put("test", result.getMethod().getQualifiedName());
+        record.put("description", result.getMethod().getDescription());
+        record.put("suiteTest", result.getTestContext().getName());
+        record.put("thread", Thread.currentThread().getName());
+        record.put("startMillis", result.getStartMillis());
+        record.put("durationMillis", result.getEndMillis() - result.getStartMillis());
+        if (throwable != null) {
+            record.put("fingerprint", FailureFingerprint.of(throwable, result.getTestClass().getRealClass()));
+            record.put("category", FailureClassifier.classify(throwable).name());
+            record.put("error", String.valueOf(throwable));
+            List<String> stack = new ArrayList<>();
+            StackTraceElement[] frames = throwable.getStackTrace();
+            for (int i = 0; i < Math.min(STACK_FRAMES, frames.length); i++) {
+                stack.add(frames[i].toString());
+            }
+            record.put("stack", stack);
+        }
+        write(record);
+    }
+
+    /**
+     * Queues a record; the values must be serializable by Jackson.
+     */
+    public static void write(Map<String, Object> record) {
+        shared().append(record);
+    }
+
+    /**
+     * Waits until every record queued so far is on disk.
+     */
+    public static void flush() {
+        shared().awaitWritten();
+    }
+
+    void append(Map<String, Object> record) {
+        byte[] line;
+        try {
+            line = (MAPPER.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            System.err.println("Error encoding error log record: " + e.getMessage());
+            return;
+        }
+        startWriter();
+        queued.incrementAndGet();
+        queue.add(line);
+    }
+
+    void awaitWritten() {
+        long target = queued.get();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(FLUSH_TIMEOUT_SECONDS);
+        writeLock.lock();
+        try {
+            while (written < target && System.currentTimeMillis() < deadline) {
+                writtenChanged.await(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
+            if (written < target) {
+                System.err.println("Error log not written within " + FLUSH_TIMEOUT_SECONDS + "s, " + (target - written) + " record(s) pending");
+            } else if (channel != null) {
+                channel.force(false);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Error syncing error log: " + e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the writer and closes the file, dropping what is still queued; call {@link #awaitWritten()} first.
+     */
+    synchronized void close() {
+        if (writer != null) {
+            writer.interrupt();
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(FLUSH_TIMEOUT_SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writer = null;
+        }
+        writeLock.lock();
+        try {
+            closeChannel();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private synchronized void startWriter() {
+        if (writer == null) {
+            writer = IoExecutors.threadFactory("error-log").newThread(this::writeLoop);
+            writer.start();
+        }
+    }
+
+    private void writeLoop() {
+        List<byte[]> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            try {
+                byte[] first = queue.poll(LINGER_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                writeBatch(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void writeBatch(List<byte[]> batch) {
+        int size = 0;
+        for (byte[] line : batch) {
+            size += line.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (byte[] line : batch) {
+            buffer.put(line);
+        }
+        buffer.flip();
+        writeLock.lock();
+        try {
+            FileChannel out = channel(size);
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing " + batch.size() + " error log record(s): " + e.getMessage());
+            closeChannel();
+        } finally {
+            // counted as written even when lost, so flush() does not wait for them
+            written += batch.size();
+            writtenChanged.signalAll();
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return the open log file, rotated first when the next write would take it past the size limit
+     */
+    private FileChannel channel(int nextWrite) throws IOException {
+        if (channel != null && channel.size() > 0 && channel.size() + nextWrite > maxFileBytes) {
+            closeChannel();
+            rotate(file);
+        }
+        if (channel == null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    /**
+     * @return the file the log was rotated to, {@code <name>.<generation>.jsonl}; 1 is the newest
+     */
+    static Path rotated(Path file, int generation) {
+        String name = file.getFileName().toString();
+        String base = name.endsWith(".jsonl") ? name.substring(0, name.length() - ".jsonl".length()) : name;
+        return file.resolveSibling(base + "." + generation + ".jsonl");
+    }
+
+    private static void rotate(Path file) throws IOException {
+        Files.deleteIfExists(rotated(file, KEEP_ROTATED));
+        for (int i = KEEP_ROTATED - 1; i >= 1; i--) {
+            Path older = rotated(file, i);
+            if (Files.exists(older)) {
+                Files.move(older, rotated(file, i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, rotated(file, 1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing error log: " + e.getMessage());
+            }
+            channel = null;
+        }
+    }
+}
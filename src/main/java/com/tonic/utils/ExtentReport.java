@@ -1,60 +1,96 @@
 package com.tonic.utils;
 
 import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 import com.aventstack.extentreports.reporter.configuration.Theme;
+import com.tonic.artifacts.ArtifactStore;
 import com.tonic.constants.FrameworkConstants;
 import com.tonic.enums.CategoryType;
+import com.tonic.failures.FailureClusterer;
 
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
 import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ExtentReport {
 
     private ExtentReport() {
     }
 
+    private static final ReentrantLock LOCK = new ReentrantLock();
     private static ExtentReports extent;
 
     public static void initReports() {
-        if (Objects.isNull(extent)) {
-            extent = new ExtentReports();
-            File[] reportFiles = new File(FrameworkConstants.getExtentReportFolderPath()).listFiles();
-            for (File f : reportFiles) {
-                f.delete();
-            }
-            File[] screenshotFiles = new File(FrameworkConstants.getExtentReportScreenshotsFolderPath()).listFiles();
-            if (screenshotFiles != null) {
-                for (File f : screenshotFiles) {
-                    f.delete();
+        LOCK.lock();
+        try {
+            if (Objects.isNull(extent)) {
+                extent = new ExtentReports();
+                // listFiles() is null when the folder does not exist yet, e.g. on a fresh checkout
+                File[] reportFiles = new File(FrameworkConstants.getExtentReportFolderPath()).listFiles();
+                if (reportFiles != null) {
+                    for (File f : reportFiles) {
+                        f.delete();
+                    }
                 }
-            }
+                File[] screenshotFiles = new File(FrameworkConstants.getExtentReportScreenshotsFolderPath()).listFiles();
+                if (screenshotFiles != null) {
+                    for (File f : screenshotFiles) {
+                        f.delete();
+                    }
+                }
+                // the artifacts of the previous run go with its report, a segment at a time
+                ArtifactStore.shared().clear();
 
-            ExtentSparkReporter spark = new ExtentSparkReporter(FrameworkConstants.getExtentReportFilePath());
-            extent.attachReporter(spark);
-            spark.config().setTheme(Theme.STANDARD);
-            spark.config().setDocumentTitle("Tropical Smoothie Report");
-            spark.config().setReportName(
-                    "Tropical Smoothie : " + FrameworkConstants.ENV.toUpperCase());
+                ExtentSparkReporter spark = new ExtentSparkReporter(FrameworkConstants.getExtentReportFilePath());
+                extent.attachReporter(spark);
+                spark.config().setTheme(Theme.STANDARD);
+                spark.config().setDocumentTitle("Tropical Smoothie Report");
+                spark.config().setReportName(
+                        "Tropical Smoothie : " + FrameworkConstants.ENV.toUpperCase());
+            }
+        } finally {
+            LOCK.unlock();
         }
     }
 
     public static void flushReports() {
-        if (Objects.nonNull(extent)) {
-            extent.flush();
-        }
-        ExtentManager.unload();
+        LOCK.lock();
         try {
-            Desktop.getDesktop().browse(new File(FrameworkConstants.getExtentReportFolderPath()).toURI());
-        } catch (IOException e) {
-            e.printStackTrace();
+            if (Objects.nonNull(extent)) {
+                addFailureClusters(extent);
+                extent.flush();
+            }
+            ExtentManager.unload();
+            try {
+                Desktop.getDesktop().browse(new File(FrameworkConstants.getExtentReportFolderPath()).toURI());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /**
+     * Adds a node summarising the failure clusters of the run, when there are any.
+     */
+    public static void addFailureClusters(ExtentReports reports) {
+        if (!FailureClusterer.clusters().isEmpty()) {
+            reports.createTest("Failure Clusters", "Failures of the run grouped by root cause")
+                    .info(MarkupHelper.createTable(FailureClusterer.summaryTable()));
         }
     }
 
     public static void createTest(String testCaseName) {
-        ExtentManager.setExtentTest(extent.createTest(testCaseName));
+        LOCK.lock();
+        try {
+            ExtentManager.setExtentTest(extent.createTest(testCaseName));
+        } finally {
+            LOCK.unlock();
+        }
     }
 
     public static void addCategories(CategoryType[] categories) {
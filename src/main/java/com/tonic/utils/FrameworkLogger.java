@@ -1,9 +1,9 @@
 package com.tonic.utils;
 
-import com.aventstack.extentreports.MediaEntityBuilder;
 import com.aventstack.extentreports.markuputils.ExtentColor;
 import com.aventstack.extentreports.markuputils.Markup;
 import com.aventstack.extentreports.markuputils.MarkupHelper;
+import com.tonic.artifacts.Artifact;
 import com.tonic.driver.Driver;
 import com.tonic.enums.ConfigProperties;
 import com.tonic.enums.LogType;
@@ -30,12 +30,10 @@ public class FrameworkLogger {
 	private static final Consumer<String> TAKESCREENSHOT = (message)-> {
 		try {
 			if (Driver.getDriver() != null) {
-				String base64Screenshot = ScreenshotUtils.screenshotCapture();
-				String htmlImage = "<img src='data:image/png;base64," + base64Screenshot + "' style='width:25%;height:auto;'/>";
+				Artifact screenshot = ScreenshotUtils.screenshotArtifact();
+				String htmlImage = "<img src='" + ReportAttachments.imageSource(screenshot) + "' style='width:25%;height:auto;'/>";
 				Markup markup = MarkupHelper.createLabel(htmlImage, ExtentColor.TRANSPARENT);
-				ExtentManager.getExtentTest().info("",
-						MediaEntityBuilder.createScreenCaptureFromBase64String(base64Screenshot).build()
-				);
+				ExtentManager.getExtentTest().info("", ReportAttachments.media(screenshot, null));
 				ExtentManager.getExtentTest().info(markup);
 			}} catch (Exception e) {
 				e.printStackTrace();
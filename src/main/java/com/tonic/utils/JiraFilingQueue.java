@@ -0,0 +1,231 @@
+package com.tonic.utils;
+
+import com.tonic.concurrent.IoExecutors;
+import com.tonic.enums.ConfigProperties;
+import com.tonic.failures.FailureFingerprint;
+import net.rcarz.jiraclient.JiraException;
+import org.apache.commons.lang.exception.ExceptionUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Files Jira bugs for failed tests on a background thread so the test threads never wait on Jira.
+ * Failures are grouped by {@link FailureFingerprint}: the failures of one batch window that share a fingerprint
+ * become a single ticket, and later failures with the same fingerprint (in this run, or still open from a previous
+ * one) are added as a comment instead of a new ticket. Calls to Jira are retried with exponential backoff.
+ * The {@link com.tonic.listeners.JiraListener} keeps one queue per suite, so nothing filed carries over to the next.
+ */
+public final class JiraFilingQueue {
+
+    private static final long BATCH_WINDOW_MILLIS = 2_000;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long INITIAL_BACKOFF_MILLIS = 1_000;
+    private static final long DRAIN_TIMEOUT_SECONDS = 60;
+    private static final int SUMMARY_LENGTH = 250;
+
+    private final Supplier<JiraServiceProvider> providerFactory;
+    private final long batchWindowMillis;
+    private final long initialBackoffMillis;
+
+    /** Failures waiting for the next batch, by fingerprint. Guarded by itself. */
+    private final Map<String, List<FailedTest>> pending = new LinkedHashMap<>();
+    /** Issue key per fingerprint filed by this queue. Only used from the filing thread. */
+    private final Map<String, String> filed = new HashMap<>();
+
+    /** Filing tasks scheduled and not finished yet, including pending retries. */
+    private final AtomicInteger outstanding = new AtomicInteger();
+    /** Signalled when outstanding drops to zero; a lock rather than a monitor so a virtual thread can wait on it. */
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final Condition drained = drainLock.newCondition();
+
+    private ScheduledExecutorService executor;
+    private JiraServiceProvider provider;
+
+    /**
+     * A queue filing into the Jira of config.properties (or -Djiraurl, -Djirausername, -Djiraapitoken).
+     */
+    public JiraFilingQueue() {
+        this(JiraFilingQueue::configuredProvider, BATCH_WINDOW_MILLIS, INITIAL_BACKOFF_MILLIS);
+    }
+
+    /**
+     * @param providerFactory called once, on the filing thread, when the first ticket is filed
+     */
+    JiraFilingQueue(Supplier<JiraServiceProvider> providerFactory, long batchWindowMillis, long initialBackoffMillis) {
+        this.providerFactory = providerFactory;
+        this.batchWindowMillis = batchWindowMillis;
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+    public void submit(String testName, Class<?> testClass, Throwable throwable) {
+        String fingerprint = FailureFingerprint.of(throwable, testClass);
+        synchronized (pending) {
+            boolean startsBatch = pending.isEmpty();
+            pending.computeIfAbsent(fingerprint, key -> new ArrayList<>()).add(new FailedTest(testName, throwable));
+            if (startsBatch) {
+                ScheduledExecutorService filing = executor();
+                schedule(filing, () -> flush(filing), batchWindowMillis);
+            }
+        }
+    }
+
+    /**
+     * Files whatever is still pending and waits for the queue to empty, including retries.
+     */
+    public void drain() {
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = executor;
+            executor = null;
+        }
+        if (current == null) {
+            return;
+        }
+        schedule(current, () -> flush(current), 0);
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(DRAIN_TIMEOUT_SECONDS);
+        drainLock.lock();
+        try {
+            while (outstanding.get() > 0 && System.currentTimeMillis() < deadline) {
+                drained.await(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            drainLock.unlock();
+        }
+        if (outstanding.get() > 0) {
+            System.err.println("Jira filing did not complete within " + DRAIN_TIMEOUT_SECONDS + "s, dropping pending tickets");
+        }
+        current.shutdownNow();
+    }
+
+    /**
+     * Schedules a filing task, counting it as outstanding until it ends. Retries are scheduled from within
+     * the failing task, so the count can't drop to zero while a retry is still due.
+     */
+    private void schedule(ScheduledExecutorService filing, Runnable task, long delayMillis) {
+        outstanding.incrementAndGet();
+        filing.schedule(() -> {
+            try {
+                task.run();
+            } finally {
+                drainLock.lock();
+                try {
+                    if (outstanding.decrementAndGet() == 0) {
+                        drained.signalAll();
+                    }
+                } finally {
+                    drainLock.unlock();
+                }
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized ScheduledExecutorService executor() {
+        if (executor == null) {
+            // a virtual thread when they are on: it spends its life waiting on Jira
+            executor = Executors.newSingleThreadScheduledExecutor(IoExecutors.threadFactory("jira-filing"));
+        }
+        return executor;
+    }
+
+    private void flush(ScheduledExecutorService filing) {
+        Map<String, List<FailedTest>> batch;
+        synchronized (pending) {
+            batch = new LinkedHashMap<>(pending);
+            pending.clear();
+        }
+        batch.forEach((fingerprint, failures) -> file(filing, fingerprint, failures, 1));
+    }
+
+    private void file(ScheduledExecutorService filing, String fingerprint, List<FailedTest> failures, int attempt) {
+        String label = "fp-" + fingerprint;
+        try {
+            String issueKey = filed.get(fingerprint);
+            if (issueKey == null) {
+                issueKey = provider().findOpenIssue(label);
+            }
+            if (issueKey == null) {
+                issueKey = provider().createJiraTicket("Bug", summary(failures), description(fingerprint, failures),
+                        Collections.singletonList(label));
+            } else {
+                provider().addComment(issueKey, comment(failures));
+            }
+            filed.put(fingerprint, issueKey);
+        } catch (JiraException | RuntimeException e) {
+            if (attempt < MAX_ATTEMPTS) {
+                long backoff = initialBackoffMillis << (attempt - 1);
+                System.err.println("Jira filing attempt " + attempt + " for " + label + " failed, retrying in "
+                        + backoff + "ms: " + e.getMessage());
+                schedule(filing, () -> file(filing, fingerprint, failures, attempt + 1), backoff);
+            } else {
+                System.err.println("Giving up filing Jira ticket for " + label + " after " + attempt + " attempts: " + e.getMessage());
+            }
+        }
+    }
+
+    private JiraServiceProvider provider() {
+        if (provider == null) {
+            provider = providerFactory.get();
+        }
+        return provider;
+    }
+
+    private static JiraServiceProvider configuredProvider() {
+        return new JiraServiceProvider(System.getProperty("jiraurl") == null
+                        ? PropertyBuilder.getPropValue(ConfigProperties.JIRAURL) : System.getProperty("jiraurl"),
+                System.getProperty("jirausername") == null
+                        ? PropertyBuilder.getPropValue(ConfigProperties.JIRAUSERNAME) : System.getProperty("jirausername"),
+                System.getProperty("jiraapitoken") == null
+                        ? PropertyBuilder.getPropValue(ConfigProperties.JIRAAPITOKEN) : System.getProperty("jiraapitoken"),
+                PropertyBuilder.getPropValue(ConfigProperties.JIRAPROJECT));
+    }
+
+    private static String summary(List<FailedTest> failures) {
+        FailedTest first = failures.get(0);
+        String summary = first.testName + " failed: " + FailureFingerprint.normalizeMessage(first.message);
+        if (failures.size() > 1) {
+            summary += " (+" + (failures.size() - 1) + " more)";
+        }
+        return summary.length() > SUMMARY_LENGTH ? summary.substring(0, SUMMARY_LENGTH - 3) + "..." : summary;
+    }
+
+    private static String description(String fingerprint, List<FailedTest> failures) {
+        StringBuilder description = new StringBuilder("Failure fingerprint: ").append(fingerprint).append("\n\n")
+                .append("Failed tests:\n");
+        failures.forEach(failure -> description.append("- ").append(failure.testName).append('\n'));
+        description.append('\n').append(failures.get(0).message).append('\n').append(failures.get(0).stackTrace);
+        return description.toString();
+    }
+
+    private static String comment(List<FailedTest> failures) {
+        StringBuilder comment = new StringBuilder("Failed again in:\n");
+        failures.forEach(failure -> comment.append("- ").append(failure.testName).append('\n'));
+        return comment.toString();
+    }
+
+    private static final class FailedTest {
+
+        private final String testName;
+        private final String message;
+        private final String stackTrace;
+
+        private FailedTest(String testName, Throwable throwable) {
+            this.testName = testName;
+            this.message = String.valueOf(throwable.getMessage());
+            this.stackTrace = ExceptionUtils.getFullStackTrace(throwable);
+        }
+    }
+}
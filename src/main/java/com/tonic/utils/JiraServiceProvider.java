@@ -7,6 +7,8 @@ import net.rcarz.jiraclient.Issue.FluentCreate;
 import net.rcarz.jiraclient.JiraClient;
 import net.rcarz.jiraclient.JiraException;
 
+import java.util.List;
+
 public class JiraServiceProvider {
 
     public JiraClient jira;
@@ -18,19 +20,40 @@ public class JiraServiceProvider {
         this.project = project;
     }
 
-    public void createJiraTicket(String issueType, String summary, String description, String reporterName) {
+    /**
+     * @return the key of the created issue
+     */
+    public String createJiraTicket(String issueType, String summary, String description, List<String> labels) throws JiraException {
+        FluentCreate fleuntCreate = jira.createIssue(project, issueType);
+        fleuntCreate.field(Field.SUMMARY, summary);
+        fleuntCreate.field(Field.DESCRIPTION, description);
+        if (!labels.isEmpty()) {
+            fleuntCreate.field(Field.LABELS, labels);
+        }
+        Issue newIssue = fleuntCreate.execute();
+        System.out.println("new issue created in jira with ID: " + newIssue);
+        return newIssue.getKey();
+    }
 
-        try {
-            FluentCreate fleuntCreate = jira.createIssue(project, issueType);
-            fleuntCreate.field(Field.SUMMARY, summary);
-            fleuntCreate.field(Field.DESCRIPTION, description);
-            Issue newIssue = fleuntCreate.execute();
-            System.out.println("new issue created in jira with ID: " + newIssue);
+    /**
+     * @return the key of an unresolved issue of the project carrying the label, or null when there is none
+     */
+    public String findOpenIssue(String label) throws JiraException {
+        Issue.SearchResult result = jira.searchIssues("project = " + quote(project) + " AND labels = " + quote(label)
+                + " AND resolution = Unresolved ORDER BY created DESC", 1);
+        return result.issues.isEmpty() ? null : result.issues.get(0).getKey();
+    }
 
-        } catch (JiraException e) {
-            e.printStackTrace();
-        }
+    /**
+     * @return the value as a JQL string literal, whatever characters the project key or label holds
+     */
+    static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
 
+    public void addComment(String issueKey, String comment) throws JiraException {
+        jira.getIssue(issueKey).addComment(comment);
+        System.out.println("comment added to jira issue: " + issueKey);
     }
 
 }
@@ -0,0 +1,135 @@
+package com.tonic.utils;
+
+import com.aventstack.extentreports.MediaEntityBuilder;
+import com.aventstack.extentreports.model.Media;
+import com.tonic.artifacts.Artifact;
+import com.tonic.artifacts.ArtifactStore;
+import com.tonic.constants.FrameworkConstants;
+import com.tonic.enums.ConfigProperties;
+import com.tonic.exceptions.FrameworkException;
+import com.tonic.metrics.Metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Base64;
+
+/**
+ * Screenshots of the Extent report, taken from the {@link ArtifactStore}.
+ * <p>
+ * With {@code reportscreenshots=link} (the default) a screenshot is written once to the {@code screenshots} folder
+ * next to the report showing it, straight from the store's mapped segment, and the report refers to it by a relative
+ * path: no Base64 text is ever built and the HTML stays small. {@code embed} puts the image into the HTML as Base64,
+ * for a report that has to travel as a single file; the text is then encoded from the store in one pass.
+ * <p>
+ * Without a report file the screenshot goes to the report of {@link ExtentReport}; a reporter writing its own file,
+ * such as {@code ExtentReportListener}, passes that file.
+ */
+public final class ReportAttachments {
+
+    private ReportAttachments() {
+    }
+
+    private static final String SCREENSHOTS_FOLDER = "screenshots";
+    private static final boolean EMBED = "embed".equalsIgnoreCase(System.getProperty("reportscreenshots") == null
+            ? PropertyBuilder.getPropValue(ConfigProperties.REPORTSCREENSHOTS) : System.getProperty("reportscreenshots"));
+
+    /**
+     * @return the media of an Extent log entry showing the artifact
+     */
+    public static Media media(Artifact artifact, String title) {
+        return media(artifact, title, defaultReport());
+    }
+
+    /**
+     * @param report the HTML file of the report the entry is written to
+     * @return the media of an Extent log entry showing the artifact
+     */
+    public static Media media(Artifact artifact, String title, Path report) {
+        MediaEntityBuilder builder = EMBED
+                ? MediaEntityBuilder.createScreenCaptureFromBase64String(base64(artifact), title)
+                : MediaEntityBuilder.createScreenCaptureFromPath(link(artifact, report), title);
+        return builder.build();
+    }
+
+    /**
+     * @return the {@code src} of an {@code <img>} of the report showing the artifact
+     */
+    public static String imageSource(Artifact artifact) {
+        return EMBED ? "data:" + artifact.getContentType() + ";base64," + base64(artifact) : link(artifact);
+    }
+
+    public static String link(Artifact artifact) {
+        return link(artifact, defaultReport());
+    }
+
+    /**
+     * Writes the artifact into the screenshots folder next to the report, if it is not there yet.
+     *
+     * @param report the HTML file of the report
+     * @return its path relative to the report file
+     */
+    public static String link(Artifact artifact, Path report) {
+        return link(ArtifactStore.shared(), artifact, report);
+    }
+
+    static String link(ArtifactStore store, Artifact artifact, Path report) {
+        long start = Metrics.start();
+        try {
+            Path folder = report.toAbsolutePath().normalize().getParent();
+            Path file = store.export(artifact.getHash(), folder.resolve(SCREENSHOTS_FOLDER));
+            return folder.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+        } catch (IOException e) {
+            throw new FrameworkException("Could not write screenshot " + artifact + " to the report: " + e.getMessage(), e);
+        } finally {
+            Metrics.stop("attachment.link", start);
+        }
+    }
+
+    /**
+     * Streams the Base64 encoding of the artifact to the output, from the store's mapped segment and without a
+     * Base64 string; the output is not closed.
+     */
+    public static void writeBase64(Artifact artifact, OutputStream out) throws IOException {
+        writeBase64(ArtifactStore.shared(), artifact.getHash(), out);
+    }
+
+    static void writeBase64(ArtifactStore store, String hash, OutputStream out) throws IOException {
+        OutputStream encoder = Base64.getEncoder().wrap(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+        });
+        try (WritableByteChannel channel = Channels.newChannel(encoder)) {
+            store.transferTo(hash, channel);
+        }
+    }
+
+    private static Path defaultReport() {
+        return Paths.get(FrameworkConstants.getExtentReportFilePath());
+    }
+
+    private static String base64(Artifact artifact) {
+        long start = Metrics.start();
+        ByteArrayOutputStream text = new ByteArrayOutputStream((artifact.getLength() + 2) / 3 * 4);
+        try {
+            writeBase64(artifact, text);
+        } catch (IOException e) {
+            throw new FrameworkException("Could not encode screenshot " + artifact + ": " + e.getMessage(), e);
+        } finally {
+            Metrics.stop("attachment.embed", start);
+        }
+        return text.toString(StandardCharsets.US_ASCII);
+    }
+}
@@ -1,18 +1,14 @@
 package com.tonic.utils;
 
+import com.tonic.artifacts.Artifact;
+import com.tonic.artifacts.ArtifactStore;
 import com.tonic.driver.Driver;
 import com.tonic.enums.ConfigProperties;
+import com.tonic.metrics.Metrics;
+import io.appium.java_client.AppiumDriver;
 import org.openqa.selenium.OutputType;
-import org.openqa.selenium.TakesScreenshot;
-import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.remote.Augmenter;
-import ru.yandex.qatools.ashot.AShot;
-import ru.yandex.qatools.ashot.Screenshot;
-import ru.yandex.qatools.ashot.shooting.ShootingStrategies;
 
 import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -28,57 +24,65 @@ public class ScreenshotUtils {
 
 	private ScreenshotUtils() {}
 
+	// Base64 text of the screenshot; prefer screenshotArtifact(), which ReportAttachments shows without copying it again
 	public static String screenshotCapture() {
-		WebDriver webdriver = null;
-		webdriver = Driver.getDriver();
-		webdriver = new Augmenter().augment(webdriver);
-		try {
-			if (PropertyBuilder.getPropValue(ConfigProperties.SNAPSHOT).equalsIgnoreCase("normal")) {
-                return ((TakesScreenshot) webdriver).getScreenshotAs(OutputType.BASE64);
-
-			} else {
-				Screenshot screenshot = new AShot().shootingStrategy(ShootingStrategies.viewportPasting(100))
-						.takeScreenshot(webdriver);
-
-				ByteArrayOutputStream out = new ByteArrayOutputStream();
-				ImageIO.write(screenshot.getImage(), "PNG", out);
-
-				byte[] bytes = out.toByteArray();
-                return Base64.getEncoder().encodeToString(bytes);
-
-			}
-		} catch (Exception e) {
-			Robot robot = null;
-			try {
-				robot = new Robot();
-			} catch (AWTException e1) {
-				e1.printStackTrace();
-			}
-
-			Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+		return Base64.getEncoder().encodeToString(ArtifactStore.shared().get(screenshotArtifact().getHash()));
+	}
 
-			Rectangle rectangle = new Rectangle(screenSize);
+	/**
+	 * Takes a screenshot of the device into the ArtifactStore.
+	 */
+	public static Artifact screenshotArtifact() {
+		long start = Metrics.start();
+		try {
+			return ArtifactStore.shared().put(capture(), "image/png");
+		} finally {
+			Metrics.stop("screenshot.appium", start);
+			Metrics.increment("screenshots");
+		}
+	}
 
-			BufferedImage source = robot.createScreenCapture(rectangle);
-			String base64String = imgToBase64String(source, "png");
+	private static byte[] capture() {
+		AppiumDriver driver = Driver.getDriver();
+		if (!PropertyBuilder.getPropValue(ConfigProperties.SNAPSHOT).equalsIgnoreCase("normal")) {
 			try {
-				webdriver.switchTo().alert().dismiss();
-			} catch (Exception e1) {
-				System.out.println("alert encountered");
+				// the whole scrollable screen, stitched from the device's own screenshots
+				return ScrollStitcher.capture(driver);
+			} catch (Exception e) {
+				System.err.println("Full-page screenshot failed, taking the visible screen: " + e.getMessage());
+				try {
+					driver.switchTo().alert().dismiss();
+				} catch (Exception e1) {
+					System.out.println("alert encountered");
+				}
 			}
-			return base64String;
-
 		}
-
+		return driver.getScreenshotAs(OutputType.BYTES);
 	}
 
 	public static String imgToBase64String(final RenderedImage img, final String formatName) {
+		long start = Metrics.start();
 		final ByteArrayOutputStream os = new ByteArrayOutputStream();
 		try (final OutputStream b64os = Base64.getEncoder().wrap(os)) {
 			ImageIO.write(img, formatName, b64os);
 		} catch (final IOException ioe) {
 			throw new UncheckedIOException(ioe);
+		} finally {
+			Metrics.stop("screenshot.encode", start);
 		}
 		return os.toString();
 	}
+
+	public static byte[] imgToBytes(final RenderedImage img, final String formatName) {
+		long start = Metrics.start();
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try {
+			ImageIO.write(img, formatName, os);
+		} catch (final IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		} finally {
+			Metrics.stop("screenshot.encode", start);
+		}
+		return os.toByteArray();
+	}
 }
\ No newline at end of file
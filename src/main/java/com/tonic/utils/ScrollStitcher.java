@@ -0,0 +1,340 @@
+package com.tonic.utils;
+
+import com.tonic.exceptions.FrameworkException;
+import com.tonic.metrics.Metrics;
+import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.interactions.Pause;
+import org.openqa.selenium.interactions.PointerInput;
+import org.openqa.selenium.interactions.Sequence;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Full-page screenshot of a native mobile screen: scrolls down one swipe at a time, captures each viewport and keeps
+ * only the rows the previous capture did not have.
+ * <p>
+ * The overlap of two captures is found by comparing row hashes: rows that stay in place (status bar, toolbar, bottom
+ * navigation) are the fixed header and footer, and the scrolled content is the offset at which the rows of the new
+ * capture continue the previous one. The screen has reached the end when nothing moved. New rows go straight into a
+ * deflate stream of the PNG, so only two captures and the compressed page are ever in memory, never the whole page
+ * as an image. The screen is scrolled back to where it was afterwards.
+ */
+public final class ScrollStitcher {
+
+    private ScrollStitcher() {
+    }
+
+    private static final int MAX_SWIPES = 30;
+    // share of the screen height scrolled by each swipe, starting below the toolbar and above the navigation bar
+    private static final double SWIPE_FROM = 0.75;
+    private static final double SWIPE_TO = 0.30;
+    // rows of an overlap allowed to differ, e.g. the clock of the status bar or a blinking cursor
+    private static final double MISMATCH_TOLERANCE = 0.02;
+
+    /**
+     * @return the PNG of the whole scrollable screen
+     */
+    public static byte[] capture(AppiumDriver driver) {
+        long start = Metrics.start();
+        DeviceScreen screen = new DeviceScreen(driver);
+        try {
+            return stitch(screen);
+        } finally {
+            scrollBack(driver, screen.swipes);
+            Metrics.stop("screenshot.stitch", start);
+        }
+    }
+
+    /**
+     * A scrollable screen: what is visible, and a swipe of {@value #SWIPE_FROM} to {@value #SWIPE_TO} of its height.
+     */
+    interface Screen {
+
+        BufferedImage capture();
+
+        void swipe();
+    }
+
+    /**
+     * Scrolls the screen to its end, at most {@value #MAX_SWIPES} swipes, stitching the captures.
+     *
+     * @return the PNG of the whole screen
+     */
+    static byte[] stitch(Screen screen) {
+        BufferedImage previous = screen.capture();
+        long[] previousRows = rowHashes(previous);
+        int width = previous.getWidth();
+        int height = previous.getHeight();
+        int expectedOffset = (int) (height * (SWIPE_FROM - SWIPE_TO));
+        PngStream png = new PngStream(width);
+        int footer = -1;
+
+        for (int swipes = 0; swipes < MAX_SWIPES; swipes++) {
+            screen.swipe();
+            BufferedImage next = screen.capture();
+            if (next.getWidth() != width || next.getHeight() != height) {
+                // rotated or resized while scrolling: keep what was stitched so far
+                break;
+            }
+            long[] nextRows = rowHashes(next);
+            Overlap overlap = Overlap.of(previousRows, nextRows, expectedOffset, footer);
+            if (overlap.offset == 0) {
+                break;
+            }
+            if (footer < 0) {
+                // the first screen in full, down to its fixed footer
+                png.append(previous, 0, height - overlap.bottom);
+            }
+            footer = overlap.bottom;
+            png.append(next, height - overlap.bottom - overlap.offset, height - overlap.bottom);
+            previous = next;
+            previousRows = nextRows;
+        }
+        if (footer < 0) {
+            png.append(previous, 0, height);
+        } else {
+            png.append(previous, height - footer, height);
+        }
+        return png.finish();
+    }
+
+    /**
+     * Where the rows of the next capture continue the previous one.
+     */
+    static final class Overlap {
+
+        // rows the content moved up, 0 when nothing moved
+        final int offset;
+        // fixed rows at the top and the bottom of both captures
+        final int top;
+        final int bottom;
+
+        private Overlap(int offset, int top, int bottom) {
+            this.offset = offset;
+            this.top = top;
+            this.bottom = bottom;
+        }
+
+        /**
+         * @param footer the fixed footer found by the previous swipes, or -1 to find it; it is kept for the whole
+         *               capture, so every band of rows is cut at the same place
+         */
+        static Overlap of(long[] previous, long[] next, int expectedOffset, int footer) {
+            int height = previous.length;
+            if (Arrays.equals(previous, next)) {
+                return new Overlap(0, height, 0);
+            }
+            // the header may have changed a little, like the clock of the status bar
+            int top = 0;
+            int allowed = (int) (height * MISMATCH_TOLERANCE);
+            for (int row = 0; row < height; row++) {
+                if (previous[row] == next[row]) {
+                    top = row + 1;
+                } else if (--allowed < 0) {
+                    break;
+                }
+            }
+            int bottom = footer;
+            if (bottom < 0) {
+                bottom = 0;
+                while (bottom < height - top && previous[height - 1 - bottom] == next[height - 1 - bottom]) {
+                    bottom++;
+                }
+            }
+            top = Math.min(top, height - bottom);
+            int content = height - top - bottom;
+            // several offsets can match where the content has blank stretches: take the one nearest the swipe
+            int best = -1;
+            for (int offset = 1; offset < content; offset++) {
+                if ((best < 0 || Math.abs(offset - expectedOffset) < Math.abs(best - expectedOffset))
+                        && matches(previous, next, top, content, offset)) {
+                    best = offset;
+                }
+            }
+            // no overlap at all, the swipe went further than a screen: keep the whole content
+            return new Overlap(best < 0 ? content : best, top, bottom);
+        }
+
+        private static boolean matches(long[] previous, long[] next, int top, int content, int offset) {
+            int rows = content - offset;
+            int allowed = (int) (rows * MISMATCH_TOLERANCE);
+            for (int row = 0; row < rows; row++) {
+                if (previous[top + offset + row] != next[top + row] && --allowed < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class DeviceScreen implements Screen {
+
+        private final AppiumDriver driver;
+        // to scroll back as many times
+        int swipes;
+
+        DeviceScreen(AppiumDriver driver) {
+            this.driver = driver;
+        }
+
+        @Override
+        public BufferedImage capture() {
+            try {
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(driver.getScreenshotAs(OutputType.BYTES)));
+                if (image == null) {
+                    throw new FrameworkException("The device returned a screenshot that is not an image");
+                }
+                return image;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void swipe() {
+            ScrollStitcher.swipe(driver, SWIPE_FROM, SWIPE_TO, Duration.ofMillis(600));
+            swipes++;
+        }
+    }
+
+    static long[] rowHashes(BufferedImage image) {
+        int width = image.getWidth();
+        int[] row = new int[width];
+        long[] hashes = new long[image.getHeight()];
+        for (int y = 0; y < hashes.length; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            long hash = 0xcbf29ce484222325L;
+            for (int pixel : row) {
+                hash = (hash ^ pixel) * 0x100000001b3L;
+            }
+            hashes[y] = hash;
+        }
+        return hashes;
+    }
+
+    /**
+     * A slow drag held at the end, so the list does not keep scrolling once the finger is lifted.
+     */
+    private static void swipe(AppiumDriver driver, double from, double to, Duration duration) {
+        Dimension size = driver.manage().window().getSize();
+        int x = size.getWidth() / 2;
+        PointerInput finger = new PointerInput(PointerInput.Kind.TOUCH, "finger1");
+        Sequence swipe = new Sequence(finger, 1)
+                .addAction(finger.createPointerMove(Duration.ZERO, PointerInput.Origin.viewport(), x, (int) (size.getHeight() * from)))
+                .addAction(finger.createPointerDown(PointerInput.MouseButton.LEFT.asArg()))
+                .addAction(finger.createPointerMove(duration, PointerInput.Origin.viewport(), x, (int) (size.getHeight() * to)))
+                .addAction(new Pause(finger, Duration.ofMillis(200)))
+                .addAction(finger.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+        driver.perform(Collections.singletonList(swipe));
+    }
+
+    private static void scrollBack(AppiumDriver driver, int swipes) {
+        try {
+            for (int i = 0; i < swipes; i++) {
+                swipe(driver, SWIPE_TO, SWIPE_FROM, Duration.ofMillis(150));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Could not scroll back after a full-page screenshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * PNG written a band of rows at a time: the rows are filtered and deflated as they come, and the header, which
+     * needs the final height, is put in front when the image is finished.
+     */
+    static final class PngStream {
+
+        private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+        private static final int CHUNK_BYTES = 256 * 1024;
+
+        private final int width;
+        private final int[] pixels;
+        private final byte[] line;
+        private final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater, 64 * 1024);
+        private int height;
+
+        PngStream(int width) {
+            this.width = width;
+            this.pixels = new int[width];
+            this.line = new byte[1 + width * 3];
+        }
+
+        /**
+         * Appends rows {@code [fromY, toY)} of the image.
+         */
+        void append(BufferedImage image, int fromY, int toY) {
+            try {
+                for (int y = fromY; y < toY; y++) {
+                    image.getRGB(0, y, width, 1, pixels, 0, width);
+                    // "Sub" filter: each byte minus the same channel of the pixel on its left
+                    line[0] = 1;
+                    int left = 0;
+                    for (int x = 0, i = 1; x < width; x++, i += 3) {
+                        int pixel = pixels[x];
+                        line[i] = (byte) ((pixel >> 16) - (left >> 16));
+                        line[i + 1] = (byte) ((pixel >> 8) - (left >> 8));
+                        line[i + 2] = (byte) (pixel - left);
+                        left = pixel;
+                    }
+                    out.write(line);
+                    height++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        byte[] finish() {
+            try {
+                out.finish();
+                deflater.end();
+                ByteArrayOutputStream png = new ByteArrayOutputStream(compressed.size() + 1024);
+                DataOutputStream data = new DataOutputStream(png);
+                data.write(SIGNATURE);
+                ByteArrayOutputStream header = new ByteArrayOutputStream();
+                DataOutputStream ihdr = new DataOutputStream(header);
+                ihdr.writeInt(width);
+                ihdr.writeInt(height);
+                // 8 bits per channel, truecolour, deflate, adaptive filtering, no interlace
+                ihdr.write(new byte[]{8, 2, 0, 0, 0});
+                chunk(data, "IHDR", header.toByteArray(), 0, header.size());
+                byte[] idat = compressed.toByteArray();
+                for (int offset = 0; offset < idat.length; offset += CHUNK_BYTES) {
+                    chunk(data, "IDAT", idat, offset, Math.min(CHUNK_BYTES, idat.length - offset));
+                }
+                chunk(data, "IEND", new byte[0], 0, 0);
+                return png.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static void chunk(DataOutputStream data, String type, byte[] bytes, int offset, int length) throws IOException {
+            byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+            CRC32 crc = new CRC32();
+            crc.update(typeBytes);
+            crc.update(bytes, offset, length);
+            data.writeInt(length);
+            data.write(typeBytes);
+            data.write(bytes, offset, length);
+            data.writeInt((int) crc.getValue());
+        }
+    }
+}
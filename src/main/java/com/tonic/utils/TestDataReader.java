@@ -0,0 +1,90 @@
+package com.tonic.utils;
+
+import com.tonic.concurrent.IoExecutors;
+import com.tonic.constants.FrameworkConstants;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads the JSON test data files kept under {@code src/main/resources/data}.
+ */
+public final class TestDataReader {
+
+    private TestDataReader() {
+    }
+
+    // file contents read ahead by preload(), parsed again on every read so callers never share a JSONObject
+    private static final Map<String, String> PRELOADED = new ConcurrentHashMap<>();
+
+    public static JSONObject readJson(String fileName) throws IOException, ParseException {
+        String preloaded = PRELOADED.get(fileName);
+        if (preloaded != null) {
+            return (JSONObject) new JSONParser().parse(preloaded);
+        }
+        try (FileReader reader = new FileReader(FrameworkConstants.getInputJsonPath() + fileName + ".json")) {
+            return (JSONObject) new JSONParser().parse(reader);
+        }
+    }
+
+    /**
+     * Reads every data file into memory, concurrently on the {@link IoExecutors}, so later reads skip the disk.
+     *
+     * @return the number of files read
+     */
+    public static int preload() {
+        File[] files = new File(FrameworkConstants.getInputJsonPath()).listFiles((dir, name) -> name.endsWith(".json"));
+        if (files == null) {
+            return 0;
+        }
+        List<Callable<String>> reads = new ArrayList<>(files.length);
+        for (File file : files) {
+            reads.add(() -> new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        }
+        List<String> contents = IoExecutors.invokeAll(reads);
+        for (int i = 0; i < files.length; i++) {
+            String name = files[i].getName();
+            PRELOADED.put(name.substring(0, name.length() - ".json".length()), contents.get(i));
+        }
+        return files.length;
+    }
+
+    /**
+     * Reads several data files concurrently on the {@link IoExecutors}.
+     *
+     * @return the content of each file, keyed by file name
+     */
+    public static Map<String, JSONObject> readAll(String... fileNames) {
+        List<Callable<JSONObject>> reads = new ArrayList<>(fileNames.length);
+        for (String fileName : fileNames) {
+            reads.add(() -> readJson(fileName));
+        }
+        List<JSONObject> contents = IoExecutors.invokeAll(reads);
+        Map<String, JSONObject> data = new LinkedHashMap<>();
+        for (int i = 0; i < fileNames.length; i++) {
+            data.put(fileNames[i], contents.get(i));
+        }
+        return data;
+    }
+
+    /**
+     * @return the data of every test method of the given class, keyed by method name
+     */
+    @SuppressWarnings("unchecked")
+    public static HashMap<String, HashMap<String, String>> getClassData(String fileName, String className) throws IOException, ParseException {
+        return (HashMap<String, HashMap<String, String>>) readJson(fileName).get(className);
+    }
+}
@@ -0,0 +1,554 @@
+package com.tonic.visual;
+
+import com.tonic.exceptions.FrameworkException;
+import com.tonic.metrics.Metrics;
+
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Perceptual comparison of two screenshots.
+ * <p>
+ * The images are cut into {@value #TILE}x{@value #TILE} tiles compared in parallel. A tile row is first compared as
+ * a whole ({@link Arrays#mismatch}), so identical regions, most of a typical screenshot, cost next to nothing. Only
+ * pixels that differ are weighed: by their YIQ colour distance against {@code threshold}, and, unless disabled, by
+ * whether they are anti-aliasing of an edge that moved by a sub-pixel, which is not counted as a difference. Pixels in
+ * ignore regions are skipped. With {@link #stopAfter(long)} the comparison stops as soon as the count is exceeded,
+ * when only pass or fail matters.
+ * <pre>
+ * ImageDiff.Result result = ImageDiff.create().threshold(0.1).ignore(clock).stopAfter(100).compare(expected, actual);
+ * </pre>
+ */
+public final class ImageDiff {
+
+    private static final int TILE = 64;
+    // the largest possible YIQ distance, between black and white
+    private static final double MAX_YIQ_DELTA = 35215;
+    private static final int RED = 0xFFFF0000;
+    private static final int YELLOW = 0xFFFFFF00;
+
+    private double threshold = 0.1;
+    private boolean antialiasing = true;
+    private long stopAfter = -1;
+    private final List<Rectangle> ignored = new ArrayList<>();
+
+    private ImageDiff() {
+    }
+
+    public static ImageDiff create() {
+        return new ImageDiff();
+    }
+
+    /**
+     * @param threshold colour distance, from 0 (any change) to 1, below which two pixels are the same; 0.1 by default
+     */
+    public ImageDiff threshold(double threshold) {
+        if (threshold < 0 || threshold > 1) {
+            throw new FrameworkException("The visual diff threshold must be between 0 and 1, not " + threshold);
+        }
+        this.threshold = threshold;
+        return this;
+    }
+
+    /**
+     * Counts anti-aliased pixels as differences too; they are tolerated by default.
+     */
+    public ImageDiff strictAntialiasing() {
+        this.antialiasing = false;
+        return this;
+    }
+
+    /**
+     * Stops comparing once more than that many pixels differ; the counts of the result are then lower bounds.
+     */
+    public ImageDiff stopAfter(long pixels) {
+        this.stopAfter = pixels;
+        return this;
+    }
+
+    /**
+     * Skips a region, in pixels of the images, e.g. a clock or an ad.
+     */
+    public ImageDiff ignore(Rectangle region) {
+        ignored.add(new Rectangle(region));
+        return this;
+    }
+
+    public Result compare(byte[] expectedPng, byte[] actualPng) {
+        return compare(decode(expectedPng), decode(actualPng));
+    }
+
+    public Result compare(BufferedImage expected, BufferedImage actual) {
+        long start = System.nanoTime();
+        Pixels before = Pixels.of(expected);
+        Pixels after = Pixels.of(actual);
+        if (before.type != after.type) {
+            before = before.toArgb();
+            after = after.toArgb();
+        }
+        if (ignored.isEmpty() && before.sameAs(after)) {
+            long elapsed = System.nanoTime() - start;
+            Metrics.record("visual.diff", elapsed);
+            return new Result(new Comparison(before, after, after.width, after.height), 0, elapsed);
+        }
+        int width = Math.min(before.width, after.width);
+        int height = Math.min(before.height, after.height);
+        int tilesX = (width + TILE - 1) / TILE;
+        int tilesY = (height + TILE - 1) / TILE;
+        // the pixels outside the common area, when the sizes differ, are all differences
+        long outside = (long) Math.max(before.width, after.width) * Math.max(before.height, after.height) - (long) width * height;
+
+        Comparison comparison = new Comparison(before, after, width, height);
+        if (comparison.diff.addAndGet(outside) > stopAfter && stopAfter >= 0) {
+            comparison.stopped.set(true);
+        }
+        IntStream.range(0, tilesX * tilesY).parallel()
+                .forEach(tile -> comparison.compareTile((tile % tilesX) * TILE, (tile / tilesX) * TILE));
+
+        long elapsed = System.nanoTime() - start;
+        Metrics.record("visual.diff", elapsed);
+        return new Result(comparison, outside, elapsed);
+    }
+
+    static BufferedImage decode(byte[] png) {
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+            if (image == null) {
+                throw new FrameworkException("Not an image: " + png.length + " bytes");
+            }
+            return image;
+        } catch (IOException e) {
+            throw new FrameworkException("Could not decode an image: " + e.getMessage(), e);
+        }
+    }
+
+    private final class Comparison {
+
+        final Pixels before;
+        final Pixels after;
+        final int width;
+        final int height;
+        final double maxDelta = MAX_YIQ_DELTA * threshold * threshold;
+        final AtomicLong diff = new AtomicLong();
+        final AtomicLong antialiased = new AtomicLong();
+        final AtomicLong changedTiles = new AtomicLong();
+        final AtomicBoolean stopped = new AtomicBoolean();
+        // 0 same, 1 different, 2 anti-aliased; tiles are disjoint, so each is written by one thread only
+        volatile byte[] marks;
+        // bounding box of the differences
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = -1;
+        int maxY = -1;
+
+        Comparison(Pixels before, Pixels after, int width, int height) {
+            this.before = before;
+            this.after = after;
+            this.width = width;
+            this.height = height;
+        }
+
+        void compareTile(int x0, int y0) {
+            if (stopped.get()) {
+                return;
+            }
+            int x1 = Math.min(x0 + TILE, width);
+            int y1 = Math.min(y0 + TILE, height);
+            long tileDiff = 0;
+            int tileMinX = Integer.MAX_VALUE;
+            int tileMinY = Integer.MAX_VALUE;
+            int tileMaxX = -1;
+            int tileMaxY = -1;
+            for (int y = y0; y < y1 && !stopped.get(); y++) {
+                int rowBefore = y * before.width;
+                int rowAfter = y * after.width;
+                int x = x0;
+                while (x < x1) {
+                    int mismatch = before.mismatch(rowBefore + x, after, rowAfter + x, x1 - x);
+                    if (mismatch < 0) {
+                        break;
+                    }
+                    x += mismatch;
+                    int mark = weigh(x, y);
+                    if (mark != 0) {
+                        marks()[y * width + x] = (byte) mark;
+                        if (mark == 1) {
+                            tileDiff++;
+                            tileMinX = Math.min(tileMinX, x);
+                            tileMinY = Math.min(tileMinY, y);
+                            tileMaxX = Math.max(tileMaxX, x);
+                            tileMaxY = Math.max(tileMaxY, y);
+                        } else {
+                            antialiased.incrementAndGet();
+                        }
+                    }
+                    x++;
+                }
+                if (tileDiff > 0 && stopAfter >= 0 && diff.get() + tileDiff > stopAfter) {
+                    stopped.set(true);
+                }
+            }
+            if (tileDiff > 0) {
+                diff.addAndGet(tileDiff);
+                changedTiles.incrementAndGet();
+                synchronized (this) {
+                    minX = Math.min(minX, tileMinX);
+                    minY = Math.min(minY, tileMinY);
+                    maxX = Math.max(maxX, tileMaxX);
+                    maxY = Math.max(maxY, tileMaxY);
+                }
+                if (stopAfter >= 0 && diff.get() > stopAfter) {
+                    stopped.set(true);
+                }
+            }
+        }
+
+        /**
+         * @return 0 when the pixels look the same, 1 when they differ, 2 when the difference is anti-aliasing
+         */
+        int weigh(int x, int y) {
+            for (Rectangle region : ignored) {
+                if (region.contains(x, y)) {
+                    return 0;
+                }
+            }
+            int expected = before.argb(y * before.width + x);
+            int actual = after.argb(y * after.width + x);
+            if (Math.abs(colorDelta(expected, actual, false)) <= maxDelta) {
+                return 0;
+            }
+            if (antialiasing && (antialiased(before, after, x, y) || antialiased(after, before, x, y))) {
+                return 2;
+            }
+            return 1;
+        }
+
+        byte[] marks() {
+            byte[] current = marks;
+            if (current == null) {
+                synchronized (this) {
+                    current = marks;
+                    if (current == null) {
+                        current = new byte[width * height];
+                        marks = current;
+                    }
+                }
+            }
+            return current;
+        }
+
+        /**
+         * Whether the pixel sits on an edge in {@code image}: it has both a darker and a brighter neighbour, and
+         * that neighbour is part of a flat area in both images. Same approach as the pixelmatch library.
+         */
+        boolean antialiased(Pixels image, Pixels other, int x1, int y1) {
+            int x0 = Math.max(x1 - 1, 0);
+            int y0 = Math.max(y1 - 1, 0);
+            int x2 = Math.min(x1 + 1, width - 1);
+            int y2 = Math.min(y1 + 1, height - 1);
+            int center = image.argb(y1 * image.width + x1);
+            int zeroes = x1 == x0 || x1 == x2 || y1 == y0 || y1 == y2 ? 1 : 0;
+            double min = 0;
+            double max = 0;
+            int minX = 0;
+            int minY = 0;
+            int maxX = 0;
+            int maxY = 0;
+            for (int x = x0; x <= x2; x++) {
+                for (int y = y0; y <= y2; y++) {
+                    if (x == x1 && y == y1) {
+                        continue;
+                    }
+                    double delta = colorDelta(center, image.argb(y * image.width + x), true);
+                    if (delta == 0) {
+                        zeroes++;
+                        if (zeroes > 2) {
+                            return false;
+                        }
+                    } else if (delta < min) {
+                        min = delta;
+                        minX = x;
+                        minY = y;
+                    } else if (delta > max) {
+                        max = delta;
+                        maxX = x;
+                        maxY = y;
+                    }
+                }
+            }
+            if (min == 0 || max == 0) {
+                return false;
+            }
+            return (hasManySiblings(image, minX, minY) && hasManySiblings(other, minX, minY))
+                    || (hasManySiblings(image, maxX, maxY) && hasManySiblings(other, maxX, maxY));
+        }
+
+        private boolean hasManySiblings(Pixels image, int x1, int y1) {
+            int x0 = Math.max(x1 - 1, 0);
+            int y0 = Math.max(y1 - 1, 0);
+            int x2 = Math.min(x1 + 1, width - 1);
+            int y2 = Math.min(y1 + 1, height - 1);
+            int center = image.argb(y1 * image.width + x1);
+            int zeroes = x1 == x0 || x1 == x2 || y1 == y0 || y1 == y2 ? 1 : 0;
+            for (int x = x0; x <= x2; x++) {
+                for (int y = y0; y <= y2; y++) {
+                    if ((x != x1 || y != y1) && image.argb(y * image.width + x) == center) {
+                        zeroes++;
+                        if (zeroes > 2) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * YIQ distance of two ARGB pixels blended on white, negative when the second is brighter; with
+     * {@code brightnessOnly} the difference of their luma.
+     */
+    static double colorDelta(int first, int second, boolean brightnessOnly) {
+        double a1 = (first >>> 24) / 255.0;
+        double a2 = (second >>> 24) / 255.0;
+        double r1 = blend((first >> 16) & 0xFF, a1);
+        double g1 = blend((first >> 8) & 0xFF, a1);
+        double b1 = blend(first & 0xFF, a1);
+        double r2 = blend((second >> 16) & 0xFF, a2);
+        double g2 = blend((second >> 8) & 0xFF, a2);
+        double b2 = blend(second & 0xFF, a2);
+
+        double y1 = r1 * 0.29889531 + g1 * 0.58662247 + b1 * 0.11448223;
+        double y2 = r2 * 0.29889531 + g2 * 0.58662247 + b2 * 0.11448223;
+        double y = y1 - y2;
+        if (brightnessOnly) {
+            return y;
+        }
+        double i = (r1 * 0.59597799 - g1 * 0.27417610 - b1 * 0.32180189) - (r2 * 0.59597799 - g2 * 0.27417610 - b2 * 0.32180189);
+        double q = (r1 * 0.21147017 - g1 * 0.52261711 + b1 * 0.31114694) - (r2 * 0.21147017 - g2 * 0.52261711 + b2 * 0.31114694);
+        double delta = 0.5053 * y * y + 0.299 * i * i + 0.1957 * q * q;
+        return y1 > y2 ? -delta : delta;
+    }
+
+    private static double blend(int channel, double alpha) {
+        return 255 + (channel - 255) * alpha;
+    }
+
+    /**
+     * The pixels of an image, read in place from the raster for the usual screenshot formats (PNG decodes to
+     * {@code TYPE_3BYTE_BGR} or {@code TYPE_4BYTE_ABGR}) and converted to ARGB ints otherwise.
+     */
+    static final class Pixels {
+
+        final int width;
+        final int height;
+        final int type;
+        final int[] ints;
+        final byte[] bytes;
+        final int bytesPerPixel;
+
+        private Pixels(int width, int height, int type, int[] ints, byte[] bytes, int bytesPerPixel) {
+            this.width = width;
+            this.height = height;
+            this.type = type;
+            this.ints = ints;
+            this.bytes = bytes;
+            this.bytesPerPixel = bytesPerPixel;
+        }
+
+        static Pixels of(BufferedImage image) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int size = width * height;
+            boolean plain = image.getRaster().getParent() == null && image.getRaster().getMinX() == 0 && image.getRaster().getMinY() == 0;
+            if (plain) {
+                switch (image.getType()) {
+                    case BufferedImage.TYPE_INT_ARGB:
+                    case BufferedImage.TYPE_INT_RGB: {
+                        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+                        if (data.length == size) {
+                            return new Pixels(width, height, image.getType(), data, null, 1);
+                        }
+                        break;
+                    }
+                    case BufferedImage.TYPE_4BYTE_ABGR:
+                    case BufferedImage.TYPE_3BYTE_BGR: {
+                        byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+                        int bytesPerPixel = image.getType() == BufferedImage.TYPE_4BYTE_ABGR ? 4 : 3;
+                        if (data.length == size * bytesPerPixel) {
+                            return new Pixels(width, height, image.getType(), null, data, bytesPerPixel);
+                        }
+                        break;
+                    }
+                    default:
+                        break;
+                }
+            }
+            return new Pixels(width, height, BufferedImage.TYPE_INT_ARGB, image.getRGB(0, 0, width, height, null, 0, width), null, 1);
+        }
+
+        /**
+         * @return the pixels as ARGB ints, to compare with an image of another layout
+         */
+        Pixels toArgb() {
+            if (type == BufferedImage.TYPE_INT_ARGB) {
+                return this;
+            }
+            int[] argb = new int[width * height];
+            for (int i = 0; i < argb.length; i++) {
+                argb[i] = argb(i);
+            }
+            return new Pixels(width, height, BufferedImage.TYPE_INT_ARGB, argb, null, 1);
+        }
+
+        int argb(int index) {
+            if (ints != null) {
+                return type == BufferedImage.TYPE_INT_RGB ? 0xFF000000 | ints[index] : ints[index];
+            }
+            int i = index * bytesPerPixel;
+            if (bytesPerPixel == 4) {
+                return (bytes[i] & 0xFF) << 24 | (bytes[i + 3] & 0xFF) << 16 | (bytes[i + 2] & 0xFF) << 8 | (bytes[i + 1] & 0xFF);
+            }
+            return 0xFF000000 | (bytes[i + 2] & 0xFF) << 16 | (bytes[i + 1] & 0xFF) << 8 | (bytes[i] & 0xFF);
+        }
+
+        /**
+         * @return the offset of the first pixel that differs in the two runs of pixels, or -1 when they are equal
+         */
+        int mismatch(int from, Pixels other, int otherFrom, int length) {
+            if (ints != null) {
+                return Arrays.mismatch(ints, from, from + length, other.ints, otherFrom, otherFrom + length);
+            }
+            int b = bytesPerPixel;
+            int mismatch = Arrays.mismatch(bytes, from * b, (from + length) * b, other.bytes, otherFrom * b, (otherFrom + length) * b);
+            return mismatch < 0 ? -1 : mismatch / b;
+        }
+
+        boolean sameAs(Pixels other) {
+            return width == other.width && height == other.height
+                    && (ints != null ? Arrays.equals(ints, other.ints) : Arrays.equals(bytes, other.bytes));
+        }
+    }
+
+    /**
+     * Outcome of a comparison, with the image of the differences on demand.
+     */
+    public static final class Result {
+
+        private final Pixels actual;
+        private final int width;
+        private final int height;
+        private final int commonWidth;
+        private final int commonHeight;
+        private final byte[] marks;
+        private final long diffPixels;
+        private final long antialiasedPixels;
+        private final long changedTiles;
+        private final long outsidePixels;
+        private final boolean stoppedEarly;
+        private final Rectangle bounds;
+        private final long elapsedNanos;
+
+        private Result(Comparison comparison, long outsidePixels, long elapsedNanos) {
+            this.actual = comparison.after;
+            this.width = Math.max(comparison.before.width, comparison.after.width);
+            this.height = Math.max(comparison.before.height, comparison.after.height);
+            this.commonWidth = comparison.width;
+            this.commonHeight = comparison.height;
+            this.marks = comparison.marks;
+            this.diffPixels = comparison.diff.get();
+            this.antialiasedPixels = comparison.antialiased.get();
+            this.changedTiles = comparison.changedTiles.get();
+            this.outsidePixels = outsidePixels;
+            this.stoppedEarly = comparison.stopped.get();
+            this.bounds = comparison.maxX < 0 ? null
+                    : new Rectangle(comparison.minX, comparison.minY, comparison.maxX - comparison.minX + 1, comparison.maxY - comparison.minY + 1);
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public boolean isIdentical() {
+            return diffPixels == 0;
+        }
+
+        public long getDiffPixels() {
+            return diffPixels;
+        }
+
+        /**
+         * @return the share of the pixels that differ, from 0 to 1
+         */
+        public double getDiffRatio() {
+            return (double) diffPixels / ((long) width * height);
+        }
+
+        public long getAntialiasedPixels() {
+            return antialiasedPixels;
+        }
+
+        public long getChangedTiles() {
+            return changedTiles;
+        }
+
+        public boolean isSizeMismatch() {
+            return outsidePixels > 0;
+        }
+
+        public boolean isStoppedEarly() {
+            return stoppedEarly;
+        }
+
+        /**
+         * @return the bounding box of the differences in the common area, or null when there are none
+         */
+        public Rectangle getBounds() {
+            return bounds == null ? null : new Rectangle(bounds);
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000L;
+        }
+
+        /**
+         * @return the actual image faded, with the differences in red and tolerated anti-aliasing in yellow
+         */
+        public BufferedImage diffImage() {
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            int[] out = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            // outside the common area, where only one of the images has pixels, everything is a difference
+            Arrays.fill(out, RED);
+            for (int y = 0; y < commonHeight; y++) {
+                for (int x = 0; x < commonWidth; x++) {
+                    byte mark = marks == null ? 0 : marks[y * commonWidth + x];
+                    out[y * width + x] = mark == 1 ? RED : mark == 2 ? YELLOW : fade(actual.argb(y * actual.width + x));
+                }
+            }
+            return image;
+        }
+
+        private static int fade(int argb) {
+            // grey at 10% on white, so the differences stand out
+            double luma = 0.29889531 * ((argb >> 16) & 0xFF) + 0.58662247 * ((argb >> 8) & 0xFF) + 0.11448223 * (argb & 0xFF);
+            int grey = (int) (255 + (luma - 255) * 0.1 * ((argb >>> 24) / 255.0));
+            return 0xFF000000 | grey << 16 | grey << 8 | grey;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d pixels differ (%.3f%%) in %d tiles%s, %d anti-aliased tolerated%s%s, %d ms",
+                    diffPixels, getDiffRatio() * 100, changedTiles, bounds == null ? "" : " within " + bounds.x + "," + bounds.y
+                            + " " + bounds.width + "x" + bounds.height, antialiasedPixels,
+                    isSizeMismatch() ? ", sizes differ" : "", stoppedEarly ? ", stopped early" : "", getElapsedMillis());
+        }
+    }
+}
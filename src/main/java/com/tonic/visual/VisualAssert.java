@@ -0,0 +1,134 @@
+package com.tonic.visual;
+
+import com.microsoft.playwright.Locator;
+import com.microsoft.playwright.Page;
+import com.tonic.artifacts.Artifact;
+import com.tonic.artifacts.ArtifactStore;
+import com.tonic.constants.FrameworkConstants;
+import com.tonic.enums.ConfigProperties;
+import com.tonic.exceptions.FrameworkException;
+import com.tonic.metrics.Metrics;
+import com.tonic.utils.ExtentManager;
+import com.tonic.utils.PropertyBuilder;
+import com.tonic.utils.ReportAttachments;
+import com.tonic.utils.ScreenshotUtils;
+import io.qameta.allure.Allure;
+import org.testng.Assert;
+
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TestNG assertions comparing screenshots with their {@link VisualBaselines}.
+ * <p>
+ * The comparison is an {@link ImageDiff} with {@code visualthreshold} as colour tolerance, failing when more than
+ * {@code visualmaxdiffratio} of the pixels differ. A passing check stops at the first pixels over that limit, so it
+ * is cheap enough for every step; a failing one is compared again in full and the baseline, the screenshot and the
+ * diff (differences in red, tolerated anti-aliasing in yellow) are attached to the reports.
+ */
+public final class VisualAssert {
+
+    private VisualAssert() {
+    }
+
+    private static final double THRESHOLD = Double.parseDouble(setting("visualthreshold", ConfigProperties.VISUALTHRESHOLD));
+    private static final double MAX_DIFF_RATIO = Double.parseDouble(setting("visualmaxdiffratio", ConfigProperties.VISUALMAXDIFFRATIO));
+    private static final boolean UPDATE = "yes".equalsIgnoreCase(setting("visualupdatebaselines", ConfigProperties.VISUALUPDATEBASELINES));
+
+    public static void assertMatchesBaseline(Page page, String step, Rectangle... ignored) {
+        assertMatchesBaseline(page, step, Collections.emptyList(), ignored);
+    }
+
+    /**
+     * Compares a full-page screenshot with the baseline of the step.
+     *
+     * @param masked  elements covered by a box in the screenshot, e.g. dates or avatars that change on every run
+     * @param ignored regions of the page left out of the comparison
+     */
+    public static void assertMatchesBaseline(Page page, String step, List<Locator> masked, Rectangle... ignored) {
+        byte[] screenshot = page.screenshot(new Page.ScreenshotOptions().setFullPage(true).setMask(masked));
+        check(VisualBaselines.forPage(page, step), step, screenshot, ignored);
+    }
+
+    public static void assertElementMatchesBaseline(Locator element, String step, Rectangle... ignored) {
+        check(VisualBaselines.forPage(element.page(), step), step, element.screenshot(), ignored);
+    }
+
+    /**
+     * Compares a screenshot of the mobile device with the baseline of the step.
+     */
+    public static void assertScreenMatchesBaseline(String step, Rectangle... ignored) {
+        Artifact artifact = ScreenshotUtils.screenshotArtifact();
+        byte[] screenshot = ArtifactStore.shared().get(artifact.getHash());
+        BufferedImage image = ImageDiff.decode(screenshot);
+        check(VisualBaselines.forDevice(FrameworkConstants.DEVICE, image.getWidth(), image.getHeight(), step), step, screenshot, ignored);
+    }
+
+    private static void check(Path baseline, String step, byte[] screenshot, Rectangle... ignored) {
+        Artifact actual = ArtifactStore.shared().put(screenshot, "image/png");
+        byte[] expected = VisualBaselines.read(baseline);
+        if (expected == null || UPDATE) {
+            VisualBaselines.write(baseline, screenshot);
+            System.out.println((expected == null ? "New" : "Updated") + " visual baseline for '" + step + "': " + baseline);
+            Metrics.increment("visual.baselines.written");
+            return;
+        }
+
+        BufferedImage expectedImage = ImageDiff.decode(expected);
+        BufferedImage actualImage = ImageDiff.decode(screenshot);
+        long allowed = (long) (MAX_DIFF_RATIO * Math.max(expectedImage.getWidth(), actualImage.getWidth())
+                * Math.max(expectedImage.getHeight(), actualImage.getHeight()));
+        ImageDiff.Result result = diff(ignored).stopAfter(allowed).compare(expectedImage, actualImage);
+        if (result.getDiffPixels() <= allowed) {
+            Metrics.increment("visual.matched");
+            return;
+        }
+
+        Metrics.increment("visual.mismatched");
+        // the early exit left the counts and the diff image incomplete
+        result = diff(ignored).compare(expectedImage, actualImage);
+        byte[] diffPng = encode(result.diffImage());
+        Artifact diff = ArtifactStore.shared().put(diffPng, "image/png");
+        attach(step, expected, screenshot, diffPng, diff);
+        Assert.fail("Visual mismatch on '" + step + "': " + result + "\nbaseline " + baseline
+                + "\nscreenshot " + actual + ", diff " + diff);
+    }
+
+    private static ImageDiff diff(Rectangle... ignored) {
+        ImageDiff diff = ImageDiff.create().threshold(THRESHOLD);
+        for (Rectangle region : ignored) {
+            diff.ignore(region);
+        }
+        return diff;
+    }
+
+    private static void attach(String step, byte[] expected, byte[] actual, byte[] diffPng, Artifact diff) {
+        Allure.addAttachment(step + " - baseline", "image/png", new ByteArrayInputStream(expected), ".png");
+        Allure.addAttachment(step + " - actual", "image/png", new ByteArrayInputStream(actual), ".png");
+        Allure.addAttachment(step + " - diff", "image/png", new ByteArrayInputStream(diffPng), ".png");
+        if (ExtentManager.getExtentTest() != null) {
+            ExtentManager.getExtentTest().info("Visual diff of '" + step + "'", ReportAttachments.media(diff, step + " - diff"));
+        }
+    }
+
+    private static byte[] encode(BufferedImage image) {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", png);
+        } catch (IOException e) {
+            throw new FrameworkException("Could not encode the visual diff: " + e.getMessage(), e);
+        }
+        return png.toByteArray();
+    }
+
+    private static String setting(String systemProperty, ConfigProperties key) {
+        return System.getProperty(systemProperty) == null ? PropertyBuilder.getPropValue(key) : System.getProperty(systemProperty);
+    }
+}
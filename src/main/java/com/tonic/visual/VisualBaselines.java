@@ -0,0 +1,110 @@
+package com.tonic.visual;
+
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.options.ViewportSize;
+import com.tonic.constants.FrameworkConstants;
+import com.tonic.emulation.Emulation;
+import com.tonic.exceptions.FrameworkException;
+import com.tonic.factory.PlaywrightFactory;
+import org.testng.ITestResult;
+import org.testng.Reporter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Baseline screenshots of the visual checks, one PNG per step of a test, browser (or device), viewport and emulation:
+ * {@code src/test/resources/visual-baselines/<browser>/<viewport>/<emulation>/<TestClass.method>/<step>.png}. The
+ * emulation is the emulated device, which sets the device scale factor, and the locale, e.g. {@code iPhone_13_de-DE},
+ * or {@code default}; so the cells of an emulation matrix that share a viewport keep baselines of their own. They are
+ * committed with the tests; a missing baseline is recorded from the first run, and
+ * {@code -Dvisualupdatebaselines=yes} records them all again after an intended change.
+ */
+public final class VisualBaselines {
+
+    private VisualBaselines() {
+    }
+
+    private static final String DEFAULT_EMULATION = "default";
+
+    public static Path path(String browser, String viewport, String emulation, String test, String step) {
+        return Paths.get(FrameworkConstants.getVisualBaselinesFolderPath(), safe(browser), safe(viewport), safe(emulation),
+                safe(test), safe(step) + ".png");
+    }
+
+    /**
+     * @return the baseline of a step of the current test on the page's browser, viewport and emulation
+     */
+    public static Path forPage(Page page, String step) {
+        String browser = PlaywrightFactory.getBrowserName() != null ? PlaywrightFactory.getBrowserName()
+                : page.context().browser().browserType().name();
+        ViewportSize viewport = page.viewportSize();
+        return path(browser, viewport == null ? "window" : viewport.width + "x" + viewport.height,
+                emulation(PlaywrightFactory.getEmulation()), currentTest(), step);
+    }
+
+    /**
+     * @return the baseline of a step of the current test on a device screen of that size
+     */
+    public static Path forDevice(String device, int width, int height, String step) {
+        return path(device, width + "x" + height, DEFAULT_EMULATION, currentTest(), step);
+    }
+
+    /**
+     * @return the folder of the emulation: its device and locale, the viewport being a folder of its own
+     */
+    static String emulation(Emulation emulation) {
+        if (emulation == null || (emulation.getDevice() == null && emulation.getLocale() == null)) {
+            return DEFAULT_EMULATION;
+        }
+        List<String> parts = new ArrayList<>();
+        if (emulation.getDevice() != null) {
+            parts.add(emulation.getDevice());
+        }
+        if (emulation.getLocale() != null) {
+            parts.add(emulation.getLocale());
+        }
+        return String.join("_", parts);
+    }
+
+    /**
+     * @return the baseline PNG, or null when there is none yet
+     */
+    public static byte[] read(Path baseline) {
+        try {
+            return Files.exists(baseline) ? Files.readAllBytes(baseline) : null;
+        } catch (IOException e) {
+            throw new FrameworkException("Could not read visual baseline " + baseline + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static void write(Path baseline, byte[] png) {
+        try {
+            Files.createDirectories(baseline.getParent());
+            // written aside and renamed, so a test reading it never sees half a baseline
+            Path partial = Files.createTempFile(baseline.getParent(), baseline.getFileName().toString(), ".part");
+            Files.write(partial, png);
+            Files.move(partial, baseline, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new FrameworkException("Could not write visual baseline " + baseline + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static String currentTest() {
+        ITestResult result = Reporter.getCurrentTestResult();
+        if (result == null) {
+            return "unknown";
+        }
+        return result.getTestClass().getRealClass().getSimpleName() + "." + result.getMethod().getMethodName();
+    }
+
+    // keeps names usable as a path on every OS
+    private static String safe(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]+", "_");
+    }
+}
@@ -0,0 +1,135 @@
+package com.tonic.artifacts;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+
+public class ArtifactStoreTest {
+
+    private static final int MAGIC = 0x41525446;
+
+    private Path directory;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("artifacts");
+    }
+
+    @Test
+    public void sameContentIsStoredOnceAndFoundAfterAReopen() throws IOException {
+        ArtifactStore store = ArtifactStore.open(directory);
+        Artifact first = store.put(bytes("screenshot"), "image/png");
+        Artifact second = store.put(bytes("screenshot"), "image/png");
+        Artifact other = store.put(bytes("<html/>"), "text/html");
+        store.flush();
+
+        Assert.assertSame(second, first);
+        Assert.assertEquals(store.list().size(), 2);
+        ArtifactStore reopened = ArtifactStore.open(directory);
+        Assert.assertEquals(reopened.get(first.getHash()), bytes("screenshot"));
+        Assert.assertEquals(reopened.find(other.getHash()).getContentType(), "text/html");
+        Path exported = reopened.export(first.getHash(), directory.resolve("export"));
+        Assert.assertEquals(exported.getFileName().toString(), first.getHash() + ".png");
+        Assert.assertEquals(Files.readAllBytes(exported), bytes("screenshot"));
+    }
+
+    @Test
+    public void recordWithoutItsMagicIsNotThere() throws IOException {
+        ArtifactStore store = ArtifactStore.open(directory);
+        Artifact kept = store.put(bytes("kept"), "image/png");
+        Artifact torn = store.put(bytes("torn"), "image/png");
+        store.flush();
+        // a crash before the magic of the second record was written
+        writeInt(segment(1), recordStart(torn), 0);
+
+        ArtifactStore reopened = ArtifactStore.open(directory);
+        Assert.assertNotNull(reopened.find(kept.getHash()));
+        Assert.assertNull(reopened.find(torn.getHash()));
+    }
+
+    @Test
+    public void damagedLengthsEndTheSegmentAtTheLastGoodRecord() throws IOException {
+        ArtifactStore store = ArtifactStore.open(directory);
+        Artifact kept = store.put(bytes("kept"), "image/png");
+        Artifact damaged = store.put(bytes("damaged"), "image/png");
+        store.flush();
+        // the content length of the second record points past the end of the segment
+        writeInt(segment(1), damaged.getOffset() - 4, Integer.MAX_VALUE);
+
+        ArtifactStore reopened = ArtifactStore.open(directory);
+        Assert.assertEquals(reopened.list().size(), 1);
+        Assert.assertEquals(reopened.get(kept.getHash()), bytes("kept"));
+        // the next artifact takes the place of the damaged record
+        Artifact next = reopened.put(bytes("next"), "image/png");
+        Assert.assertEquals(recordStart(next), recordStart(damaged));
+        reopened.flush();
+        Assert.assertEquals(ArtifactStore.open(directory).get(next.getHash()), bytes("next"));
+    }
+
+    @Test
+    public void damagedContentTypeLengthIsNotRead() throws IOException {
+        ArtifactStore store = ArtifactStore.open(directory);
+        Artifact damaged = store.put(bytes("damaged"), "image/png");
+        store.flush();
+        // 0xFFFF: longer than any media type, and a negative array size when read as a signed short
+        long typeLengthPosition = recordStart(damaged) + 4 + 32;
+        try (FileChannel channel = FileChannel.open(segment(1), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF, (byte) 0xFF}), typeLengthPosition);
+        }
+
+        Assert.assertTrue(ArtifactStore.open(directory).list().isEmpty());
+    }
+
+    @Test
+    public void clearDeletesTheSegmentsAndNeverReusesTheirNumbers() throws IOException {
+        ArtifactStore store = ArtifactStore.open(directory);
+        store.put(bytes("before"), "image/png");
+        store.clear();
+
+        Assert.assertFalse(Files.exists(segment(1)));
+        Assert.assertTrue(store.list().isEmpty());
+        Assert.assertEquals(store.put(bytes("after"), "image/png").getSegment(), 2);
+    }
+
+    @Test
+    public void segmentsClearedWhileMappedAreDeletedOnTheNextOpen() throws IOException {
+        ArtifactStore store = ArtifactStore.open(directory);
+        Artifact cleared = store.put(bytes("cleared"), "image/png");
+        store.flush();
+        // what clear() leaves behind when the file can't be deleted yet, e.g. on Windows
+        Files.write(directory.resolve("cleared.txt"), Collections.singletonList(segment(1).getFileName().toString()),
+                StandardCharsets.UTF_8);
+
+        ArtifactStore reopened = ArtifactStore.open(directory);
+        Assert.assertNull(reopened.find(cleared.getHash()));
+        Assert.assertFalse(Files.exists(segment(1)));
+        Assert.assertFalse(Files.exists(directory.resolve("cleared.txt")));
+    }
+
+    private Path segment(int number) {
+        return directory.resolve(String.format("segment-%05d.bin", number));
+    }
+
+    private static long recordStart(Artifact artifact) {
+        return artifact.getOffset() - 4 - artifact.getContentType().length() - 2 - 32 - 4;
+    }
+
+    private static void writeInt(Path file, long position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write((ByteBuffer) ByteBuffer.allocate(4).putInt(value).flip(), position);
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,90 @@
+package com.tonic.diagnostics;
+
+import com.tonic.diagnostics.DomSnapshots.Snapshot;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DomSnapshotsTest {
+
+    @Test
+    public void everyStepIsRebuiltFromTheFirstSourceAndTheDiffs() {
+        List<String> sources = new ArrayList<>();
+        sources.add(page("<p>Loading</p>"));
+        sources.add(page("<p>Welcome, Gaurav</p>"));
+        // nothing changed
+        sources.add(page("<p>Welcome, Gaurav</p>"));
+        // shorter, then longer than the previous source
+        sources.add(page(""));
+        sources.add(page("<table>" + rows(40) + "</table>"));
+        sources.add("<html></html>");
+
+        List<Snapshot> snapshots = snapshots(sources);
+        String rebuilt = null;
+        for (int i = 0; i < snapshots.size(); i++) {
+            rebuilt = snapshots.get(i).apply(rebuilt);
+            Assert.assertEquals(rebuilt, sources.get(i), "step " + i);
+        }
+        Assert.assertTrue(snapshots.get(0).isFull());
+        Assert.assertFalse(snapshots.get(1).isFull());
+    }
+
+    @Test
+    public void smallChangeOfALargePageStoresOnlyTheChange() {
+        String before = page("<div id='cart'>0 items</div>" + rows(5000));
+        String after = before.replace("0 items", "1 item");
+
+        List<Snapshot> snapshots = new ArrayList<>();
+        snapshots.add(Snapshot.of("open", null, before));
+        snapshots.add(Snapshot.of("add to cart", before, after));
+
+        Assert.assertTrue(before.length() > 200_000, "page of " + before.length() + " chars");
+        Assert.assertTrue(snapshots.get(1).getStoredBytes() < 64, snapshots.get(1).toString());
+        Assert.assertTrue(snapshots.get(0).getStoredBytes() < before.length() / 10, snapshots.get(0).toString());
+        Assert.assertEquals(snapshots.get(1).apply(snapshots.get(0).apply(null)), after);
+    }
+
+    @Test
+    public void surrogatePairsAreNeverSplit() {
+        // the two emoji share their high surrogate, so the common prefix would end between the halves of a pair
+        String before = page("<span>😀</span>");
+        String after = page("<span>😁</span>");
+
+        Snapshot diff = Snapshot.of("reaction", before, after);
+        Assert.assertEquals(diff.apply(before), after);
+        Assert.assertEquals(Snapshot.of("back", after, before).apply(after), before);
+    }
+
+    @Test
+    public void threadWithoutAPageHasNoSnapshots() {
+        DomSnapshots.reset();
+        Assert.assertNull(DomSnapshots.renderLast());
+        Assert.assertFalse(DomSnapshots.capture("no page on this thread"));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> DomSnapshots.render(Snapshot.of("elsewhere", null, page(""))));
+    }
+
+    private static List<Snapshot> snapshots(List<String> sources) {
+        List<Snapshot> snapshots = new ArrayList<>();
+        String previous = null;
+        for (int i = 0; i < sources.size(); i++) {
+            snapshots.add(Snapshot.of("step " + i, previous, sources.get(i)));
+            previous = sources.get(i);
+        }
+        return snapshots;
+    }
+
+    private static String page(String body) {
+        return "<html><head><title>Tropical Smoothie</title></head><body>" + body + "</body></html>";
+    }
+
+    private static String rows(int count) {
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            rows.append("<tr><td>").append(i).append("</td><td>Terminal ").append(i % 7).append("</td></tr>");
+        }
+        return rows.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package com.tonic.factory;
+
+import com.microsoft.playwright.APIRequestContext;
+import com.microsoft.playwright.APIResponse;
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.Playwright;
+import com.sun.net.httpserver.HttpServer;
+import com.tonic.concurrent.IoExecutors;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Hands a Playwright instance created on an I/O thread over to a worker through the pool, as the suite bootstrap
+ * does. No browser is installed here, so the instance is exercised through its API requests, which go through the
+ * same driver connection as the browser would.
+ */
+public class BrowserPoolTest {
+
+    private HttpServer server;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void prelaunchedInstanceIsUsableByTheWorkerThatTakesIt() throws Exception {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        ExecutorService io = Executors.newSingleThreadExecutor(IoExecutors.threadFactory("io"));
+        ExecutorService worker = Executors.newSingleThreadExecutor();
+        try {
+            // created on an I/O thread, like BrowserPool.prelaunch from the suite bootstrap
+            CompletableFuture.runAsync(() -> {
+                Playwright playwright = Playwright.create(new Playwright.CreateOptions()
+                        .setEnv(Collections.singletonMap("PLAYWRIGHT_SKIP_BROWSER_DOWNLOAD", "1")));
+                BrowserPool.add("chrome", new BrowserPool.Launched(playwright, connectedBrowser()));
+            }, io).get();
+
+            // used by the worker thread taking it
+            BrowserPool.Launched taken = CompletableFuture.supplyAsync(() -> BrowserPool.take("chrome"), worker).get();
+            Assert.assertNotNull(taken);
+            for (int i = 0; i < 3; i++) {
+                String body = CompletableFuture.supplyAsync(() -> {
+                    APIRequestContext request = taken.playwright.request().newContext();
+                    try {
+                        APIResponse response = request.get(url);
+                        Assert.assertEquals(response.status(), 200);
+                        return response.text();
+                    } finally {
+                        request.dispose();
+                    }
+                }, worker).get();
+                Assert.assertEquals(body, "ok");
+            }
+
+            // and closed from another thread once the worker is done, like closeTestBrowsers
+            taken.playwright.close();
+            Assert.assertNull(BrowserPool.take("chrome"));
+        } finally {
+            io.shutdownNow();
+            worker.shutdownNow();
+        }
+    }
+
+    private static Browser connectedBrowser() {
+        return (Browser) Proxy.newProxyInstance(Browser.class.getClassLoader(), new Class<?>[]{Browser.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("isConnected")) {
+                        return true;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,137 @@
+package com.tonic.factory;
+
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class PageFanOutTest {
+
+    @Test
+    public void resultsKeepTheOrderOfTheItemsAndFailuresStayWithTheirItem() {
+        List<Page> opened = new ArrayList<>();
+        List<PageFanOut.Result<Integer, Integer>> results = PageFanOut.over(items(10))
+                .pages(3)
+                .check((page, item) -> {
+                    if (item == 3) {
+                        throw new AssertionError("item 3 is broken");
+                    }
+                    if (item == 6) {
+                        throw new IllegalStateException("item 6 is broken");
+                    }
+                    return item * 2;
+                })
+                .run(context(opened));
+
+        Assert.assertEquals(results.size(), 10);
+        for (int i = 0; i < 10; i++) {
+            PageFanOut.Result<Integer, Integer> result = results.get(i);
+            Assert.assertEquals(result.getItem().intValue(), i);
+            if (i == 3 || i == 6) {
+                Assert.assertFalse(result.isSuccess(), result.toString());
+                Assert.assertTrue(result.getFailure().getMessage().contains("item " + i), result.toString());
+            } else {
+                Assert.assertEquals(result.getValue().intValue(), i * 2, result.toString());
+            }
+        }
+        Assert.assertEquals(opened.size(), 3);
+        Assert.assertTrue(opened.stream().allMatch(Page::isClosed), "the fan-out closes its pages");
+    }
+
+    @Test
+    public void closedPageIsReplacedBeforeTheNextItem() {
+        List<Page> opened = new ArrayList<>();
+        List<PageFanOut.Result<Integer, Boolean>> results = PageFanOut.over(items(6))
+                .pages(2)
+                .check((page, item) -> {
+                    boolean usable = !page.isClosed();
+                    if (item == 1) {
+                        page.close();
+                    }
+                    return usable;
+                })
+                .run(context(opened));
+
+        for (PageFanOut.Result<Integer, Boolean> result : results) {
+            Assert.assertTrue(result.getValue(), "item " + result.getItem() + " got a closed page");
+        }
+        Assert.assertEquals(opened.size(), 3);
+    }
+
+    @Test
+    public void itemOverItsTimeoutFailsWithoutFailingTheOthers() {
+        List<PageFanOut.Result<Integer, Integer>> results = PageFanOut.over(items(4))
+                .pages(2)
+                .itemTimeout(Duration.ofMillis(100))
+                .check((page, item) -> {
+                    if (item == 2) {
+                        try {
+                            Thread.sleep(300);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return item;
+                })
+                .run(context(new ArrayList<>()));
+
+        Assert.assertFalse(results.get(2).isSuccess());
+        Assert.assertNull(results.get(2).getValue());
+        Assert.assertTrue(results.get(2).getFailure().getMessage().contains("item timeout of 100 ms"), results.get(2).toString());
+        Assert.assertTrue(results.get(0).isSuccess() && results.get(1).isSuccess() && results.get(3).isSuccess(), results.toString());
+    }
+
+    private static List<Integer> items(int count) {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(i);
+        }
+        return items;
+    }
+
+    // a context of fake pages that only know whether they are closed
+    private static BrowserContext context(List<Page> opened) {
+        return (BrowserContext) Proxy.newProxyInstance(PageFanOutTest.class.getClassLoader(), new Class<?>[]{BrowserContext.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("newPage")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    Page page = page();
+                    opened.add(page);
+                    return page;
+                });
+    }
+
+    private static Page page() {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Page) Proxy.newProxyInstance(PageFanOutTest.class.getClassLoader(), new Class<?>[]{Page.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isClosed":
+                            return closed.get();
+                        case "close":
+                            closed.set(true);
+                            return null;
+                        case "onCrash":
+                        case "setDefaultTimeout":
+                        case "setDefaultNavigationTimeout":
+                            return null;
+                        case "toString":
+                            return "page@" + System.identityHashCode(proxy);
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName() + Arrays.toString(args));
+                    }
+                });
+    }
+}
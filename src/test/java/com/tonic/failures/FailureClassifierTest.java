@@ -0,0 +1,59 @@
+package com.tonic.failures;
+
+import com.microsoft.playwright.PlaywrightException;
+import com.microsoft.playwright.TimeoutError;
+import com.tonic.enums.FailureCategory;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.ConnectException;
+
+public class FailureClassifierTest {
+
+    @Test
+    public void navigationTimeoutIsInfrastructure() {
+        TimeoutError navigation = new TimeoutError("Error {\n"
+                + "  message='Timeout 30000ms exceeded.\n"
+                + "=========================== logs ===========================\n"
+                + "navigating to \"https://example.com/login\", waiting until \"load\"\n"
+                + "============================================================'\n"
+                + "  name='TimeoutError'\n"
+                + "  stack='TimeoutError: Timeout 30000ms exceeded.'\n"
+                + "}");
+
+        Assert.assertEquals(FailureClassifier.classify(navigation), FailureCategory.INFRASTRUCTURE);
+    }
+
+    @Test
+    public void locatorTimeoutIsApplication() {
+        TimeoutError locator = new TimeoutError("Error {\n"
+                + "  message='Timeout 30000ms exceeded.\n"
+                + "=========================== logs ===========================\n"
+                + "waiting for locator(\"#username\")\n"
+                + "============================================================'\n"
+                + "  name='TimeoutError'\n"
+                + "}");
+
+        Assert.assertEquals(FailureClassifier.classify(locator), FailureCategory.APPLICATION);
+    }
+
+    @Test
+    public void connectionFailuresAreInfrastructure() {
+        Assert.assertEquals(FailureClassifier.classify(new PlaywrightException("Error {\n  message='net::ERR_CONNECTION_REFUSED at https://example.com'\n}")),
+                FailureCategory.INFRASTRUCTURE);
+        Assert.assertEquals(FailureClassifier.classify(new RuntimeException("wrapped", new ConnectException("Connection refused"))),
+                FailureCategory.INFRASTRUCTURE);
+        Assert.assertEquals(FailureClassifier.classify(new SessionNotCreatedException("Could not start a new session")),
+                FailureCategory.INFRASTRUCTURE);
+    }
+
+    @Test
+    public void assertionsAndMissingElementsAreApplication() {
+        Assert.assertEquals(FailureClassifier.classify(new AssertionError("expected [Welcome] but found [Login]")),
+                FailureCategory.APPLICATION);
+        Assert.assertEquals(FailureClassifier.classify(new NoSuchElementException("no such element: #logout")),
+                FailureCategory.APPLICATION);
+    }
+}
@@ -0,0 +1,91 @@
+package com.tonic.failures;
+
+import com.microsoft.playwright.TimeoutError;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+public class FailureFingerprintTest {
+
+    @Test
+    public void playwrightTimeoutsAtDifferentCallSitesGetDifferentFingerprints() {
+        TimeoutError login = timeout("#username", frame("com.tonic.pages.web.LoginPage", "doLogin"));
+        TimeoutError search = timeout("#search", frame("com.tonic.pages.web.HomePage", "search"));
+
+        Assert.assertNotEquals(FailureFingerprint.of(login, getClass()), FailureFingerprint.of(search, getClass()));
+    }
+
+    @Test
+    public void sameCallSiteGetsTheSameFingerprint() {
+        TimeoutError first = timeout("#username", frame("com.tonic.pages.web.LoginPage", "doLogin"));
+        TimeoutError second = timeout("#password", frame("com.tonic.pages.web.LoginPage", "doLogin"));
+        // reached from another test method and line
+        second.setStackTrace(append(second.getStackTrace(), new StackTraceElement(getClass().getName(), "other", null, 99)));
+
+        Assert.assertEquals(FailureFingerprint.of(first, getClass()), FailureFingerprint.of(second, getClass()));
+    }
+
+    @Test
+    public void playwrightMessageIsTakenFromTheMessageField() {
+        String normalized = FailureFingerprint.normalize(timeout("#username", frame("com.tonic.pages.web.LoginPage", "doLogin")), getClass());
+
+        Assert.assertTrue(normalized.startsWith("com.microsoft.playwright.TimeoutError: Timeout <n>ms exceeded."), normalized);
+        Assert.assertTrue(normalized.contains("at com.tonic.pages.web.LoginPage.doLogin"), normalized);
+        Assert.assertFalse(normalized.contains("com.microsoft.playwright.impl."), normalized);
+    }
+
+    @Test
+    public void appiumTransportFramesAreNotHashed() {
+        RuntimeException failure = new RuntimeException("An element could not be located on the page");
+        failure.setStackTrace(new StackTraceElement[]{
+                new StackTraceElement("org.openqa.selenium.remote.ErrorCodec", "decode", null, 1),
+                new StackTraceElement("io.appium.java_client.remote.AppiumCommandExecutor", "execute", null, 1),
+                new StackTraceElement("com.tonic.profiler.ProfilingCommandExecutor", "execute", null, 1),
+                new StackTraceElement("org.openqa.selenium.remote.RemoteWebDriver", "execute", null, 1),
+                new StackTraceElement("com.tonic.pages.mobile.AccountPage", "openSettings", null, 1)});
+
+        Assert.assertTrue(FailureFingerprint.normalize(failure, getClass())
+                .endsWith("\n at com.tonic.pages.mobile.AccountPage.openSettings"));
+    }
+
+    @Test
+    public void messageMasksVolatileParts() {
+        Assert.assertEquals(FailureFingerprint.normalizeMessage("expected [42] but found 'x' in session 0f3a9c21d4e5\nBuild info"),
+                "expected [<n>] but found <str> in session <id>");
+    }
+
+    private static TimeoutError timeout(String selector, StackTraceElement callSite) {
+        // the message as Playwright serialises a TimeoutError of the driver
+        TimeoutError error = new TimeoutError("Error {\n"
+                + "  message='Timeout 30000ms exceeded.\n"
+                + "=========================== logs ===========================\n"
+                + "waiting for locator(\"" + selector + "\")\n"
+                + "============================================================'\n"
+                + "  name='TimeoutError'\n"
+                + "  stack='TimeoutError: Timeout 30000ms exceeded.\n"
+                + "    at ProgressController.run (/driver/package/lib/server/progress.js:75:26)'\n"
+                + "}");
+        error.setStackTrace(new StackTraceElement[]{
+                new StackTraceElement("com.microsoft.playwright.impl.WaitableResult", "get", null, 50),
+                new StackTraceElement("com.microsoft.playwright.impl.Connection", "sendMessage", null, 101),
+                new StackTraceElement("com.microsoft.playwright.impl.ChannelOwner", "sendMessage", null, 104),
+                new StackTraceElement("com.microsoft.playwright.impl.FrameImpl", "fillImpl", null, 340),
+                new StackTraceElement("com.microsoft.playwright.impl.LoggingSupport", "withLogging", null, 47),
+                new StackTraceElement("com.microsoft.playwright.impl.PageImpl", "fill", null, 880),
+                new StackTraceElement("com.microsoft.playwright.Page", "fill", null, 6102),
+                callSite,
+                new StackTraceElement(FailureFingerprintTest.class.getName(), "test", null, 20)});
+        return error;
+    }
+
+    private static StackTraceElement frame(String className, String method) {
+        return new StackTraceElement(className, method, null, 10);
+    }
+
+    private static StackTraceElement[] append(StackTraceElement[] frames, StackTraceElement frame) {
+        StackTraceElement[] appended = Arrays.copyOf(frames, frames.length + 1);
+        appended[frames.length] = frame;
+        return appended;
+    }
+}
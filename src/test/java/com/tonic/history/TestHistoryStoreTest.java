@@ -0,0 +1,130 @@
+package com.tonic.history;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+public class TestHistoryStoreTest {
+
+    private Path folder;
+    private Path file;
+
+    @BeforeMethod
+    public void createFolder() throws IOException {
+        folder = Files.createTempDirectory("test-history");
+        file = folder.resolve("history.bin");
+    }
+
+    @Test
+    public void runsSurviveAReopen() {
+        TestHistoryStore store = TestHistoryStore.open(file);
+        store.append(new TestRun(1, "LoginTest.login", TestRun.Status.PASSED, 10, 1200, 0, null));
+        store.append(new TestRun(1, "HomeTest.search", TestRun.Status.FAILED, 20, 800, 1, "0f3a9c21d4e5"));
+        store.flush();
+
+        TestHistoryStore reopened = TestHistoryStore.open(file);
+        Assert.assertEquals(reopened.testIds().size(), 2);
+        TestRun failed = reopened.runs("HomeTest.search").get(0);
+        Assert.assertEquals(failed.getStatus(), TestRun.Status.FAILED);
+        Assert.assertEquals(failed.getRetries(), 1);
+        Assert.assertEquals(reopened.failures("0f3a9c21d4e5").size(), 1);
+    }
+
+    @Test
+    public void tornRecordIsCutOff() throws IOException {
+        TestHistoryStore store = TestHistoryStore.open(file);
+        store.append(new TestRun(1, "LoginTest.login", TestRun.Status.PASSED, 10, 1200, 0, null));
+        store.flush();
+        long valid = Files.size(file);
+        // a killed run wrote the length and half of the payload
+        Files.write(file, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        Assert.assertEquals(TestHistoryStore.open(file).runs("LoginTest.login").size(), 1);
+        Assert.assertEquals(Files.size(file), valid);
+    }
+
+    @Test
+    public void unknownStatusWithMatchingChecksumIsCutOff() throws IOException {
+        TestHistoryStore store = TestHistoryStore.open(file);
+        store.append(new TestRun(1, "LoginTest.login", TestRun.Status.PASSED, 10, 1200, 0, null));
+        store.flush();
+        long valid = Files.size(file);
+        Files.write(file, record(1, "LoginTest.login", 7), StandardOpenOption.APPEND);
+        Files.write(file, record(2, "LoginTest.login", TestRun.Status.FAILED.ordinal()), StandardOpenOption.APPEND);
+
+        TestHistoryStore reopened = TestHistoryStore.open(file);
+        Assert.assertEquals(reopened.runs("LoginTest.login").size(), 1);
+        Assert.assertEquals(Files.size(file), valid);
+    }
+
+    @Test
+    public void legacyJsonHistoryIsImportedOnce() throws IOException {
+        Files.write(folder.resolve("durations.json"),
+                "{\"LoginTest.login\": 1500, \"HomeTest.search\": 900}".getBytes(StandardCharsets.UTF_8));
+        Files.write(folder.resolve("flakes.json"),
+                "{\"LoginTest.login\": \"PPFRP\"}".getBytes(StandardCharsets.UTF_8));
+
+        TestHistoryStore store = TestHistoryStore.open(file);
+        Assert.assertTrue(Files.exists(file));
+        Assert.assertEquals(FlakeHistory.of(store).outcomes("LoginTest.login"), "PPFRP");
+        Assert.assertEquals(FlakeHistory.of(store).outcomes("HomeTest.search"), "P");
+        DurationHistory durations = DurationHistory.from(store);
+        Assert.assertEquals(durations.estimate("LoginTest.login", 0), 1500);
+        Assert.assertEquals(durations.estimate("HomeTest.search", 0), 900);
+
+        // the imported runs are older than the runs recorded from now on
+        store.append(new TestRun(System.currentTimeMillis(), "LoginTest.login", TestRun.Status.FAILED,
+                System.currentTimeMillis(), 1500, 0, null));
+        store.flush();
+        TestHistoryStore reopened = TestHistoryStore.open(file);
+        Assert.assertEquals(FlakeHistory.of(reopened).outcomes("LoginTest.login"), "PPFRPF");
+        Assert.assertEquals(reopened.runs("LoginTest.login").size(), 6);
+    }
+
+    @Test
+    public void compactionKeepsTheLastRunsOfEachTest() {
+        TestHistoryStore store = TestHistoryStore.open(file);
+        for (int run = 0; run < 1200; run++) {
+            store.append(new TestRun(run, "LoginTest.login", TestRun.Status.PASSED, run, 1000, 0, null));
+        }
+        store.flush();
+
+        TestHistoryStore reopened = TestHistoryStore.open(file);
+        Assert.assertEquals(reopened.runs("LoginTest.login").size(), 50);
+        Assert.assertEquals(reopened.runs("LoginTest.login").get(49).getRunId(), 1199);
+    }
+
+    /**
+     * @return a record in the format of the store, with its checksum, holding the given status ordinal
+     */
+    private static byte[] record(long runId, String testId, int status) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream fields = new DataOutputStream(payload);
+        fields.writeLong(runId);
+        fields.writeUTF(testId);
+        fields.writeByte(status);
+        fields.writeLong(runId);
+        fields.writeLong(1000);
+        fields.writeShort(0);
+        fields.writeUTF("");
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(record);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+        data.writeInt((int) crc.getValue());
+        return record.toByteArray();
+    }
+}
@@ -1,6 +1,8 @@
 package com.tonic.pages.web;
 
 import com.microsoft.playwright.Page;
+import com.tonic.performance.PageMetrics;
+import com.tonic.performance.PagePerformanceCollector;
 
 public class AdminDashboardPage {
     private Page page;
@@ -17,4 +19,8 @@ public class AdminDashboardPage {
     public void goToConfiguration() {
         page.locator(configurationMenu).click();
     }
-} 
\ No newline at end of file
+
+    public PageMetrics capturePerformance() {
+        return PagePerformanceCollector.collect(page, "dashboard");
+    }
+}
@@ -8,6 +8,7 @@ import com.tonic.enums.LogType;
 import com.tonic.enums.WaitLogic;
 
 import com.tonic.factory.ExplicitWaitFactory;
+import com.tonic.metrics.Metrics;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.ios.IOSDriver;
 import org.openqa.selenium.*;
@@ -29,23 +30,41 @@ public class BasePage {
     protected HashMap<String, String> iosXpath = new HashMap<>();
 
     public void tap(By by, WaitLogic waitStrategy, String elementName) {
-        WebElement element = waitExplicitlyForElement(waitStrategy, by);
-        element.click();
+        long start = Metrics.start();
+        try {
+            WebElement element = waitExplicitlyForElement(waitStrategy, by);
+            element.click();
+        } finally {
+            Metrics.stop("page.tap", start);
+        }
         log(LogType.EXTENTANDCONSOLE, elementName + " is clicked");
     }
 
     public String getTexts(By by, WaitLogic waitStrategy, String elementName) {
-        WebElement element = waitExplicitlyForElement(waitStrategy, by);
-        return element.getText();
+        long start = Metrics.start();
+        try {
+            return waitExplicitlyForElement(waitStrategy, by).getText();
+        } finally {
+            Metrics.stop("page.getText", start);
+        }
     }
 
     public String getATT(By by, WaitLogic waitStrategy, String elementName, String attr) {
-        WebElement element = waitExplicitlyForElement(waitStrategy, by);
-        return element.getAttribute(attr);
+        long start = Metrics.start();
+        try {
+            return waitExplicitlyForElement(waitStrategy, by).getAttribute(attr);
+        } finally {
+            Metrics.stop("page.getAttribute", start);
+        }
     }
 
     public void tap(WebElement webElement, String elementName) {
-        webElement.click();
+        long start = Metrics.start();
+        try {
+            webElement.click();
+        } finally {
+            Metrics.stop("page.tap", start);
+        }
         log(LogType.EXTENTANDCONSOLE, elementName + " is clicked");
     }
 
@@ -53,8 +72,13 @@ public class BasePage {
         if (shouldScroll) {
             scrollTo(by, elementName);
         }
-        WebElement element = waitExplicitlyForElement(waitStrategy, by);
-        element.sendKeys(value);
+        long start = Metrics.start();
+        try {
+            WebElement element = waitExplicitlyForElement(waitStrategy, by);
+            element.sendKeys(value);
+        } finally {
+            Metrics.stop("page.sendKeys", start);
+        }
         System.out.println(value + " is entered successfully in " + elementName + " input field");
     }
 
@@ -63,8 +87,13 @@ public class BasePage {
             scrollTo(by, elementName);
         }
 
-        WebElement element = waitExplicitlyForElement(waitStrategy, by);
-        element.sendKeys(value);
+        long start = Metrics.start();
+        try {
+            WebElement element = waitExplicitlyForElement(waitStrategy, by);
+            element.sendKeys(value);
+        } finally {
+            Metrics.stop("page.sendKeys", start);
+        }
         System.out.println(value + " is entered successfully in " + elementName + " input field");
     }
 
@@ -98,6 +127,7 @@ public class BasePage {
     }
 
     public static void scrollTo(By by, String elementName, String scrollDirection) {
+        long scrollStart = Metrics.start();
         while (!isVisible(by, elementName)) {
             Dimension size = Driver.getDriver().manage().window().getSize();
             Point midPoint = new Point((int) (size.width * 0.5), (int) (size.height * 0.5));
@@ -127,9 +157,11 @@ public class BasePage {
             swipe.addAction(input.createPointerMove(Duration.ofMillis(500), PointerInput.Origin.viewport(), end.x, end.y));
             swipe.addAction(input.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
             Driver.getDriver().perform(ImmutableList.of(swipe));
+            Metrics.increment("page.scroll.swipes");
 
             WaitForMiliSec(100);
         }
+        Metrics.stop("page.scrollTo", scrollStart);
     }
 
     public static void WaitForMiliSec(int timeout) {
@@ -141,9 +173,11 @@ public class BasePage {
 
     public static boolean waitUntilElementIsVisible(WebDriver driver, By locator) {
         boolean flag = false;
+        long start = Metrics.start();
         for (int i = 1; i <= FrameworkConstants.getExplicitWait(); i++) {
             try {
-                if (driver.findElement(locator).isDisplayed() || driver.findElement(locator).isEnabled()) {
+                WebElement element = driver.findElement(locator);
+                if (element.isDisplayed() || element.isEnabled()) {
                     flag = true;
                     break;
                 }
@@ -152,15 +186,17 @@ public class BasePage {
                 System.out.println("Trial " + i + " was not able to find element with " + locator);
             }
         }
+        Metrics.stop("page.waitUntilVisible", start);
         return flag;
     }
 
     public boolean waitUntilElementIsVisible(By locator) {
         boolean flag = false;
+        long start = Metrics.start();
         for(int i = 1; i <= FrameworkConstants.getExplicitWait(); i++)
         {
             try {
-                if(Driver.getDriver().findElement(locator).isDisplayed() || Driver.getDriver().findElement(locator).isDisplayed())
+                if(Driver.getDriver().findElement(locator).isDisplayed())
                 {
                     flag = true;
                     break;
@@ -171,15 +207,17 @@ public class BasePage {
                 System.out.println("Trial " + i + " was not able to find element with " + locator);
             }
         }
+        Metrics.stop("page.waitUntilVisible", start);
         return flag;
     }
 
     public boolean waitUntilElementIsVisible(By locator,int waitTime) {
         boolean flag = false;
+        long start = Metrics.start();
         for(int i = 1; i <= waitTime; i++)
         {
             try {
-                if(Driver.getDriver().findElement(locator).isDisplayed() || Driver.getDriver().findElement(locator).isDisplayed())
+                if(Driver.getDriver().findElement(locator).isDisplayed())
                 {
                     flag = true;
                     break;
@@ -190,13 +228,18 @@ public class BasePage {
                 System.out.println("Trial " + i + " was not able to find element with " + locator);
             }
         }
+        Metrics.stop("page.waitUntilVisible", start);
         return flag;
     }
 
     public void clearField(By by, WaitLogic waitStrategy, String elementName) {
         Assert.assertTrue(waitUntilElementIsVisible(Driver.getDriver(), by), elementName + " is not visible");
-        WebElement element = waitExplicitlyForElement(waitStrategy, by);
-        element.clear();
+        long start = Metrics.start();
+        try {
+            waitExplicitlyForElement(waitStrategy, by).clear();
+        } finally {
+            Metrics.stop("page.clear", start);
+        }
         log(LogType.EXTENTANDCONSOLE, elementName + " textField is cleared successfully");
     }
 
@@ -240,7 +283,12 @@ public class BasePage {
                 .addAction (new Pause(finger1, Duration.ofMillis(200)))
                 .addAction(finger1.createPointerMove (Duration.ofMillis(100), PointerInput. Origin.viewport(), endX, endY))
                 .addAction (finger1.createPointerUp (PointerInput.MouseButton.LEFT.asArg()));
-        Driver.getDriver().perform(Collections.singletonList(sequence));
+        long start = Metrics.start();
+        try {
+            Driver.getDriver().perform(Collections.singletonList(sequence));
+        } finally {
+            Metrics.stop("page.swipe", start);
+        }
     }
 }
 
@@ -1,6 +1,8 @@
 package com.tonic.pages.web;
 
 import com.microsoft.playwright.Page;
+import com.tonic.performance.PageMetrics;
+import com.tonic.performance.PagePerformanceCollector;
 
 public class LoginPage {
 
@@ -41,4 +43,8 @@ public class LoginPage {
 			return false;
 		}
 	}
+
+	public PageMetrics capturePerformance() {
+		return PagePerformanceCollector.collect(page, "login");
+	}
 }
@@ -1,6 +1,8 @@
 package com.tonic.pages.web;
 
 import com.microsoft.playwright.Page;
+import com.tonic.performance.PageMetrics;
+import com.tonic.performance.PagePerformanceCollector;
 
 public class TerminalsPage {
     private Page page;
@@ -39,4 +41,8 @@ public class TerminalsPage {
     public boolean isRequiredErrorVisible() {
         return page.locator(requiredError).isVisible();
     }
-} 
\ No newline at end of file
+
+    public PageMetrics capturePerformance() {
+        return PagePerformanceCollector.collect(page, "terminals");
+    }
+}
@@ -1,13 +1,11 @@
 package com.tonic.tests.mobile;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Properties;
@@ -17,13 +15,8 @@ import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.MediaEntityBuilder;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 
-import com.tonic.constants.FrameworkConstants;
-import com.tonic.enums.ConfigProperties;
-import com.tonic.utils.PropertyBuilder;
-import io.appium.java_client.service.local.AppiumDriverLocalService;
-import io.appium.java_client.service.local.AppiumServiceBuilder;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
+import com.tonic.driver.AppiumServers;
+import com.tonic.utils.TestDataReader;
 import org.testng.annotations.*;
 
 import com.microsoft.playwright.Page;
@@ -41,8 +34,6 @@ public class BaseTest {
     public HashMap<String, HashMap<String, String>> testClassData = null;
     public HashMap<String, String> tcData = null;
     public HashMap<String, String> configurationData = null;
-    AppiumDriverLocalService androidService = null;
-    AppiumDriverLocalService iosService = null;
 
     protected ExtentTest test;
     protected static ExtentReports extent;
@@ -54,15 +45,10 @@ public class BaseTest {
     @Parameters({"device"})
     public void suiteSetUp(@Optional("android") String device) {
         this.device=device;
-        if (device.equalsIgnoreCase("android")){
-            AppiumServiceBuilder builder = new AppiumServiceBuilder().withAppiumJS(new File(FrameworkConstants.getAppiumPath())).withIPAddress(FrameworkConstants.getIpAddress()).usingPort(FrameworkConstants.getAndroidPort()).withTimeout(Duration.ofSeconds(Integer.parseInt(PropertyBuilder.getPropValue(ConfigProperties.TIMEOUT))));
-            androidService = AppiumDriverLocalService.buildService(builder);
-            androidService.start();}
-
-        if (device.equalsIgnoreCase("ios")){
-            AppiumServiceBuilder builderIOS = new AppiumServiceBuilder().withAppiumJS(new File(FrameworkConstants.getAppiumPath())).withIPAddress(FrameworkConstants.getIpAddress()).usingPort(FrameworkConstants.getIosPort()).withTimeout(Duration.ofSeconds(Integer.parseInt(PropertyBuilder.getPropValue(ConfigProperties.TIMEOUT))));
-            iosService = AppiumDriverLocalService.buildService(builderIOS);
-            iosService.start();}
+        // already running when the suite bootstrap started it
+        if (device.equalsIgnoreCase("android") || device.equalsIgnoreCase("ios")){
+            AppiumServers.start(device);
+        }
     }
     @BeforeSuite
     public void setupReport() {
@@ -111,10 +97,7 @@ public class BaseTest {
     public void configurationSetup() {
         {
             try {
-                String inputJsonFilePath = FrameworkConstants.getInputJsonPath();
-                Object obj = new JSONParser().parse(new FileReader(inputJsonFilePath + "configuration.json"));
-                JSONObject jo = (JSONObject) obj;
-                configurationData = (HashMap<String, String>) jo.get("configuration");
+                configurationData = (HashMap<String, String>) TestDataReader.readJson("configuration").get("configuration");
             } catch (Exception e) {
                 System.out.println(e.getMessage());
             }
@@ -147,12 +130,7 @@ public class BaseTest {
     @AfterSuite
     @Parameters({"device"})
     public void suiteTearDown() {
-        if(device.equalsIgnoreCase("android")){
-            androidService.stop();
-        }
-        else if(device.equalsIgnoreCase("ios")){
-            iosService.stop();
-        }
+        AppiumServers.stop(device);
     }
 
     @AfterSuite
@@ -170,14 +148,9 @@ public class BaseTest {
             String tcPackageFullName = this.getClass().getPackageName();
             String tcPakageName = tcPackageFullName.substring(tcPackageFullName.lastIndexOf(".") + 1);
 
-            Object obj = null;
             try {
-                String inputJsonFilePath;
-                inputJsonFilePath = FrameworkConstants.getInputJsonPath();
-                obj = new JSONParser().parse(new FileReader(inputJsonFilePath + tcPakageName + ".json"));
-                JSONObject jo = (JSONObject) obj;
-                testClassData = (HashMap<String, HashMap<String, String>>) jo.get(tcClassName);
-                tcData = (HashMap<String, String>) testClassData.get(tcMethodName);
+                testClassData = TestDataReader.getClassData(tcPakageName, tcClassName);
+                tcData = testClassData.get(tcMethodName);
             } catch (Exception e) {
                 System.out.println(e.getMessage());
             }
@@ -1,8 +1,6 @@
 package com.tonic.tests.web;
 
 import java.util.Properties;
-import java.util.Date;
-import java.io.File;
 
 import com.tonic.listeners.AllureListener;
 import com.tonic.listeners.JiraListener;
@@ -10,132 +8,86 @@ import com.tonic.listeners.Listener;
 import org.testng.annotations.*;
 
 import com.microsoft.playwright.Page;
+import com.tonic.factory.PageScope;
 import com.tonic.factory.PlaywrightFactory;
 import com.tonic.pages.web.HomePage;
 import com.tonic.pages.web.LoginPage;
 import com.tonic.pages.web.AdminDashboardPage;
 import com.tonic.pages.web.ConfigurationPage;
 import com.tonic.pages.web.TerminalsPage;
-import com.aventstack.extentreports.ExtentReports;
-import com.aventstack.extentreports.ExtentTest;
-import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 
 /**
  * Base Test class for all web tests
- * Provides common setup and teardown functionality
+ * Provides common setup and teardown functionality.
+ * Safe for parallel="methods": the only state kept on the instance is the read-only configuration, every test
+ * gets its own browser context and page objects come from the {@link PageScope} of the test's thread.
  */
 @Listeners({Listener.class,JiraListener.class, AllureListener.class})
 public class BaseTest {
 
-    protected PlaywrightFactory pf;
     protected Properties prop;
     protected String platform;
-    protected HomePage homePage;
-    protected LoginPage loginPage;
-    protected AdminDashboardPage adminDashboardPage;
-    protected ConfigurationPage configurationPage;
-    protected TerminalsPage terminalsPage;
-
-    // ExtentReports setup
-    protected static ExtentReports extent;
-    protected ExtentTest test;
-
-    @Parameters({ "browser" })
-    @BeforeMethod
-    public void setup(@Optional("chrome") String browserName) {
-        pf = new PlaywrightFactory();
-        prop = pf.init_prop();
 
+    @BeforeClass
+    @Parameters({"platform", "browser", "viewport", "emulate", "locale"})
+    public void setUpClass(@Optional("web") String platform, @Optional("chrome") String browserName,
+                           @Optional("") String viewport, @Optional("") String device, @Optional("") String locale) {
+        this.platform = platform;
+        System.out.println("Running tests on platform: " + platform);
+        prop = new PlaywrightFactory().init_prop();
         if (browserName != null) {
             prop.setProperty("browser", browserName);
         }
-
-        homePage = new HomePage(PlaywrightFactory.getPage());
-        loginPage = new LoginPage(PlaywrightFactory.getPage());
+        // set by the cells of an emulation matrix, otherwise the config file decides
+        if (!viewport.isEmpty()) {
+            prop.setProperty("viewport", viewport);
+        }
+        if (!device.isEmpty()) {
+            prop.setProperty("emulate", device);
+        }
+        if (!locale.isEmpty()) {
+            prop.setProperty("locale", locale);
+        }
     }
 
-    /**
-     * Initialize all page objects
-     */
-    protected void initPageObjects() {
-        adminDashboardPage = new AdminDashboardPage(PlaywrightFactory.getPage());
-        configurationPage = new ConfigurationPage(PlaywrightFactory.getPage());
-        terminalsPage = new TerminalsPage(PlaywrightFactory.getPage());
+    @BeforeMethod
+    public void setupMethod() {
+        // takes or launches the browser of this thread on its first test, then only opens a new context
+        new PlaywrightFactory().initBrowser(prop);
     }
 
-    @BeforeClass
-    @Parameters({"platform"})
-    public void setUpPlatform(@Optional("web") String platform) {
-        this.platform = platform;
-        // You can add logic here to initialize things based on the platform
-        System.out.println("Running tests on platform: " + platform);
+    @AfterMethod(alwaysRun = true)
+    public void tearDownMethod() {
+        PlaywrightFactory.closeContext();
     }
-    @BeforeClass
-    public void setupReport() {
-        // Setup ExtentReports directly in the test class
-        String outputFolder = System.getProperty("user.dir") + File.separator + "build" + File.separator;
-        File outputDir = new File(outputFolder);
-        if (!outputDir.exists()) {
-            outputDir.mkdirs();
-            System.out.println("Created output directory: " + outputFolder);
-        }
-
-        String reportFile = outputFolder + "TestExecutionReport" + System.currentTimeMillis() + ".html";
-        ExtentSparkReporter reporter = new ExtentSparkReporter(reportFile);
-        reporter.config().setReportName("Terminal Management Test Results");
-        reporter.config().setDocumentTitle("Test Execution Report");
 
-        extent = new ExtentReports();
-        extent.attachReporter(reporter);
-        extent.setSystemInfo("Browser", "Chrome");
-        extent.setSystemInfo("Environment", "Test");
-        extent.setSystemInfo("User", "Automation Tester");
-        extent.setSystemInfo("Timestamp", new Date().toString());
-
-        System.out.println("ExtentReports initialized. Report will be saved to: " + reportFile);
+    @AfterTest(alwaysRun = true)
+    public void tearDown() {
+        PlaywrightFactory.closeTestBrowsers();
+        System.out.println("Browsers closed after test");
+    }
 
-        // Initialize all page objects
-        initPageObjects();
+    protected HomePage homePage() {
+        return PageScope.get(HomePage.class);
     }
 
-    @BeforeMethod
-    public void setupMethod() {
-        pf = new PlaywrightFactory();
-        prop = pf.init_prop();
-        pf.initBrowser(prop); // This sets the ThreadLocal for the current thread
-        adminDashboardPage = new AdminDashboardPage(PlaywrightFactory.getPage());
-        configurationPage = new ConfigurationPage(PlaywrightFactory.getPage());
-        terminalsPage = new TerminalsPage(PlaywrightFactory.getPage());
-        loginPage = new LoginPage(PlaywrightFactory.getPage());
-        homePage = new HomePage(PlaywrightFactory.getPage());
-        System.out.println("Using existing browser session for test method");
+    protected LoginPage loginPage() {
+        return PageScope.get(LoginPage.class);
     }
 
-    @AfterMethod
-    public void tearDownMethod() {
-        // Don't close browser here - let AfterTest handle it
-        System.out.println("Test method completed");
+    protected AdminDashboardPage adminDashboardPage() {
+        return PageScope.get(AdminDashboardPage.class);
     }
 
-    @AfterTest
-    public void tearDown() {
-        if (PlaywrightFactory.getPage() != null) {
-            PlaywrightFactory.getPage().context().browser().close();
-            System.out.println("Browser closed after test");
-        }
+    protected ConfigurationPage configurationPage() {
+        return PageScope.get(ConfigurationPage.class);
     }
 
-    @AfterClass
-    public void tearDownReport() {
-        // Generate the report
-        if (extent != null) {
-            extent.flush();
-            System.out.println("ExtentReports saved successfully!");
-        }
+    protected TerminalsPage terminalsPage() {
+        return PageScope.get(TerminalsPage.class);
     }
 
     public Page getPage() {
         return PlaywrightFactory.getPage();
     }
 }
-
@@ -10,13 +10,13 @@ public class HomeTest extends BaseTest {
 
 	@Test
 	public void homePageTitleTest() {
-		String actualTitle = homePage.getHomePageTitle();
+		String actualTitle = homePage().getHomePageTitle();
 		Assert.assertEquals(actualTitle, AppConstants.HOME_PAGE_TITLE);
 	}
 
 	@Test
 	public void homePageURLTest() {
-		String actualURL = homePage.getHomePageURL();
+		String actualURL = homePage().getHomePageURL();
 		Assert.assertEquals(actualURL, prop.getProperty("url"));
 	}
 
@@ -32,7 +32,7 @@ public class HomeTest extends BaseTest {
 	@Test(dataProvider = "getProductData")
 	public void searchTest(String productName) throws InterruptedException {
 		Thread.sleep(5000);
-		String actualSearchHeader = homePage.doSearch(productName);
+		String actualSearchHeader = homePage().doSearch(productName);
 		Assert.assertEquals(actualSearchHeader, "Search - " + productName);
 	}
 
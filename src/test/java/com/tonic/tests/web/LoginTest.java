@@ -1,16 +1,21 @@
 package com.tonic.tests.web;
 
 import com.tonic.annotations.TonicAnnotation;
+import com.tonic.artifacts.Artifact;
 import com.tonic.enums.CategoryType;
 import com.tonic.factory.PlaywrightFactory;
 import com.tonic.utils.AllureScreenshotUtil;
-import com.aventstack.extentreports.MediaEntityBuilder;
+import com.tonic.utils.ExtentManager;
+import com.tonic.utils.ReportAttachments;
+import com.aventstack.extentreports.ExtentTest;
 import com.tonic.utils.JiraPolicy;
+import com.tonic.performance.PageMetrics;
+import com.tonic.performance.PerformanceAssert;
 import io.qameta.allure.*;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
-import static com.tonic.factory.PlaywrightFactory.takeScreenshot;
+import static com.tonic.factory.PlaywrightFactory.captureScreenshot;
 
 @Epic("Terminal Management System")
 @Feature("Terminal Management Features")
@@ -23,21 +28,21 @@ public class LoginTest extends BaseTest {
     @Description("Verify user can login with valid credentials")
     @Severity(SeverityLevel.BLOCKER)
     public void loginWithValidCredentials() {
-        test = com.tonic.utils.ExtentManager.getExtentTest();
+        ExtentTest test = ExtentManager.getExtentTest();
         try {
             Step1_EnterCredentials();
             Step2_VerifyDashboard();
             // Add screenshot to the report
-            String screenshot = takeScreenshot();
-            if (screenshot != null && !screenshot.isEmpty()) {
-                test.pass("Login successful", MediaEntityBuilder.createScreenCaptureFromBase64String(screenshot, "Login success").build());
+            Artifact screenshot = captureScreenshot();
+            if (screenshot != null) {
+                test.pass("Login successful", ReportAttachments.media(screenshot, "Login success"));
             } else {
                 test.pass("Login successful (screenshot not available)");
             }
         } catch (Exception e) {
-            String screenshot = takeScreenshot();
-            if (screenshot != null && !screenshot.isEmpty()) {
-                test.fail("Login failed", MediaEntityBuilder.createScreenCaptureFromBase64String(screenshot, "Login failure").build());
+            Artifact screenshot = captureScreenshot();
+            if (screenshot != null) {
+                test.fail("Login failed", ReportAttachments.media(screenshot, "Login failure"));
             } else {
                 test.fail("Login failed (screenshot not available)");
             }
@@ -49,14 +54,14 @@ public class LoginTest extends BaseTest {
     @Step("Enter login credentials and submit")
     private void Step1_EnterCredentials() {
         AllureScreenshotUtil.takeScreenshot(PlaywrightFactory.getPage(), "Before login");
-        loginPage.doLogin(prop.getProperty("username"), prop.getProperty("password"));
+        loginPage().doLogin(prop.getProperty("username"), prop.getProperty("password"));
         AllureScreenshotUtil.takeScreenshot(PlaywrightFactory.getPage(), "After login submission");
     }
 
     @Step("Verify dashboard is loaded")
     private void Step2_VerifyDashboard() {
         AllureScreenshotUtil.takeScreenshot(PlaywrightFactory.getPage(), "Dashboard verification");
-        Assert.assertTrue(adminDashboardPage.isDashboardLoaded());
+        Assert.assertTrue(adminDashboardPage().isDashboardLoaded());
         AllureScreenshotUtil.takeScreenshot(PlaywrightFactory.getPage(), "Final dashboard state");
     }
 
@@ -67,28 +72,28 @@ public class LoginTest extends BaseTest {
     @Description("Verify user can navigate to terminals page")
     @Severity(SeverityLevel.NORMAL)
     public void navigateToTerminalsPage() {
-        test = com.tonic.utils.ExtentManager.getExtentTest();
+        ExtentTest test = ExtentManager.getExtentTest();
         try {
             AllureScreenshotUtil.takeScreenshot(PlaywrightFactory.getPage(), "Before login for terminal navigation");
-            loginPage.doLogin(prop.getProperty("username"), prop.getProperty("password"));
+            loginPage().doLogin(prop.getProperty("username"), prop.getProperty("password"));
             AllureScreenshotUtil.takeScreenshot(PlaywrightFactory.getPage(), "After login for terminal navigation");
-            adminDashboardPage.goToConfiguration();
+            adminDashboardPage().goToConfiguration();
             AllureScreenshotUtil.takeScreenshot(PlaywrightFactory.getPage(), "After navigation to configuration");
-            Assert.assertTrue(configurationPage.isConfigurationLoaded());
-            configurationPage.goToTerminals();
+            Assert.assertTrue(configurationPage().isConfigurationLoaded());
+            configurationPage().goToTerminals();
             AllureScreenshotUtil.takeScreenshot(PlaywrightFactory.getPage(), "After navigation to terminals");
-            Assert.assertTrue(terminalsPage.isAddTerminalButtonPresent());
+            Assert.assertTrue(terminalsPage().isAddTerminalButtonPresent());
             AllureScreenshotUtil.takeScreenshot(PlaywrightFactory.getPage(), "Final terminals page state");
-            String screenshot = takeScreenshot();
-            if (screenshot != null && !screenshot.isEmpty()) {
-                test.pass("Navigation successful", MediaEntityBuilder.createScreenCaptureFromBase64String(screenshot, "Navigation success").build());
+            Artifact screenshot = captureScreenshot();
+            if (screenshot != null) {
+                test.pass("Navigation successful", ReportAttachments.media(screenshot, "Navigation success"));
             } else {
                 test.pass("Navigation successful (screenshot not available)");
             }
         } catch (Exception e) {
-            String screenshot = takeScreenshot();
-            if (screenshot != null && !screenshot.isEmpty()) {
-                test.fail("Navigation failed", MediaEntityBuilder.createScreenCaptureFromBase64String(screenshot, "Navigation failure").build());
+            Artifact screenshot = captureScreenshot();
+            if (screenshot != null) {
+                test.fail("Navigation failed", ReportAttachments.media(screenshot, "Navigation failure"));
             } else {
                 test.fail("Navigation failed (screenshot not available)");
             }
@@ -101,23 +106,23 @@ public class LoginTest extends BaseTest {
     @JiraPolicy(logTicketReady=false)
     @Test(priority = 3,description = "Verify user is able to add terminal")
     public void openAddTerminalDialog() {
-        test = com.tonic.utils.ExtentManager.getExtentTest();
+        ExtentTest test = ExtentManager.getExtentTest();
         try {
-            loginPage.doLogin(prop.getProperty("username"), prop.getProperty("password"));
-            adminDashboardPage.goToConfiguration();
-            configurationPage.goToTerminals();
-            terminalsPage.clickAddTerminalButton();
-            Assert.assertTrue(terminalsPage.isAddTerminalDialogVisible());
-            String screenshot = takeScreenshot();
-            if (screenshot != null && !screenshot.isEmpty()) {
-                test.pass("Add terminal dialog opened successfully", MediaEntityBuilder.createScreenCaptureFromBase64String(screenshot).build());
+            loginPage().doLogin(prop.getProperty("username"), prop.getProperty("password"));
+            adminDashboardPage().goToConfiguration();
+            configurationPage().goToTerminals();
+            terminalsPage().clickAddTerminalButton();
+            Assert.assertTrue(terminalsPage().isAddTerminalDialogVisible());
+            Artifact screenshot = captureScreenshot();
+            if (screenshot != null) {
+                test.pass("Add terminal dialog opened successfully", ReportAttachments.media(screenshot, null));
             } else {
                 test.pass("Add terminal dialog opened successfully (screenshot not available)");
             }
         } catch (Exception e) {
-            String screenshot = takeScreenshot();
-            if (screenshot != null && !screenshot.isEmpty()) {
-                test.fail("Failed to open add terminal dialog", MediaEntityBuilder.createScreenCaptureFromBase64String(screenshot).build());
+            Artifact screenshot = captureScreenshot();
+            if (screenshot != null) {
+                test.fail("Failed to open add terminal dialog", ReportAttachments.media(screenshot, null));
             } else {
                 test.fail("Failed to open add terminal dialog (screenshot not available)");
             }
@@ -125,5 +130,21 @@ public class LoginTest extends BaseTest {
             throw e;
         }
     }
-}
 
+    @TonicAnnotation(category = {CategoryType.WEB})
+    @JiraPolicy(logTicketReady=false)
+    @Test(priority = 4,description = "Verify dashboard loads within its performance budget")
+    @Story("Dashboard Performance")
+    @Description("Verify the dashboard Web Vitals stay within the budgets of data/performance-budgets.json")
+    @Severity(SeverityLevel.NORMAL)
+    public void dashboardMeetsPerformanceBudget() {
+        ExtentTest test = ExtentManager.getExtentTest();
+        loginPage().doLogin(prop.getProperty("username"), prop.getProperty("password"));
+        Assert.assertTrue(adminDashboardPage().isDashboardLoaded());
+        PageMetrics metrics = adminDashboardPage().capturePerformance();
+        test.info("Dashboard performance: " + metrics.getValues());
+        PerformanceAssert.assertWithinBudget(metrics);
+        PerformanceAssert.assertNoRegression(metrics, 0.2);
+        test.pass("Dashboard is within its performance budget");
+    }
+}
@@ -0,0 +1,115 @@
+package com.tonic.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+public class ErrorLogTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private Path file;
+
+    @BeforeMethod
+    public void createFolder() throws IOException {
+        file = Files.createTempDirectory("error-log").resolve("errorLog.jsonl");
+    }
+
+    @Test
+    public void parallelWritersAreNeitherInterleavedNorLostAcrossRotations() throws Exception {
+        long maxFileBytes = 8 * 1024;
+        ErrorLog log = new ErrorLog(file, maxFileBytes);
+        int writers = 8;
+        int perWriter = 25;
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            Thread thread = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perWriter; i++) {
+                    log.append(record(writer, i));
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        go.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // returns only once everything queued is in the files
+        log.awaitWritten();
+
+        List<Path> files = new ArrayList<>();
+        files.add(file);
+        for (int generation = 1; Files.exists(ErrorLog.rotated(file, generation)); generation++) {
+            files.add(ErrorLog.rotated(file, generation));
+        }
+        Assert.assertTrue(files.size() > 1, "20 KB of records in 8 KB files were not rotated");
+        Set<String> seen = new HashSet<>();
+        for (Path part : files) {
+            Assert.assertTrue(Files.size(part) <= maxFileBytes, part + " is " + Files.size(part) + " bytes");
+            for (String line : Files.readAllLines(part, StandardCharsets.UTF_8)) {
+                // a torn or interleaved line is no JSON, or mixes the writer of one record with the number of another
+                JsonNode record = MAPPER.readTree(line);
+                String key = record.get("writer").asInt() + "/" + record.get("record").asInt();
+                Assert.assertEquals(record.get("check").asText(), key, line);
+                Assert.assertTrue(seen.add(key), "written twice: " + key);
+            }
+        }
+        Assert.assertEquals(seen.size(), writers * perWriter);
+        log.close();
+    }
+
+    @Test
+    public void rotationKeepsTheNewestFiles() throws IOException {
+        // about one record per file
+        ErrorLog log = new ErrorLog(file, 100);
+        for (int i = 0; i < 10; i++) {
+            log.append(record(0, i));
+            log.awaitWritten();
+        }
+        log.close();
+
+        Assert.assertEquals(recordsOf(file), List.of(9));
+        Assert.assertEquals(recordsOf(ErrorLog.rotated(file, 1)), List.of(8));
+        Assert.assertEquals(recordsOf(ErrorLog.rotated(file, 5)), List.of(4));
+        Assert.assertFalse(Files.exists(ErrorLog.rotated(file, 6)));
+    }
+
+    private static Map<String, Object> record(int writer, int record) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("writer", writer);
+        values.put("record", record);
+        values.put("error", "java.lang.AssertionError: expected [true] but found [false] at step " + record);
+        values.put("check", writer + "/" + record);
+        return values;
+    }
+
+    private static List<Integer> recordsOf(Path part) throws IOException {
+        List<Integer> records = new ArrayList<>();
+        for (String line : Files.readAllLines(part, StandardCharsets.UTF_8)) {
+            records.add(MAPPER.readTree(line).get("record").asInt());
+        }
+        return records;
+    }
+}
@@ -0,0 +1,107 @@
+package com.tonic.utils;
+
+import net.rcarz.jiraclient.JiraException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class JiraFilingQueueTest {
+
+    @Test
+    public void sameFailureIsFiledOnceAndCommentedAfterwards() {
+        FakeJira jira = new FakeJira();
+        JiraFilingQueue queue = new JiraFilingQueue(() -> jira, 50, 10);
+        AssertionError failure = failure();
+
+        queue.submit("LoginTest.login", getClass(), failure);
+        queue.submit("LoginTest.loginAgain", getClass(), failure);
+        queue.drain();
+        Assert.assertEquals(jira.created.size(), 1, "one ticket for the batch");
+        Assert.assertTrue(jira.comments.isEmpty());
+
+        // a later batch of the same suite comments on the ticket it filed, without searching Jira again
+        queue.submit("LoginTest.login", getClass(), failure);
+        queue.drain();
+        Assert.assertEquals(jira.created.size(), 1);
+        Assert.assertEquals(jira.searches, 1);
+        Assert.assertEquals(jira.comments, Collections.singletonList(jira.created.get(0)));
+    }
+
+    @Test
+    public void failureOfAPreviousRunIsCommentedOnItsOpenIssue() {
+        FakeJira jira = new FakeJira();
+        JiraFilingQueue first = new JiraFilingQueue(() -> jira, 50, 10);
+        first.submit("LoginTest.login", getClass(), failure());
+        first.drain();
+
+        // a new suite has its own queue: nothing filed carries over, the open issue is found by its label
+        JiraFilingQueue second = new JiraFilingQueue(() -> jira, 50, 10);
+        second.submit("LoginTest.login", getClass(), failure());
+        second.drain();
+        Assert.assertEquals(jira.created.size(), 1);
+        Assert.assertEquals(jira.searches, 2);
+        Assert.assertEquals(jira.comments, jira.created);
+    }
+
+    @Test
+    public void failedCallsAreRetried() {
+        FakeJira jira = new FakeJira();
+        jira.failuresLeft = 2;
+        JiraFilingQueue queue = new JiraFilingQueue(() -> jira, 50, 10);
+        queue.submit("LoginTest.login", getClass(), failure());
+        queue.drain();
+        Assert.assertEquals(jira.created.size(), 1);
+    }
+
+    @Test
+    public void projectAndLabelAreQuotedInJql() {
+        Assert.assertEquals(JiraServiceProvider.quote("QA"), "\"QA\"");
+        Assert.assertEquals(JiraServiceProvider.quote("A\"B\\C"), "\"A\\\"B\\\\C\"");
+    }
+
+    private static AssertionError failure() {
+        return new AssertionError("expected [Welcome] but found [Login]");
+    }
+
+    private static final class FakeJira extends JiraServiceProvider {
+
+        final List<String> created = Collections.synchronizedList(new ArrayList<>());
+        final List<String> comments = Collections.synchronizedList(new ArrayList<>());
+        final Map<String, String> openByLabel = new ConcurrentHashMap<>();
+        volatile int searches;
+        volatile int failuresLeft;
+
+        FakeJira() {
+            super("http://localhost", "user", "token", "QA");
+        }
+
+        @Override
+        public String createJiraTicket(String issueType, String summary, String description, List<String> labels)
+                throws JiraException {
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new JiraException("503 Service Unavailable");
+            }
+            String key = "QA-" + (created.size() + 1);
+            created.add(key);
+            labels.forEach(label -> openByLabel.put(label, key));
+            return key;
+        }
+
+        @Override
+        public String findOpenIssue(String label) {
+            searches++;
+            return openByLabel.get(label);
+        }
+
+        @Override
+        public void addComment(String issueKey, String comment) {
+            comments.add(issueKey);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.tonic.utils;
+
+import com.tonic.artifacts.Artifact;
+import com.tonic.artifacts.ArtifactStore;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class ReportAttachmentsTest {
+
+    @Test
+    public void linkResolvesAgainstTheReportShowingIt() throws IOException {
+        Path root = Files.createTempDirectory("reports");
+        ArtifactStore store = ArtifactStore.open(root.resolve("artifacts"));
+        byte[] png = "screenshot".getBytes(StandardCharsets.UTF_8);
+        Artifact screenshot = store.put(png, "image/png");
+
+        // the report of ExtentReportListener and a timestamped one of ExtentReport
+        Path listenerReport = root.resolve("build").resolve("TestExecutionReport1.html");
+        Path extentReport = root.resolve("extent-test-output").resolve("1700000000000").resolve("index.html");
+        for (Path report : new Path[]{listenerReport, extentReport}) {
+            String link = ReportAttachments.link(store, screenshot, report);
+
+            Assert.assertFalse(link.startsWith("/") || link.startsWith(".."), link);
+            Path resolved = report.getParent().resolve(link);
+            Assert.assertTrue(Files.exists(resolved), report + " links to a missing " + resolved);
+            Assert.assertEquals(Files.readAllBytes(resolved), png);
+        }
+    }
+}
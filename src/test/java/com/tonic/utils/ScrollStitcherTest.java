@@ -0,0 +1,184 @@
+package com.tonic.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+public class ScrollStitcherTest {
+
+    private static final int WIDTH = 360;
+    private static final int HEIGHT = 800;
+    private static final int HEADER = 80;
+    private static final int FOOTER = 96;
+    private static final int PAGE = 9000;
+
+    @Test
+    public void simulatedScreenIsStitchedToExactlyHeaderPageAndFooter() throws IOException {
+        SimulatedScreen screen = new SimulatedScreen(page(PAGE), 347);
+
+        BufferedImage stitched = ImageIO.read(new ByteArrayInputStream(ScrollStitcher.stitch(screen)));
+
+        Assert.assertEquals(stitched.getWidth(), WIDTH);
+        Assert.assertEquals(stitched.getHeight(), HEADER + PAGE + FOOTER);
+        // the header of the first capture, then the whole page, then the footer
+        BufferedImage expected = new BufferedImage(WIDTH, HEADER + PAGE + FOOTER, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = expected.createGraphics();
+        graphics.drawImage(screen.header(0), 0, 0, null);
+        graphics.drawImage(screen.page, 0, HEADER, null);
+        graphics.drawImage(screen.footer, 0, HEADER + PAGE, null);
+        graphics.dispose();
+        Assert.assertEquals(mismatchedPixels(expected, stitched), 0);
+        Assert.assertTrue(screen.swipes < 30, screen.swipes + " swipes");
+    }
+
+    @Test
+    public void screenThatDoesNotScrollIsOneCapture() throws IOException {
+        SimulatedScreen screen = new SimulatedScreen(page(HEIGHT - HEADER - FOOTER), 347);
+
+        BufferedImage stitched = ImageIO.read(new ByteArrayInputStream(ScrollStitcher.stitch(screen)));
+
+        Assert.assertEquals(stitched.getHeight(), HEIGHT);
+        Assert.assertEquals(mismatchedPixels(screen.capture(0), stitched), 0);
+    }
+
+    @Test
+    public void overlapFindsTheFixedRowsAndHowFarTheContentMoved() {
+        Random random = new Random(7);
+        long[] content = new long[2000];
+        for (int row = 0; row < content.length; row++) {
+            content[row] = random.nextLong();
+        }
+        long[] previous = new long[HEIGHT];
+        long[] next = new long[HEIGHT];
+        for (int row = 0; row < HEIGHT; row++) {
+            boolean fixed = row < 50 || row >= HEIGHT - 70;
+            previous[row] = fixed ? row : content[row];
+            next[row] = fixed ? row : content[row + 250];
+        }
+
+        ScrollStitcher.Overlap overlap = ScrollStitcher.Overlap.of(previous, next, 360, -1);
+        Assert.assertEquals(overlap.offset, 250);
+        Assert.assertEquals(overlap.top, 50);
+        Assert.assertEquals(overlap.bottom, 70);
+        Assert.assertEquals(ScrollStitcher.Overlap.of(previous, previous.clone(), 360, -1).offset, 0);
+    }
+
+    @Test
+    public void pngStreamWritesTheRowsItIsGiven() throws IOException {
+        BufferedImage image = page(300);
+        ScrollStitcher.PngStream png = new ScrollStitcher.PngStream(WIDTH);
+        png.append(image, 0, 120);
+        png.append(image, 120, 300);
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(png.finish()));
+        Assert.assertEquals(decoded.getHeight(), 300);
+        Assert.assertEquals(mismatchedPixels(image, decoded), 0);
+    }
+
+    /**
+     * A list of cards of varied heights and colours, with blank stretches between some of them.
+     */
+    private static BufferedImage page(int height) {
+        BufferedImage page = new BufferedImage(WIDTH, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = page.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, WIDTH, height);
+        Random random = new Random(42);
+        for (int y = 8; y < height; ) {
+            int card = 40 + random.nextInt(120);
+            graphics.setColor(new Color(random.nextInt(0xFFFFFF)));
+            graphics.fillRect(16, y, WIDTH - 32, card);
+            // a line of "text" per 20 rows, so rows inside a card differ too
+            for (int line = y + 6; line < y + card - 6; line += 20) {
+                graphics.setColor(Color.BLACK);
+                graphics.fillRect(24, line, 40 + random.nextInt(WIDTH - 80), 2 + random.nextInt(10));
+            }
+            y += card + (random.nextInt(10) == 0 ? 120 : 8);
+        }
+        graphics.dispose();
+        return page;
+    }
+
+    private static long mismatchedPixels(BufferedImage expected, BufferedImage actual) {
+        long mismatched = 0;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                if ((expected.getRGB(x, y) & 0xFFFFFF) != (actual.getRGB(x, y) & 0xFFFFFF)) {
+                    mismatched++;
+                }
+            }
+        }
+        return mismatched;
+    }
+
+    /**
+     * A phone screen over the page: a status bar whose clock changes on every capture, a toolbar, and a bottom
+     * navigation bar. A swipe moves the page a little less than the finger did, and not past its end.
+     */
+    private static final class SimulatedScreen implements ScrollStitcher.Screen {
+
+        final BufferedImage page;
+        final BufferedImage footer;
+        final int scrollPerSwipe;
+        int scroll;
+        int captures;
+        int swipes;
+
+        SimulatedScreen(BufferedImage page, int scrollPerSwipe) {
+            this.page = page;
+            this.scrollPerSwipe = scrollPerSwipe;
+            this.footer = new BufferedImage(WIDTH, FOOTER, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = footer.createGraphics();
+            graphics.setColor(new Color(0x263238));
+            graphics.fillRect(0, 0, WIDTH, FOOTER);
+            graphics.setColor(Color.WHITE);
+            for (int icon = 0; icon < 4; icon++) {
+                graphics.fillOval(30 + icon * 90, 30, 36, 36);
+            }
+            graphics.dispose();
+        }
+
+        BufferedImage header(int minute) {
+            BufferedImage header = new BufferedImage(WIDTH, HEADER, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = header.createGraphics();
+            graphics.setColor(new Color(0x2E7D32));
+            graphics.fillRect(0, 0, WIDTH, HEADER);
+            // the clock: 10 rows whose pixels depend on the minute
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(12, 6, 20 + minute % 30, 10);
+            graphics.fillRect(WIDTH - 80, 40, 60, 24);
+            graphics.dispose();
+            return header;
+        }
+
+        BufferedImage capture(int minute) {
+            BufferedImage screen = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = screen.createGraphics();
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, WIDTH, HEIGHT);
+            graphics.drawImage(page, 0, HEADER - scroll, null);
+            graphics.drawImage(header(minute), 0, 0, null);
+            graphics.drawImage(footer, 0, HEIGHT - FOOTER, null);
+            graphics.dispose();
+            return screen;
+        }
+
+        @Override
+        public BufferedImage capture() {
+            return capture(captures++);
+        }
+
+        @Override
+        public void swipe() {
+            swipes++;
+            scroll = Math.min(scroll + scrollPerSwipe, Math.max(0, page.getHeight() - (HEIGHT - HEADER - FOOTER)));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.tonic.visual;
+
+import com.tonic.exceptions.FrameworkException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Compares 1920x1080 screens drawn with Java2D, the size of the full-HD screenshots the visual checks take.
+ */
+public class ImageDiffTest {
+
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+
+    @Test
+    public void identicalScreensAreComparedQuickly() throws IOException {
+        byte[] png = png(screen("Welcome back", 0));
+        // decoded from PNG, as the screenshots are: 3-byte BGR or ARGB rasters
+        BufferedImage expected = ImageDiff.decode(png);
+        BufferedImage actual = ImageDiff.decode(png);
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 20; i++) {
+            long start = System.nanoTime();
+            ImageDiff.Result result = ImageDiff.create().compare(expected, actual);
+            best = Math.min(best, System.nanoTime() - start);
+            Assert.assertTrue(result.isIdentical(), result.toString());
+            Assert.assertNull(result.getBounds());
+        }
+        System.out.println("Identical 1920x1080 pair: " + best / 1000 + " us");
+        Assert.assertTrue(best < 50_000_000L, "identical pair took " + best / 1_000_000 + " ms");
+    }
+
+    @Test
+    public void changedTextIsFoundWithinItsBounds() {
+        BufferedImage expected = screen("Welcome back", 0);
+        BufferedImage actual = screen("Welcome back!", 0);
+
+        long best = Long.MAX_VALUE;
+        ImageDiff.Result result = null;
+        for (int i = 0; i < 10; i++) {
+            long start = System.nanoTime();
+            result = ImageDiff.create().compare(expected, actual);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.println("Text change in a 1920x1080 pair: " + best / 1000 + " us, " + result);
+        Assert.assertFalse(result.isIdentical());
+        Rectangle heading = new Rectangle(200, 100, 900, 120);
+        Assert.assertTrue(heading.contains(result.getBounds()), result.getBounds() + " outside of " + heading);
+        Assert.assertTrue(result.getChangedTiles() <= 8, result.toString());
+        Assert.assertTrue(best < 250_000_000L, "text change took " + best / 1_000_000 + " ms");
+    }
+
+    @Test
+    public void subPixelShiftOfAnAntialiasedEdgeIsTolerated() {
+        BufferedImage expected = circle(600.0);
+        BufferedImage actual = circle(600.35);
+
+        ImageDiff.Result tolerant = ImageDiff.create().compare(expected, actual);
+        ImageDiff.Result strict = ImageDiff.create().strictAntialiasing().compare(expected, actual);
+        Assert.assertTrue(strict.getDiffPixels() > 0, strict.toString());
+        Assert.assertTrue(tolerant.getAntialiasedPixels() > 0, tolerant.toString());
+        Assert.assertTrue(tolerant.getDiffPixels() < strict.getDiffPixels() / 4, tolerant + " vs strict " + strict);
+    }
+
+    @Test
+    public void ignoredRegionsAreSkipped() {
+        BufferedImage expected = screen("Welcome back", 0);
+        BufferedImage actual = screen("Welcome back", 0);
+        Graphics2D graphics = actual.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(1700, 20, 180, 40);
+        graphics.dispose();
+
+        Assert.assertFalse(ImageDiff.create().compare(expected, actual).isIdentical());
+        Assert.assertTrue(ImageDiff.create().ignore(new Rectangle(1690, 10, 200, 60)).compare(expected, actual).isIdentical());
+    }
+
+    @Test
+    public void comparisonStopsOnceTheLimitIsExceeded() {
+        ImageDiff.Result result = ImageDiff.create().stopAfter(100).compare(screen("Light", 0), screen("Light", 0x202020));
+
+        Assert.assertTrue(result.isStoppedEarly());
+        Assert.assertTrue(result.getDiffPixels() > 100);
+        Assert.assertTrue(result.getDiffPixels() < (long) WIDTH * HEIGHT, result.toString());
+    }
+
+    @Test
+    public void sizeMismatchCountsTheMissingPixels() throws IOException {
+        BufferedImage expected = screen("Welcome back", 0);
+        BufferedImage actual = expected.getSubimage(0, 0, WIDTH, HEIGHT - 10);
+        BufferedImage copy = new BufferedImage(WIDTH, HEIGHT - 10, BufferedImage.TYPE_INT_RGB);
+        copy.getGraphics().drawImage(actual, 0, 0, null);
+
+        ImageDiff.Result result = ImageDiff.create().compare(png(expected), png(copy));
+        Assert.assertTrue(result.isSizeMismatch());
+        Assert.assertEquals(result.getDiffPixels(), (long) WIDTH * 10);
+        Assert.assertEquals(result.diffImage().getHeight(), HEIGHT);
+    }
+
+    @Test(expectedExceptions = FrameworkException.class)
+    public void thresholdOutsideZeroToOneIsRejected() {
+        ImageDiff.create().threshold(1.5);
+    }
+
+    /**
+     * @param shade added to the background, to make every pixel differ
+     */
+    private static BufferedImage screen(String heading, int shade) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.setColor(new Color(0xF0F0F0 - shade));
+        graphics.fillRect(0, 0, WIDTH, HEIGHT);
+        graphics.setColor(new Color(0x2E7D32));
+        graphics.fillRect(0, 0, WIDTH, 80);
+        graphics.setColor(Color.DARK_GRAY);
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 64));
+        graphics.drawString(heading, 240, 180);
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 20));
+        for (int line = 0; line < 30; line++) {
+            graphics.drawString("Terminal " + line + " online since 08:" + (10 + line), 240, 280 + line * 26);
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    private static BufferedImage circle(double x) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, WIDTH, HEIGHT);
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        graphics.setColor(Color.BLACK);
+        graphics.setStroke(new BasicStroke(3f));
+        graphics.draw(new Ellipse2D.Double(x, 240, 600, 600));
+        graphics.dispose();
+        return image;
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        return png.toByteArray();
+    }
+}
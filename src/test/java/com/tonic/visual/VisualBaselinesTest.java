@@ -0,0 +1,23 @@
+package com.tonic.visual;
+
+import com.tonic.emulation.Emulation;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class VisualBaselinesTest {
+
+    @Test
+    public void cellsSharingAViewportGetBaselinesOfTheirOwn() {
+        String english = VisualBaselines.emulation(new Emulation("1280x720", null, "en-US"));
+        String german = VisualBaselines.emulation(new Emulation("1280x720", null, "de-DE"));
+        String phone = VisualBaselines.emulation(new Emulation("1280x720", "iPhone 13", null));
+
+        Assert.assertNotEquals(german, english);
+        Assert.assertNotEquals(phone, VisualBaselines.emulation(Emulation.NONE));
+        Assert.assertNotEquals(VisualBaselines.path("chromium", "1280x720", english, "T.m", "step"),
+                VisualBaselines.path("chromium", "1280x720", german, "T.m", "step"));
+        Assert.assertEquals(VisualBaselines.path("chromium", "1280x720", VisualBaselines.emulation(new Emulation(null, "iPhone 13", "de-DE")), "T.m", "step")
+                .getParent().getParent().getFileName().toString(), "iPhone_13_de-DE");
+        Assert.assertEquals(VisualBaselines.emulation(new Emulation("1280x720", null, null)), "default");
+    }
+}